@@ -0,0 +1,112 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.archive.LedgerArchiver;
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.service.BalanceSnapshotService;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recharge (insert) and history page latency on a ledger of 1,000 wallets
+ * with 1,000 rows older than the archive age and 50 recent rows each, with
+ * every old row still in {@code wallet_transactions} and after
+ * {@link LedgerArchiver} has moved them to the archive table. The
+ * {@code olderPage} read starts past the recent rows, so once archived it
+ * is served from the archive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ArchiveBenchmark {
+
+    private static final int WALLETS = 1_000;
+    private static final int OLD_ROWS_PER_WALLET = 1_000;
+    private static final int RECENT_ROWS_PER_WALLET = 50;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"false", "true"})
+    public boolean archived;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> wallets;
+    private String[] olderCursors;
+    private RechargeRequest recharge;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("--ewallet.archive.batch-size=100000");
+        walletService = context.getBean(WalletService.class);
+        wallets = BenchmarkApplication.createWallets(walletService, WALLETS, BigDecimal.ZERO);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (Long walletId : wallets) {
+            BenchmarkApplication.seedHistory(context, walletId, OLD_ROWS_PER_WALLET);
+            jdbcTemplate.update("update wallet_transactions set created_at = created_at - interval '200' day "
+                    + "where wallet_id = ?", walletId);
+            BenchmarkApplication.seedHistory(context, walletId, RECENT_ROWS_PER_WALLET);
+        }
+        // Stands in for the daily-balance roll-up having caught up, so it neither runs during
+        // the measurement nor holds the archiver back
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status ->
+                context.getBean(JobWatermarkRepository.class).lockOrCreate(BalanceSnapshotService.JOB_NAME)
+                        .advanceTo(LocalDateTime.now(), Long.MAX_VALUE));
+        if (archived) {
+            context.getBean(LedgerArchiver.class).archive();
+        }
+        olderCursors = new String[WALLETS];
+        for (int i = 0; i < WALLETS; i++) {
+            olderCursors[i] = walletService.getTransactions(wallets.get(i), null, RECENT_ROWS_PER_WALLET)
+                    .getNextCursor();
+        }
+        recharge = new RechargeRequest();
+        recharge.setAmount(new BigDecimal("1.00"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object recharge() {
+        return walletService.recharge(wallets.get(ThreadLocalRandom.current().nextInt(WALLETS)), recharge);
+    }
+
+    @Benchmark
+    public Object recentPage() {
+        return walletService.getTransactions(wallets.get(ThreadLocalRandom.current().nextInt(WALLETS)), null,
+                PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object olderPage() {
+        int wallet = ThreadLocalRandom.current().nextInt(WALLETS);
+        return walletService.getTransactions(wallets.get(wallet), olderCursors[wallet], PAGE_SIZE);
+    }
+}
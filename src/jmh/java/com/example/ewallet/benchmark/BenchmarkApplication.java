@@ -0,0 +1,89 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.EwalletApplication;
+import com.example.ewallet.dto.CreateWalletRequest;
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.repository.LedgerBatchWriter;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.service.WalletService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an embedded H2 database for a benchmark
+ * fork, with the {@code bench} profile and any extra {@code --key=value}
+ * arguments applied.
+ */
+public final class BenchmarkApplication {
+
+    private static final int SEED_CHUNK = 10_000;
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return start(WebApplicationType.NONE, args);
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... args) {
+        // DevTools would otherwise relaunch the calling main() in a restart class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        SpringApplication application = new SpringApplication(EwalletApplication.class);
+        application.setWebApplicationType(webApplicationType);
+        application.setAdditionalProfiles("bench");
+        return application.run(args);
+    }
+
+    public static List<Long> createWallets(WalletService walletService, int count, BigDecimal openingBalance) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CreateWalletRequest create = new CreateWalletRequest();
+            create.setOwnerName("bench-" + i);
+            Long id = walletService.createWallet(create).getId();
+            if (openingBalance.signum() > 0) {
+                RechargeRequest recharge = new RechargeRequest();
+                recharge.setAmount(openingBalance);
+                walletService.recharge(id, recharge);
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Appends {@code rows} recharge entries to a wallet's history through the
+     * JDBC batch writer, which is far quicker than going through the service.
+     */
+    public static void seedHistory(ConfigurableApplicationContext context, Long walletId, int rows) {
+        Wallet wallet = context.getBean(WalletRepository.class).findById(walletId).orElseThrow();
+        LedgerBatchWriter writer = context.getBean(LedgerBatchWriter.class);
+        // The writer draws ids from the persistence context's session, so it needs a transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        BigDecimal amount = new BigDecimal("1.00");
+        List<WalletTransaction> chunk = new ArrayList<>(SEED_CHUNK);
+        for (int i = 1; i <= rows; i++) {
+            WalletTransaction tx = new WalletTransaction();
+            tx.setWallet(wallet);
+            tx.setAmount(amount);
+            tx.setType(TransactionType.RECHARGE);
+            tx.setDescription("seed");
+            tx.setReference("seed-" + i);
+            tx.setBalanceAfter(BigDecimal.valueOf(i).setScale(2));
+            chunk.add(tx);
+            if (chunk.size() == SEED_CHUNK || i == rows) {
+                transactionTemplate.executeWithoutResult(status -> writer.insertAll(chunk));
+                chunk.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A recharge burst from 32 threads over disjoint slices of 2000 wallets,
+ * with one transaction per recharge ({@code linger=off}) and with group
+ * commit at several linger times. Throughput and the SampleTime percentiles
+ * together give the throughput/latency curve across linger settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(32)
+public class GroupCommitBenchmark {
+
+    private static final int WALLETS = 2_000;
+
+    @Param({"off", "0ms", "1ms", "2ms", "5ms"})
+    public String linger;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> walletIds;
+    private RechargeRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = "off".equals(linger)
+                ? BenchmarkApplication.start()
+                : BenchmarkApplication.start("--ewallet.group-commit.enabled=true", "--ewallet.group-commit.linger=" + linger);
+        walletService = context.getBean(WalletService.class);
+        walletIds = BenchmarkApplication.createWallets(walletService, WALLETS, BigDecimal.ZERO);
+        request = new RechargeRequest();
+        request.setAmount(new BigDecimal("1.00"));
+        request.setDescription("bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+
+        int offset;
+        int size;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            size = WALLETS / threads.getThreadCount();
+            offset = threads.getThreadIndex() * size;
+        }
+    }
+
+    @Benchmark
+    public Object recharge(Slice slice) {
+        Long walletId = walletIds.get(slice.offset + ThreadLocalRandom.current().nextInt(slice.size));
+        return walletService.recharge(walletId, request);
+    }
+}
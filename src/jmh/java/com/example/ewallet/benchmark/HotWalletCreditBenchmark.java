@@ -0,0 +1,93 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.config.StripingProperties;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.StripedBalanceService;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer credits into a single merchant wallet from many payers, with the
+ * merchant unstriped ({@code stripes=0}) and striped over 1, 4 and 16
+ * sub-balance rows. Each thread pays from its own slice of payers, so the
+ * merchant is the only contended row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(16)
+public class HotWalletCreditBenchmark {
+
+    private static final int PAYERS = 1_600;
+
+    @Param({"0", "1", "4", "16"})
+    public int stripes;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> payerIds;
+    private Long merchantId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("--ewallet.striping.stripes=" + Math.max(1, stripes));
+        walletService = context.getBean(WalletService.class);
+        List<Long> walletIds = BenchmarkApplication.createWallets(walletService, PAYERS + 1, new BigDecimal("1000000000.00"));
+        merchantId = walletIds.get(0);
+        payerIds = walletIds.subList(1, walletIds.size());
+        if (stripes > 0) {
+            context.getBean(StripingProperties.class).getWalletIds().add(merchantId);
+            context.getBean(StripedBalanceService.class).consolidate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object credit(Slice slice) {
+        TransferRequest request = new TransferRequest();
+        request.setFromWalletId(payerIds.get(slice.first + ThreadLocalRandom.current().nextInt(slice.size)));
+        request.setToWalletId(merchantId);
+        request.setAmount(new BigDecimal("0.01"));
+        return walletService.transfer(request);
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+
+        int first;
+        int size;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            size = PAYERS / threads.getThreadCount();
+            first = threads.getThreadIndex() * size;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.service.WalletService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test comparing serving modes at high client counts,
+ * which JMH's thread-per-client model cannot reach. Each simulated client
+ * keeps exactly one request in flight against a server started in this JVM.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=com.example.ewallet.benchmark.HttpLoadDriver \
+ *     -Dbenchmark.args="--scenario=transfer --clients=1000,5000,10000 --profile=virtual"
+ * </pre>
+ *
+ * Use {@code --profile=default} for platform threads. Virtual threads need a
+ * Java 21+ runtime. One JSON summary per client count is written to
+ * {@code target/load-*.json}.
+ */
+public final class HttpLoadDriver {
+
+    private static final int WALLETS = 1_000;
+
+    private HttpLoadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String scenario = options.getOrDefault("scenario", "transfer");
+        String profile = options.getOrDefault("profile", "default");
+        Duration duration = Duration.parse("PT" + options.getOrDefault("duration", "30s").toUpperCase());
+
+        List<String> appArgs = new ArrayList<>(List.of("--server.port=0",
+                "--server.tomcat.max-connections=20000",
+                "--server.tomcat.accept-count=10000"));
+        if (!"default".equals(profile)) {
+            appArgs.add("--spring.profiles.include=" + profile);
+        }
+
+        ConfigurableApplicationContext context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                appArgs.toArray(String[]::new));
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            WalletService walletService = context.getBean(WalletService.class);
+            List<Long> wallets = BenchmarkApplication.createWallets(walletService, WALLETS,
+                    new BigDecimal("1000000000.00"));
+            if ("history".equals(scenario)) {
+                BenchmarkApplication.seedHistory(context, wallets.get(0), 10_000);
+            }
+
+            for (String clients : options.getOrDefault("clients", "1000,5000,10000").split(",")) {
+                Result result = run(URI.create("http://localhost:" + port), scenario, wallets,
+                        Integer.parseInt(clients.trim()), duration);
+                String json = result.toJson(scenario, profile);
+                System.out.println(json);
+                Files.writeString(Path.of("target", "load-" + scenario + "-" + profile + "-" + clients.trim() + ".json"),
+                        json, StandardCharsets.UTF_8);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(URI base, String scenario, List<Long> wallets, int clients, Duration duration)
+            throws InterruptedException {
+        ExecutorService ioThreads = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient http = HttpClient.newBuilder()
+                .executor(ioThreads)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        Histogram latency = new ConcurrentHistogram(3);
+        AtomicLong ok = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        // Each client is an async send chain, so 10k clients do not need 10k driver threads
+        Client client = new Client(http, base, scenario, wallets, deadline, latency, ok, rejected, failed, done);
+        for (int i = 0; i < clients; i++) {
+            client.next();
+        }
+        done.await();
+        ioThreads.shutdownNow();
+        return new Result(clients, duration, ok.get(), rejected.get(), failed.get(), latency);
+    }
+
+    private record Client(HttpClient http, URI base, String scenario, List<Long> wallets, long deadline,
+                          Histogram latency, AtomicLong ok, AtomicLong rejected, AtomicLong failed,
+                          CountDownLatch done) {
+
+        void next() {
+            if (System.nanoTime() >= deadline) {
+                done.countDown();
+                return;
+            }
+            long start = System.nanoTime();
+            http.sendAsync(nextRequest(base, scenario, wallets), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latency.recordValue((System.nanoTime() - start) / 1_000);
+                        if (error != null) {
+                            failed.incrementAndGet();
+                        } else if (response.statusCode() < 300) {
+                            ok.incrementAndGet();
+                        } else if (response.statusCode() == 503 || response.statusCode() == 429) {
+                            rejected.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                        next();
+                    });
+        }
+    }
+
+    private static HttpRequest nextRequest(URI base, String scenario, List<Long> wallets) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if ("history".equals(scenario)) {
+            return HttpRequest.newBuilder(base.resolve("/api/wallets/" + wallets.get(0) + "/transactions?limit=50"))
+                    .GET().build();
+        }
+        long from = wallets.get(random.nextInt(WALLETS));
+        long to;
+        do {
+            to = wallets.get(random.nextInt(WALLETS));
+        } while (to == from);
+        String body = "{\"fromWalletId\":" + from + ",\"toWalletId\":" + to + ",\"amount\":0.01}";
+        return HttpRequest.newBuilder(base.resolve("/api/wallets/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int split = arg.indexOf('=');
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        return options;
+    }
+
+    private record Result(int clients, Duration duration, long ok, long rejected, long failed, Histogram latency) {
+
+        String toJson(String scenario, String profile) {
+            double seconds = duration.toMillis() / 1000.0;
+            return String.format(Locale.ROOT,
+                    "{\"scenario\":\"%s\",\"profile\":\"%s\",\"clients\":%d,"
+                            + "\"throughputPerSec\":%.1f,\"ok\":%d,\"rejected\":%d,\"failed\":%d,"
+                            + "\"p50Micros\":%d,\"p99Micros\":%d,\"p999Micros\":%d,\"maxMicros\":%d}",
+                    scenario, profile, clients, ok / seconds, ok, rejected, failed,
+                    latency.getValueAtPercentile(50), latency.getValueAtPercentile(99),
+                    latency.getValueAtPercentile(99.9), latency.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ewallet.benchmark;
+
+import org.hibernate.SessionEventListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts JDBC round trips made by Hibernate sessions: one per executed
+ * statement and one per executed batch. Registered for every session through
+ * {@code hibernate.session.events.auto}.
+ */
+public class JdbcRoundTripCounter implements SessionEventListener {
+
+    private static final LongAdder ROUND_TRIPS = new LongAdder();
+
+    public static long total() {
+        return ROUND_TRIPS.sum();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        ROUND_TRIPS.increment();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        ROUND_TRIPS.increment();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.config.LedgerExportProperties;
+import com.example.ewallet.export.LedgerExport;
+import com.example.ewallet.export.LedgerExporter;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to export a 1M-row ledger with {@link LedgerExporter#exportAll}, as
+ * columnar and CSV files, with one worker and with four. Rows per second is
+ * one million divided by the reported time; files go to target/export-bench.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LedgerExportBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Param({"COLUMNAR", "CSV"})
+    public LedgerExportProperties.Format format;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private ConfigurableApplicationContext context;
+    private LedgerExporter exporter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "--ewallet.export.directory=target/export-bench",
+                "--ewallet.export.format=" + format,
+                "--ewallet.export.workers=" + workers,
+                "--ewallet.export.range-size=250000");
+        Long walletId = BenchmarkApplication.createWallets(context.getBean(WalletService.class), 1, BigDecimal.ZERO)
+                .get(0);
+        BenchmarkApplication.seedHistory(context, walletId, ROWS);
+        exporter = context.getBean(LedgerExporter.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long exportAll() {
+        List<LedgerExport> exports = exporter.exportAll();
+        return exports.get(0).rows();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Writes the same number of transfers in each ledger format to a fresh
+ * file-backed H2 database and reports transfer throughput and storage used.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=com.example.ewallet.benchmark.LedgerFormatComparison \
+ *     -Dbenchmark.args="--transfers=100000000 --formats=pair,compact"
+ * </pre>
+ *
+ * Transfers go through {@code WalletService.transferBatch} in chunks, which is
+ * the bulk write path. The pair format writes two ledger rows per transfer,
+ * so 100M transfers are 200M rows in that format. One JSON summary per format
+ * is written to {@code target/ledger-format-*.json}.
+ */
+public final class LedgerFormatComparison {
+
+    private static final int WALLETS = 1_000;
+
+    private LedgerFormatComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        long transfers = Long.parseLong(options.getOrDefault("transfers", "1000000"));
+        int chunk = Integer.parseInt(options.getOrDefault("chunk", "5000"));
+
+        for (String format : options.getOrDefault("formats", "pair,compact").split(",")) {
+            String json = run(format.trim(), transfers, chunk);
+            System.out.println(json);
+            Files.writeString(Path.of("target", "ledger-format-" + format.trim() + "-" + transfers + ".json"), json);
+        }
+    }
+
+    private static String run(String format, long transfers, int chunk) throws IOException {
+        Path directory = Path.of("target", "ledger-format");
+        Path database = directory.resolve(format);
+        deleteDatabase(directory, format);
+
+        ConfigurableApplicationContext context = BenchmarkApplication.start(
+                "--spring.datasource.url=jdbc:h2:file:./" + database.toString().replace('\\', '/'),
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--ewallet.ledger.format=" + format,
+                // Keep the daily balance roll-up from competing with the writes
+                "--ewallet.snapshots.build-interval=PT1000H");
+        try {
+            WalletService walletService = context.getBean(WalletService.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            List<Long> wallets = BenchmarkApplication.createWallets(walletService, WALLETS,
+                    new BigDecimal("1000000000.00"));
+            BigDecimal amount = new BigDecimal("0.01");
+
+            long start = System.nanoTime();
+            long written = 0;
+            while (written < transfers) {
+                int size = (int) Math.min(chunk, transfers - written);
+                walletService.transferBatch(randomTransfers(wallets, size, amount));
+                written += size;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Long rows = jdbcTemplate.queryForObject("select count(*) from wallet_transactions", Long.class);
+            jdbcTemplate.execute("shutdown compact");
+            long fileBytes = Files.size(directory.resolve(format + ".mv.db"));
+
+            return String.format(Locale.ROOT,
+                    "{\"format\":\"%s\",\"transfers\":%d,\"ledgerRows\":%d,\"seconds\":%.1f,"
+                            + "\"transfersPerSec\":%.1f,\"fileBytes\":%d,\"fileBytesPerTransfer\":%.1f}",
+                    format, transfers, rows, seconds, transfers / seconds, fileBytes,
+                    (double) fileBytes / transfers);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<TransferRequest> randomTransfers(List<Long> wallets, int count, BigDecimal amount) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<TransferRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = random.nextInt(WALLETS);
+            int to = (from + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+            TransferRequest request = new TransferRequest();
+            request.setFromWalletId(wallets.get(from));
+            request.setToWalletId(wallets.get(to));
+            request.setAmount(amount);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static void deleteDatabase(Path directory, String format) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().startsWith(format + ".")).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int split = arg.indexOf('=');
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfer throughput under the {@code dev} profile (every statement and bind
+ * parameter logged), no profile, and the {@code prod} profile (statements
+ * timed, only slow ones logged in the background). Log output goes to
+ * target/logging-{profile}.log instead of the console, so the forked JVM's
+ * output pipe does not become the bottleneck.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+public class LoggingProfileBenchmark {
+
+    private static final int WALLETS = 1_000;
+
+    @Param({"dev", "none", "prod"})
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> walletIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        if (!"none".equals(profile)) {
+            args.add("--spring.profiles.active=" + profile);
+        }
+        args.add("--logging.file.name=target/logging-" + profile + ".log");
+        args.add("--logging.threshold.console=OFF");
+        if ("prod".equals(profile)) {
+            args.add("--logging.structured.format.file=logstash");
+        }
+        context = BenchmarkApplication.start(args.toArray(String[]::new));
+        walletService = context.getBean(WalletService.class);
+        walletIds = BenchmarkApplication.createWallets(walletService, WALLETS, new BigDecimal("1000000000.00"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long from = walletIds.get(random.nextInt(WALLETS));
+        Long to;
+        do {
+            to = walletIds.get(random.nextInt(WALLETS));
+        } while (to.equals(from));
+        TransferRequest request = new TransferRequest();
+        request.setFromWalletId(from);
+        request.setToWalletId(to);
+        request.setAmount(new BigDecimal("0.01"));
+        return walletService.transfer(request);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.LoginRequest;
+import com.example.ewallet.dto.SignupRequest;
+import com.example.ewallet.service.AuthService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A login storm: 32 threads logging in concurrently, far more than there are
+ * cores to run bcrypt on. Besides throughput, each thread samples the Hikari
+ * pool after every call; {@code poolActive / poolSamples} is the mean number
+ * of connections checked out during the storm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(32)
+public class LoginBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private HikariPoolMXBean pool;
+    private LoginRequest login;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PoolCounters {
+
+        public long poolActive;
+        public long poolPending;
+        public long poolSamples;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            poolActive = 0;
+            poolPending = 0;
+            poolSamples = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // A large hashing queue keeps the storm from being shed with 429s mid-measurement
+        context = BenchmarkApplication.start("--ewallet.auth.hashing.queue-capacity=1024");
+        authService = context.getBean(AuthService.class);
+        pool = context.getBean(DataSource.class).unwrap(HikariDataSource.class).getHikariPoolMXBean();
+
+        SignupRequest signup = new SignupRequest();
+        signup.setUsername("bench-user");
+        signup.setEmail("bench@example.com");
+        signup.setPassword("bench-password");
+        authService.signup(signup).join();
+
+        login = new LoginRequest();
+        login.setUsername("bench-user");
+        login.setPassword("bench-password");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object login(PoolCounters counters) {
+        Object profile = authService.login(login).join();
+        counters.poolActive += pool.getActiveConnections();
+        counters.poolPending += pool.getThreadsAwaitingConnection();
+        counters.poolSamples++;
+        return profile;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.metrics.OperationMetrics;
+import com.example.ewallet.metrics.OperationMetrics.Operation;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What {@link OperationMetrics} adds to each wallet call, against a
+ * Prometheus registry with histograms: an untimed call, a timed one, and a
+ * timed one with the history-rows summary. Compare with the milliseconds a
+ * transfer takes in TransferBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private OperationMetrics metrics;
+    private long calls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metrics = new OperationMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+    }
+
+    @Benchmark
+    public long untimed() {
+        return ++calls;
+    }
+
+    @Benchmark
+    public long timed() {
+        return metrics.record(Operation.TRANSFER, () -> ++calls);
+    }
+
+    @Benchmark
+    public long timedWithRows() {
+        return metrics.record(Operation.GET_TRANSACTIONS, () -> {
+            metrics.historyRows(20);
+            return ++calls;
+        });
+    }
+}
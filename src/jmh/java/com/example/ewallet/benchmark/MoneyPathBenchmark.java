@@ -0,0 +1,125 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.service.Money;
+import com.example.ewallet.service.ReferenceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The money handling of one transfer and of a netted batch, written the old
+ * way ({@link BigDecimal} arithmetic and {@code UUID.randomUUID()}
+ * references) and the current way ({@link Money} minor units and
+ * {@link ReferenceGenerator}), without the database around them. Run with
+ * {@code -prof gc} to compare gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MoneyPathBenchmark {
+
+    private static final int BATCH_ITEMS = 100;
+    private static final int BATCH_WALLETS = 10;
+
+    private final BigDecimal amount = new BigDecimal("12.34");
+    private final BigDecimal fromBalance = new BigDecimal("1000000.00");
+    private final BigDecimal toBalance = new BigDecimal("250.00");
+    private final Long[] walletIds = new Long[BATCH_WALLETS];
+
+    public MoneyPathBenchmark() {
+        for (int i = 0; i < BATCH_WALLETS; i++) {
+            walletIds[i] = 1_000L + i;
+        }
+    }
+
+    @Benchmark
+    public void referenceUuid(Blackhole bh) {
+        bh.consume(UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    public void referenceGenerator(Blackhole bh) {
+        bh.consume(ReferenceGenerator.next());
+    }
+
+    @Benchmark
+    public void transferBigDecimal(Blackhole bh) {
+        if (fromBalance.compareTo(amount) < 0) {
+            throw new IllegalStateException();
+        }
+        bh.consume(UUID.randomUUID().toString());
+        bh.consume(fromBalance.subtract(amount));
+        bh.consume(toBalance.add(amount));
+    }
+
+    @Benchmark
+    public void transferMinorUnits(Blackhole bh) {
+        long minor = Money.toPositiveMinor(amount);
+        long from = Money.toMinor(fromBalance);
+        if (from < minor) {
+            throw new IllegalStateException();
+        }
+        bh.consume(ReferenceGenerator.next());
+        bh.consume(Money.toDecimal(from - minor));
+        bh.consume(Money.toDecimal(Math.addExact(Money.toMinor(toBalance), minor)));
+    }
+
+    // Netting only: the per-item balances the ledger rows record are left out of both
+    @Benchmark
+    public void batchBigDecimal(Blackhole bh) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Long id : walletIds) {
+            balances.put(id, fromBalance);
+        }
+        for (int i = 0; i < BATCH_ITEMS; i++) {
+            Long fromId = walletIds[i % BATCH_WALLETS];
+            Long toId = walletIds[(i + 1) % BATCH_WALLETS];
+            BigDecimal balance = balances.get(fromId);
+            if (balance.compareTo(amount) < 0) {
+                continue;
+            }
+            bh.consume(UUID.randomUUID().toString());
+            balances.put(fromId, balance.subtract(amount));
+            balances.put(toId, balances.get(toId).add(amount));
+        }
+        bh.consume(balances);
+    }
+
+    @Benchmark
+    public void batchMinorUnits(Blackhole bh) {
+        Map<Long, Integer> slots = new HashMap<>();
+        long[] balances = new long[BATCH_WALLETS];
+        for (int slot = 0; slot < BATCH_WALLETS; slot++) {
+            slots.put(walletIds[slot], slot);
+            balances[slot] = Money.toMinor(fromBalance);
+        }
+        long minor = Money.toPositiveMinor(amount);
+        for (int i = 0; i < BATCH_ITEMS; i++) {
+            int fromSlot = slots.get(walletIds[i % BATCH_WALLETS]);
+            int toSlot = slots.get(walletIds[(i + 1) % BATCH_WALLETS]);
+            if (balances[fromSlot] < minor) {
+                continue;
+            }
+            bh.consume(ReferenceGenerator.next());
+            balances[fromSlot] -= minor;
+            balances[toSlot] = Math.addExact(balances[toSlot], minor);
+        }
+        bh.consume(balances);
+    }
+}
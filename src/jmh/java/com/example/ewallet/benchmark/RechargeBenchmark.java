@@ -0,0 +1,80 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recharges spread over 1000 wallets. Each benchmark thread owns a disjoint
+ * slice of the wallets: recharge still relies on {@code @Version}, so two
+ * threads hitting one wallet would measure conflicts rather than throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+public class RechargeBenchmark {
+
+    private static final int WALLETS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> walletIds;
+    private RechargeRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        walletService = context.getBean(WalletService.class);
+        walletIds = BenchmarkApplication.createWallets(walletService, WALLETS, BigDecimal.ZERO);
+        request = new RechargeRequest();
+        request.setAmount(new BigDecimal("1.00"));
+        request.setDescription("bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+
+        int offset;
+        int size;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            size = WALLETS / threads.getThreadCount();
+            offset = threads.getThreadIndex() * size;
+        }
+    }
+
+    @Benchmark
+    public Object recharge(Slice slice) {
+        Long walletId = walletIds.get(slice.offset + ThreadLocalRandom.current().nextInt(slice.size));
+        return walletService.recharge(walletId, request);
+    }
+}
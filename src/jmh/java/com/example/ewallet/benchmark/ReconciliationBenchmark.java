@@ -0,0 +1,72 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.reconciliation.LedgerReconciler;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for {@link LedgerReconciler#reconcile} over 1,000 wallets with 1,000
+ * ledger rows each, with one worker and with four. Rows per second is one
+ * million divided by the reported time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReconciliationBenchmark {
+
+    private static final int WALLETS = 1_000;
+    private static final int ROWS_PER_WALLET = 1_000;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private ConfigurableApplicationContext context;
+    private LedgerReconciler reconciler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "--ewallet.reconciliation.workers=" + workers,
+                "--ewallet.reconciliation.range-size=100");
+        List<Long> wallets = BenchmarkApplication.createWallets(context.getBean(WalletService.class), WALLETS,
+                BigDecimal.ZERO);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (Long walletId : wallets) {
+            BenchmarkApplication.seedHistory(context, walletId, ROWS_PER_WALLET);
+            jdbcTemplate.update("update wallets set balance = ? where id = ?",
+                    BigDecimal.valueOf(ROWS_PER_WALLET).setScale(2), walletId);
+        }
+        reconciler = context.getBean(LedgerReconciler.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long reconcile() {
+        return reconciler.reconcile().transactions();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recharge and transfer throughput with wallets spread over 1, 2 and 4
+ * embedded H2 shards. Recharges stay on one shard; transfers pick random
+ * pairs, so a share of {@code 1 - 1/shards} of them take the cross-shard
+ * reserve/credit/confirm path. Each thread recharges its own slice of
+ * wallets, since recharges are not retried on version conflicts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+public class ShardScalingBenchmark {
+
+    private static final int WALLETS = 1_000;
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> walletIds;
+    private RechargeRequest recharge;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>();
+        args.add("--ewallet.sharding.enabled=true");
+        for (int shard = 0; shard < shards; shard++) {
+            args.add("--ewallet.sharding.urls[" + shard + "]=jdbc:h2:mem:scaling-" + shard + ";DB_CLOSE_DELAY=-1");
+        }
+        context = BenchmarkApplication.start(args.toArray(String[]::new));
+        walletService = context.getBean(WalletService.class);
+        walletIds = BenchmarkApplication.createWallets(walletService, WALLETS, new BigDecimal("1000000000.00"));
+        recharge = new RechargeRequest();
+        recharge.setAmount(new BigDecimal("0.01"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object recharge(Slice slice) {
+        int index = slice.first + ThreadLocalRandom.current().nextInt(slice.size);
+        return walletService.recharge(walletIds.get(index), recharge);
+    }
+
+    @Benchmark
+    public Object transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long from = walletIds.get(random.nextInt(WALLETS));
+        Long to;
+        do {
+            to = walletIds.get(random.nextInt(WALLETS));
+        } while (to.equals(from));
+        TransferRequest request = new TransferRequest();
+        request.setFromWalletId(from);
+        request.setToWalletId(to);
+        request.setAmount(new BigDecimal("0.01"));
+        return walletService.transfer(request);
+    }
+
+    @State(Scope.Thread)
+    public static class Slice {
+
+        int first;
+        int size;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            size = WALLETS / threads.getThreadCount();
+            first = threads.getThreadIndex() * size;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.service.WalletService;
+import com.example.ewallet.web.WalletEventHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Soak test for the wallet event stream: opens many idle SSE subscriptions
+ * spread over a set of wallets, recharges those wallets, and measures how
+ * many balance events arrive and how long they take, plus heartbeats, server
+ * threads and heap while every stream is open.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dbenchmark.main=com.example.ewallet.benchmark.SseSoakDriver \
+ *     -Dbenchmark.args="--subscribers=20000 --wallets=1000 --updates=5000"
+ * </pre>
+ *
+ * Client and server share the JVM, so every subscriber costs two file
+ * descriptors; raise {@code ulimit -n} above twice the subscriber count.
+ * The summary is written to {@code target/sse-soak-*.json}.
+ */
+public final class SseSoakDriver {
+
+    private SseSoakDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int subscribers = Integer.parseInt(options.getOrDefault("subscribers", "20000"));
+        int walletCount = Integer.parseInt(options.getOrDefault("wallets", "1000"));
+        int updates = Integer.parseInt(options.getOrDefault("updates", "5000"));
+        Duration idle = Duration.parse("PT" + options.getOrDefault("idle", "15s").toUpperCase());
+        Duration heartbeat = Duration.parse("PT" + options.getOrDefault("heartbeat", "5s").toUpperCase());
+
+        ConfigurableApplicationContext context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "--server.port=0",
+                "--server.tomcat.max-connections=" + (subscribers + 1_000),
+                "--server.tomcat.accept-count=10000",
+                "--ewallet.events.max-subscribers=" + subscribers,
+                "--ewallet.events.heartbeat-interval=" + heartbeat);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            WalletService walletService = context.getBean(WalletService.class);
+            WalletEventHub hub = context.getBean(WalletEventHub.class);
+            List<Long> wallets = BenchmarkApplication.createWallets(walletService, walletCount, BigDecimal.ZERO);
+
+            Stats stats = new Stats(walletCount);
+            HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+            CountDownLatch connected = new CountDownLatch(subscribers);
+            // Bound the number of handshakes in flight so the accept queue never overflows
+            Semaphore connecting = new Semaphore(1_000);
+            long connectStart = System.nanoTime();
+            for (int i = 0; i < subscribers; i++) {
+                int walletIndex = i % walletCount;
+                connecting.acquire();
+                HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/api/wallets/" + wallets.get(walletIndex) + "/events"))
+                        .header("Accept", "text/event-stream")
+                        .build();
+                client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(
+                        new StreamListener(walletIndex, stats, connected, connecting)));
+            }
+            boolean allConnected = connected.await(5, TimeUnit.MINUTES);
+            double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+
+            RechargeRequest recharge = new RechargeRequest();
+            recharge.setAmount(new BigDecimal("1.00"));
+            long updateStart = System.nanoTime();
+            for (int u = 0; u < updates; u++) {
+                int walletIndex = u % walletCount;
+                stats.updatedAt.set(walletIndex, System.nanoTime());
+                walletService.recharge(wallets.get(walletIndex), recharge);
+            }
+            double updateSeconds = (System.nanoTime() - updateStart) / 1e9;
+
+            long heartbeatsBefore = stats.heartbeats.sum();
+            Thread.sleep(idle.toMillis());
+            long idleHeartbeats = stats.heartbeats.sum() - heartbeatsBefore;
+
+            System.gc();
+            long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+            long expected = (long) updates * (subscribers / walletCount);
+            String json = String.format(Locale.ROOT,
+                    "{\"subscribers\":%d,\"connected\":%d,\"allConnected\":%s,\"connectSeconds\":%.1f,"
+                            + "\"wallets\":%d,\"updates\":%d,\"updatesPerSec\":%.1f,"
+                            + "\"eventsExpected\":%d,\"eventsReceived\":%d,\"conflated\":%.0f,\"slowDisconnects\":%.0f,"
+                            + "\"p50Micros\":%d,\"p99Micros\":%d,\"maxMicros\":%d,"
+                            + "\"idleSeconds\":%d,\"idleHeartbeats\":%d,\"streamErrors\":%d,"
+                            + "\"openOnServer\":%d,\"jvmThreads\":%d,\"heapUsedMb\":%d}",
+                    subscribers, subscribers - connected.getCount(), allConnected, connectSeconds,
+                    walletCount, updates, updates / updateSeconds,
+                    expected, stats.events.sum(),
+                    registry.get("ewallet.events.conflated").functionCounter().count(),
+                    registry.get("ewallet.events.slow.disconnects").functionCounter().count(),
+                    stats.latency.getValueAtPercentile(50), stats.latency.getValueAtPercentile(99),
+                    stats.latency.getMaxValue(),
+                    idle.toSeconds(), idleHeartbeats, stats.errors.sum(),
+                    hub.subscriberCount(), threads, heapUsed / (1024 * 1024));
+            System.out.println(json);
+            Files.writeString(Path.of("target", "sse-soak-" + subscribers + ".json"), json);
+        } finally {
+            context.close();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private static final class Stats {
+
+        private final AtomicLongArray updatedAt;
+        private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        private final LongAdder events = new LongAdder();
+        private final LongAdder heartbeats = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        private Stats(int wallets) {
+            this.updatedAt = new AtomicLongArray(wallets);
+        }
+    }
+
+    private static final class StreamListener implements Flow.Subscriber<String> {
+
+        private final int walletIndex;
+        private final Stats stats;
+        private final CountDownLatch connected;
+        private final Semaphore connecting;
+        private boolean initialReceived;
+
+        private StreamListener(int walletIndex, Stats stats, CountDownLatch connected, Semaphore connecting) {
+            this.walletIndex = walletIndex;
+            this.stats = stats;
+            this.connected = connected;
+            this.connecting = connecting;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith(":")) {
+                stats.heartbeats.increment();
+            } else if (line.startsWith("data:")) {
+                if (!initialReceived) {
+                    // The first event is the balance at subscription time
+                    initialReceived = true;
+                    connected.countDown();
+                    connecting.release();
+                    return;
+                }
+                stats.events.increment();
+                long sentAt = stats.updatedAt.get(walletIndex);
+                stats.latency.recordValue(Math.max(0, (System.nanoTime() - sentAt) / 1_000));
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            stats.errors.increment();
+            if (!initialReceived) {
+                initialReceived = true;
+                connecting.release();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int split = arg.indexOf('=');
+                options.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        return options;
+    }
+}
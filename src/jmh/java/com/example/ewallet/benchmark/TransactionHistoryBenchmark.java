@@ -0,0 +1,124 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.TransactionResponse;
+import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.service.WalletService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History reads for a wallet with 10, 10k and 1M ledger rows.
+ *
+ * <p>The {@code entity*} benchmarks reproduce the previous read path, which
+ * hydrated managed {@link WalletTransaction}s and copied them into DTOs, so it
+ * can be compared with the projection queries the service now uses. Run with
+ * {@code -prof gc} to get allocation rates alongside latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TransactionHistoryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final String ENTITY_QUERY = "select t from WalletTransaction t where t.wallet.id = :walletId "
+            + "order by t.createdAt desc, t.id desc";
+
+    @Param({"10", "10000", "1000000"})
+    public int historyRows;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private EntityManagerFactory entityManagerFactory;
+    private Long walletId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        walletService = context.getBean(WalletService.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        walletId = BenchmarkApplication.createWallets(walletService, 1, BigDecimal.ZERO).get(0);
+        BenchmarkApplication.seedHistory(context, walletId, historyRows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object latestPage() {
+        return walletService.getTransactions(walletId, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object latestPageEntities() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            List<WalletTransaction> rows = em.createQuery(ENTITY_QUERY, WalletTransaction.class)
+                    .setParameter("walletId", walletId)
+                    .setMaxResults(PAGE_SIZE + 1)
+                    .getResultList();
+            return toResponses(rows);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        walletService.streamTransactions(walletId, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object fullHistoryEntities() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return toResponses(em.createQuery(ENTITY_QUERY, WalletTransaction.class)
+                    .setParameter("walletId", walletId)
+                    .getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+    private static List<TransactionResponse> toResponses(List<WalletTransaction> rows) {
+        List<TransactionResponse> responses = new ArrayList<>(rows.size());
+        for (WalletTransaction tx : rows) {
+            TransactionResponse resp = new TransactionResponse();
+            resp.setId(tx.getId());
+            resp.setWalletId(tx.getWallet().getId());
+            resp.setAmount(tx.getAmount());
+            resp.setType(tx.getType());
+            resp.setCreatedAt(tx.getCreatedAt());
+            resp.setDescription(tx.getDescription());
+            resp.setReference(tx.getReference());
+            resp.setBalanceAfter(tx.getBalanceAfter());
+            responses.add(resp);
+        }
+        return responses;
+    }
+}
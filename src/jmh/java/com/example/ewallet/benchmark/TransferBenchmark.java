@@ -0,0 +1,87 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transfers between random wallets. With {@code distribution=hot}, 90% of
+ * transfers credit the same merchant wallet, which is the contention pattern
+ * the ordered locking and retry loop in {@code WalletService.transfer} target.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+public class TransferBenchmark {
+
+    private static final int WALLETS = 1_000;
+
+    @Param({"uniform", "hot"})
+    public String distribution;
+
+    // Extra --key=value application arguments, e.g. to compare lock modes or profiles
+    @Param({""})
+    public String applicationArgs;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private List<Long> walletIds;
+    private Long hotWalletId;
+    private BigDecimal amount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(applicationArgs.isBlank() ? new String[0] : applicationArgs.split(" "));
+        walletService = context.getBean(WalletService.class);
+        walletIds = BenchmarkApplication.createWallets(walletService, WALLETS, new BigDecimal("1000000000.00"));
+        hotWalletId = walletIds.get(0);
+        amount = new BigDecimal("0.01");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long from = walletIds.get(1 + random.nextInt(WALLETS - 1));
+        Long to;
+        if ("hot".equals(distribution) && random.nextInt(10) < 9) {
+            to = hotWalletId;
+        } else {
+            do {
+                to = walletIds.get(random.nextInt(WALLETS));
+            } while (to.equals(from));
+        }
+        TransferRequest request = new TransferRequest();
+        request.setFromWalletId(from);
+        request.setToWalletId(to);
+        request.setAmount(amount);
+        return walletService.transfer(request);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ewallet.benchmark;
+
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JDBC round trips per transfer. {@code batchSize=1} reproduces the statement
+ * pattern of IDENTITY ids, where every insert had to run on its own to read
+ * back the generated key; {@code batchSize=50} is the configured setting, with
+ * the two ledger inserts and the two wallet updates each sent as one batch.
+ * {@code roundTrips / transfers} is the mean per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(1)
+public class TransferRoundTripBenchmark {
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private WalletService walletService;
+    private TransferRequest request;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RoundTrips {
+
+        public long roundTrips;
+        public long transfers;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+            transfers = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--spring.jpa.properties.hibernate.session.events.auto=" + JdbcRoundTripCounter.class.getName());
+        walletService = context.getBean(WalletService.class);
+        List<Long> ids = BenchmarkApplication.createWallets(walletService, 2, new BigDecimal("1000000000.00"));
+        request = new TransferRequest();
+        request.setFromWalletId(ids.get(0));
+        request.setToWalletId(ids.get(1));
+        request.setAmount(new BigDecimal("0.01"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object transfer(RoundTrips counters) {
+        long before = JdbcRoundTripCounter.total();
+        Object response = walletService.transfer(request);
+        counters.roundTrips += JdbcRoundTripCounter.total() - before;
+        counters.transfers++;
+        return response;
+    }
+}
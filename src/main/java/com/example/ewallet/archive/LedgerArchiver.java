@@ -0,0 +1,168 @@
+package com.example.ewallet.archive;
+
+import com.example.ewallet.config.ArchiveProperties;
+import com.example.ewallet.config.LedgerExportProperties;
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.export.LedgerExporter;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.service.BalanceSnapshotService;
+import com.example.ewallet.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves ledger rows older than {@code ewallet.archive.age} from
+ * {@code wallet_transactions} into {@code wallet_transactions_archive}, so the
+ * hot table and its indexes stay sized to recent activity. History, balance
+ * and reconciliation reads take in both tables.
+ *
+ * <p>Rows move oldest first in {@code (createdAt, id)} order, one batch per
+ * transaction: an insert-select and a delete over the same key range. Every
+ * archived row is therefore older than every row left behind, which is what
+ * lets readers simply continue from one table into the other. The cutoff is
+ * also held back to what the daily-balance roll-up and, when it is enabled,
+ * the incremental export have already read, rows in the export's open id
+ * gaps included, since both walk the hot table only.
+ *
+ * <p>Each batch locks the shard's {@code ledger-archive} watermark, so only
+ * one node archives a shard at a time, and advances it to the last row moved.
+ */
+@Service
+public class LedgerArchiver {
+
+    public static final String JOB_NAME = "ledger-archive";
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerArchiver.class);
+
+    private static final String COLUMNS = "id, wallet_id, amount, type, created_at, description, reference, "
+            + "balance_after, counterparty_wallet_id, counterparty_balance_after";
+
+    // The last row of the next batch
+    private static final String BATCH_END_SQL =
+            "select created_at, id from (select created_at, id from wallet_transactions where created_at < ? "
+                    + "order by created_at, id fetch first ? rows only) "
+                    + "order by created_at desc, id desc fetch first 1 rows only";
+
+    // Up to and including (created_at, id); the leading range keeps it on the (created_at, id) index
+    private static final String BATCH_PREDICATE = " where created_at <= ? and (created_at < ? or id <= ?)";
+
+    private static final String INSERT_SQL = "insert into wallet_transactions_archive (" + COLUMNS + ") select "
+            + COLUMNS + " from wallet_transactions" + BATCH_PREDICATE;
+
+    private static final String DELETE_SQL = "delete from wallet_transactions" + BATCH_PREDICATE;
+
+    private final ArchiveProperties properties;
+    private final LedgerExportProperties exportProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobWatermarkRepository watermarkRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter archivedRows;
+
+    public LedgerArchiver(ArchiveProperties properties,
+                          LedgerExportProperties exportProperties,
+                          JdbcTemplate jdbcTemplate,
+                          JobWatermarkRepository watermarkRepository,
+                          ShardRouter shardRouter,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry registry) {
+        this.properties = properties;
+        this.exportProperties = exportProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.watermarkRepository = watermarkRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivedRows = Counter.builder("ewallet.archive.rows")
+                .description("Ledger rows moved to the archive table")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.archive.interval:PT1H}")
+    public void run() {
+        if (properties.isEnabled()) {
+            archive();
+        }
+    }
+
+    /**
+     * Archives every eligible row on every shard and returns how many rows
+     * were moved.
+     */
+    public long archive() {
+        long started = System.nanoTime();
+        long[] total = {0};
+        shardRouter.onEachShard(shard -> total[0] += archiveShard());
+        if (total[0] > 0) {
+            log.info("Archived {} ledger rows in {} ms", total[0],
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+        return total[0];
+    }
+
+    private long archiveShard() {
+        long total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch());
+            total += moved;
+        } while (moved == properties.getBatchSize());
+        return total;
+    }
+
+    private int archiveBatch() {
+        JobWatermark watermark = watermarkRepository.lockOrCreate(JOB_NAME);
+        LocalDateTime cutoff = cutoff();
+        List<Object[]> end = jdbcTemplate.query(BATCH_END_SQL,
+                (rs, rowNum) -> new Object[] {rs.getObject(1, LocalDateTime.class), rs.getLong(2)},
+                cutoff, properties.getBatchSize());
+        if (end.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime lastCreatedAt = (LocalDateTime) end.get(0)[0];
+        long lastId = (Long) end.get(0)[1];
+        int inserted = jdbcTemplate.update(INSERT_SQL, lastCreatedAt, lastCreatedAt, lastId);
+        int deleted = jdbcTemplate.update(DELETE_SQL, lastCreatedAt, lastCreatedAt, lastId);
+        // A row committed into the range between the two statements would be lost; roll back instead
+        if (deleted != inserted) {
+            throw new IllegalStateException("Archived " + inserted + " ledger rows but removed " + deleted
+                    + " up to row " + lastId);
+        }
+        watermark.advanceTo(lastCreatedAt, lastId);
+        archivedRows.increment(inserted);
+        return inserted;
+    }
+
+    private LocalDateTime cutoff() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getAge());
+        LocalDateTime rolledUp = watermarkRepository.findById(BalanceSnapshotService.JOB_NAME)
+                .map(JobWatermark::getLastCreatedAt)
+                .orElse(JobWatermark.ORIGIN);
+        if (rolledUp.isBefore(cutoff)) {
+            cutoff = rolledUp;
+        }
+        if (exportProperties.isEnabled()) {
+            long exported = watermarkRepository.findById(LedgerExporter.JOB_NAME)
+                    .map(JobWatermark::getLastId)
+                    .orElse(0L);
+            LocalDateTime unexported = jdbcTemplate.queryForObject(
+                    "select min(created_at) from wallet_transactions where id > ? or exists (select 1 "
+                            + "from ledger_export_gaps g where wallet_transactions.id between g.first_id and g.last_id)",
+                    LocalDateTime.class, exported);
+            if (unexported != null && unexported.isBefore(cutoff)) {
+                cutoff = unexported;
+            }
+        }
+        return cutoff;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ewallet.cache;
+
+import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.entity.Wallet;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a committed wallet row, stamped with its {@code @Version}.
+ */
+public final class WalletSnapshot {
+
+    private final Long id;
+    private final long version;
+    private final String ownerName;
+    private final BigDecimal balance;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String reference;
+
+    public WalletSnapshot(Long id, Long version, String ownerName, BigDecimal balance,
+                          LocalDateTime createdAt, LocalDateTime updatedAt, String reference) {
+        this.id = id;
+        this.version = version == null ? 0L : version;
+        this.ownerName = ownerName;
+        this.balance = balance;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.reference = reference;
+    }
+
+    public static WalletSnapshot of(Wallet wallet) {
+        return new WalletSnapshot(wallet.getId(), wallet.getVersion(), wallet.getOwnerName(), wallet.getBalance(),
+                wallet.getCreatedAt(), wallet.getUpdatedAt(), wallet.getReference());
+    }
+
+    public WalletSnapshot withBalance(BigDecimal balance) {
+        return new WalletSnapshot(id, version, ownerName, balance, createdAt, updatedAt, reference);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public WalletResponse toResponse() {
+        return new WalletResponse(id, ownerName, balance, createdAt, updatedAt, reference);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ewallet.cache;
+
+import com.example.ewallet.config.WalletCacheProperties;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process cache of committed wallet snapshots.
+ *
+ * <p>Entries are only written after a transaction commits, and an entry is
+ * replaced only by a snapshot with a higher {@code Wallet.version}, so a read
+ * can never observe a rolled back balance or go backwards in version.
+ */
+@Component
+public class WalletSnapshotCache implements MeterBinder {
+
+    private final Cache<Long, WalletSnapshot> cache;
+    private final boolean enabled;
+    private final LongAdder staleRejections = new LongAdder();
+
+    public WalletSnapshotCache(WalletCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    public WalletSnapshot get(Long walletId) {
+        return enabled ? cache.getIfPresent(walletId) : null;
+    }
+
+    public void put(WalletSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        cache.asMap().compute(snapshot.getId(), (id, current) -> {
+            if (current == null || current.getVersion() < snapshot.getVersion()) {
+                return snapshot;
+            }
+            if (current.getVersion() > snapshot.getVersion()) {
+                staleRejections.increment();
+            }
+            return current;
+        });
+    }
+
+    public void invalidate(Long walletId) {
+        cache.invalidate(walletId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWalletChanged(WalletChangedEvent event) {
+        for (Wallet wallet : event.getWallets()) {
+            put(WalletSnapshot.of(wallet));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "wallets");
+        FunctionCounter.builder("ewallet.wallet.cache.stale.rejections", staleRejections, LongAdder::sum)
+                .description("Snapshots discarded because a newer version was already cached")
+                .register(registry);
+    }
+}
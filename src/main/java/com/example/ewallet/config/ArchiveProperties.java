@@ -0,0 +1,42 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.archive")
+public class ArchiveProperties {
+
+    // Runs on ewallet.archive.interval; archiving can always be started directly
+    private boolean enabled = false;
+
+    // Ledger rows older than this move to wallet_transactions_archive
+    private Duration age = Duration.ofDays(90);
+
+    // Rows moved per transaction
+    private int batchSize = 10_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getAge() {
+        return age;
+    }
+
+    public void setAge(Duration age) {
+        this.age = age;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
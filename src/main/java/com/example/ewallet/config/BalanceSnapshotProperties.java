@@ -0,0 +1,44 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.snapshots")
+public class BalanceSnapshotProperties {
+
+    // Rows younger than this are left for the next run. A transaction that
+    // commits more than this after creating its rows lands behind the
+    // watermark; see lateRowWindow
+    private Duration settleDelay = Duration.ofSeconds(30);
+
+    // How far behind the watermark each roll-up looks for rows that committed
+    // late. The days it touches are re-scanned in full
+    private Duration lateRowWindow = Duration.ofHours(1);
+
+    private int batchSize = 1000;
+
+    public Duration getSettleDelay() {
+        return settleDelay;
+    }
+
+    public void setSettleDelay(Duration settleDelay) {
+        this.settleDelay = settleDelay;
+    }
+
+    public Duration getLateRowWindow() {
+        return lateRowWindow;
+    }
+
+    public void setLateRowWindow(Duration lateRowWindow) {
+        this.lateRowWindow = lateRowWindow;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ewallet.config;
+
+import com.example.ewallet.shard.ReadYourWritesTracker;
+import com.example.ewallet.shard.ReplicaLagMonitor;
+import com.example.ewallet.shard.ReplicaRoutingDataSource;
+import com.example.ewallet.shard.ShardPools;
+import com.example.ewallet.shard.ShardRouter;
+import com.example.ewallet.shard.ShardRoutingDataSource;
+import com.example.ewallet.web.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single datasource when shards or read replicas are
+ * configured: one pool per {@code ewallet.sharding.urls} entry (or the
+ * {@code spring.datasource} primary alone), each optionally paired with an
+ * {@code ewallet.replica.urls} pool that serves read-only transactions,
+ * behind a {@link ShardRoutingDataSource} when there is more than one shard.
+ * JPA, repositories and {@code JdbcTemplate} keep working unchanged on
+ * whichever shard {@link ShardRouter} has bound.
+ */
+@Configuration
+@ConditionalOnExpression("${ewallet.sharding.enabled:false} or ${ewallet.replica.enabled:false}")
+public class DataSourceConfig {
+
+    @Bean
+    public ShardPools shardPools(DataSourceProperties dataSourceProperties,
+                                 ShardingProperties sharding,
+                                 ReplicaProperties replica,
+                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Value("${ewallet.ids.align-sequences:true}") boolean alignSequences) {
+        List<String> primaryUrls = List.of(dataSourceProperties.determineUrl());
+        if (sharding.isEnabled()) {
+            if (sharding.getUrls().isEmpty()) {
+                throw new IllegalStateException("ewallet.sharding.urls must list at least one JDBC URL");
+            }
+            if (!alignSequences) {
+                // IdSequenceMigration is what starts each shard's sequences in its own id range
+                throw new IllegalStateException("ewallet.sharding requires ewallet.ids.align-sequences=true");
+            }
+            primaryUrls = sharding.getUrls();
+        }
+        List<String> replicaUrls = replica.isEnabled() ? replica.getUrls() : List.of();
+        if (replica.isEnabled() && replicaUrls.size() != primaryUrls.size()) {
+            throw new IllegalStateException("ewallet.replica.urls must list one replica per shard, got "
+                    + replicaUrls.size() + " for " + primaryUrls.size());
+        }
+        List<DataSource> primaries = new ArrayList<>();
+        List<DataSource> replicas = new ArrayList<>();
+        for (int shard = 0; shard < primaryUrls.size(); shard++) {
+            String name = sharding.isEnabled() ? "shard-" + shard : "primary";
+            primaries.add(pool(dataSourceProperties, primaryUrls.get(shard), name, sharding.getPoolSize(), meterRegistry));
+            if (!replicaUrls.isEmpty()) {
+                replicas.add(pool(dataSourceProperties, replicaUrls.get(shard), name + "-replica", replica.getPoolSize(), meterRegistry));
+            }
+        }
+        return new ShardPools(primaries, replicas);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ewallet.replica", name = "enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(ShardPools shardPools, ReplicaProperties properties) {
+        return new ReplicaLagMonitor(shardPools, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ewallet.replica", name = "enabled", havingValue = "true")
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaProperties properties) {
+        return new ReadYourWritesTracker(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ewallet.replica", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReplicaProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+                new ReadYourWritesFilter(properties.getReadYourWritesWindow()));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // The pools are closed with ShardPools
+    @Bean(destroyMethod = "")
+    public DataSource dataSource(ShardPools shardPools,
+                                 ObjectProvider<ReplicaLagMonitor> lagMonitor,
+                                 ObjectProvider<ReadYourWritesTracker> writesTracker) {
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardPools.size(); shard++) {
+            DataSource primary = shardPools.primary(shard);
+            DataSource replica = shardPools.replica(shard);
+            if (replica == null) {
+                shards.add(primary);
+                continue;
+            }
+            // The physical connection is fetched at the first statement, once the
+            // transaction manager has marked it read-only or not
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+            proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(shard, primary, replica,
+                    lagMonitor.getObject(), writesTracker.getObject()));
+            shards.add(proxy);
+        }
+        if (shards.size() == 1) {
+            return shards.get(0);
+        }
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(targets);
+        dataSource.setDefaultTargetDataSource(shards.get(0));
+        return dataSource;
+    }
+
+    private HikariDataSource pool(DataSourceProperties dataSourceProperties, String url, String name,
+                                  int size, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(size);
+        meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return pool;
+    }
+}
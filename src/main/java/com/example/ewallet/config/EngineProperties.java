@@ -0,0 +1,96 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.engine")
+public class EngineProperties {
+
+    // Apply recharges and transfers in the in-memory engine; the database becomes a projection
+    private boolean enabled = false;
+
+    // Journal segments and snapshots; must survive restarts
+    private String directory = "data/engine";
+
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    // Journal entries between snapshots; bounds how much is replayed on restart
+    private int snapshotEvery = 100_000;
+
+    // Commands applied per journal flush at most
+    private int maxBatchSize = 1_000;
+
+    // Commands waiting for the sequencer; further ones are rejected
+    private int queueCapacity = 10_000;
+
+    private Duration projectionInterval = Duration.ofMillis(100);
+
+    // Journal entries written to the database per projection transaction
+    private int projectionBatchSize = 1_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getSnapshotEvery() {
+        return snapshotEvery;
+    }
+
+    public void setSnapshotEvery(int snapshotEvery) {
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getProjectionInterval() {
+        return projectionInterval;
+    }
+
+    public void setProjectionInterval(Duration projectionInterval) {
+        this.projectionInterval = projectionInterval;
+    }
+
+    public int getProjectionBatchSize() {
+        return projectionBatchSize;
+    }
+
+    public void setProjectionBatchSize(int projectionBatchSize) {
+        this.projectionBatchSize = projectionBatchSize;
+    }
+}
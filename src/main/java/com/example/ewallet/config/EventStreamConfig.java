@@ -0,0 +1,31 @@
+package com.example.ewallet.config;
+
+import com.example.ewallet.web.WalletEventHub;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class EventStreamConfig implements WebMvcConfigurer {
+
+    private final WalletEventHub walletEventHub;
+
+    public EventStreamConfig(WalletEventHub walletEventHub) {
+        this.walletEventHub = walletEventHub;
+    }
+
+    // Hands event streams to the hub once the request thread is done with the response
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) throws Exception {
+                walletEventHub.streamStarted(request, response);
+            }
+        }).addPathPatterns("/api/wallets/*/events");
+    }
+}
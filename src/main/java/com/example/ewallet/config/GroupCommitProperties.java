@@ -0,0 +1,53 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.group-commit")
+public class GroupCommitProperties {
+
+    // Route recharges through the single-writer queue instead of one transaction each
+    private boolean enabled = false;
+
+    // How long the writer waits for more recharges after the first one of a group arrives
+    private Duration linger = Duration.ofMillis(2);
+
+    // Recharges committed together at most
+    private int maxBatchSize = 200;
+
+    // Recharges waiting for the writer; further ones are rejected
+    private int queueCapacity = 10_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getLinger() {
+        return linger;
+    }
+
+    public void setLinger(Duration linger) {
+        this.linger = linger;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.idempotency")
+public class IdempotencyProperties {
+
+    // How long replays are answered from memory before falling back to the table
+    private Duration cacheTtl = Duration.ofMinutes(10);
+
+    private int cacheMaxSize = 100_000;
+
+    // How long keys are kept in the table at all
+    private Duration retention = Duration.ofDays(7);
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public int getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(int cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+}
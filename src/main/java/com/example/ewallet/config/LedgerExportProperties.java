@@ -0,0 +1,112 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.export")
+public class LedgerExportProperties {
+
+    public enum Format {
+        // Deflate-compressed column blocks, see LedgerExportFile
+        COLUMNAR,
+        CSV
+    }
+
+    // Runs the incremental export on a schedule; exports can always be started directly
+    private boolean enabled = false;
+
+    private String directory = "data/export";
+
+    private Format format = Format.COLUMNAR;
+
+    // Threads exporting id ranges in parallel; 0 means one per CPU
+    private int workers = 0;
+
+    // Width of the id range each worker turns into one part file
+    private long rangeSize = 1_000_000;
+
+    private int fetchSize = 10_000;
+
+    private int rowsPerBlock = 65_536;
+
+    // Rows younger than this are left for the next incremental run.
+    // Must exceed ewallet.replica.max-lag when ranges are read from a replica.
+    private Duration settleDelay = Duration.ofSeconds(30);
+
+    // How long ids the incremental export passed over are watched for rows
+    // that commit into them late; later than that, only exportAll has them
+    private Duration lateRowWindow = Duration.ofHours(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public long getRangeSize() {
+        return rangeSize;
+    }
+
+    public void setRangeSize(long rangeSize) {
+        this.rangeSize = rangeSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getRowsPerBlock() {
+        return rowsPerBlock;
+    }
+
+    public void setRowsPerBlock(int rowsPerBlock) {
+        this.rowsPerBlock = rowsPerBlock;
+    }
+
+    public Duration getLateRowWindow() {
+        return lateRowWindow;
+    }
+
+    public void setLateRowWindow(Duration lateRowWindow) {
+        this.lateRowWindow = lateRowWindow;
+    }
+
+    public Duration getSettleDelay() {
+        return settleDelay;
+    }
+
+    public void setSettleDelay(Duration settleDelay) {
+        this.settleDelay = settleDelay;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ewallet.ledger")
+public class LedgerProperties {
+
+    public enum Format {
+        // A TRANSFER_DEBIT row for the payer and a TRANSFER_CREDIT row for the payee
+        PAIR,
+        // One TRANSFER_DEBIT row for the payer that also carries the payee's side
+        COMPACT
+    }
+
+    private Format format = Format.PAIR;
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.outbox")
+public class OutboxProperties {
+
+    // Only turn on together with a sink, or the outbox grows without bound
+    private boolean enabled = false;
+
+    // Most events handed to the sinks in one delivery
+    private int batchSize = 500;
+
+    // How long a partial batch may wait for more events before it is sent anyway
+    private Duration linger = Duration.ofMillis(50);
+
+    // How long the dispatcher sleeps when the outbox is empty and nothing wakes it
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // Pause after a failed delivery before the same batch is retried
+    private Duration retryBackoff = Duration.ofSeconds(1);
+
+    private final Sinks sinks = new Sinks();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getLinger() {
+        return linger;
+    }
+
+    public void setLinger(Duration linger) {
+        this.linger = linger;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public Duration getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    public void setRetryBackoff(Duration retryBackoff) {
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Sinks getSinks() {
+        return sinks;
+    }
+
+    public static class Sinks {
+
+        private final Memory memory = new Memory();
+        private final File file = new File();
+
+        public Memory getMemory() {
+            return memory;
+        }
+
+        public File getFile() {
+            return file;
+        }
+    }
+
+    public static class Memory {
+
+        private boolean enabled;
+
+        // Only the most recent events are kept
+        private int capacity = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    public static class File {
+
+        // NDJSON file events are appended to; the sink is off when unset
+        private String path;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+    }
+}
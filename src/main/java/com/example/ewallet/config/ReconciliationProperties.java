@@ -0,0 +1,50 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "ewallet.reconciliation")
+public class ReconciliationProperties {
+
+    // Runs on ewallet.reconciliation.cron; enable it on one node only
+    private boolean enabled = false;
+
+    // Threads verifying wallet id ranges in parallel; 0 means one per CPU
+    private int workers = 0;
+
+    // Width of the wallet id range one worker verifies in one snapshot
+    private long rangeSize = 10_000;
+
+    private int fetchSize = 10_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public long getRangeSize() {
+        return rangeSize;
+    }
+
+    public void setRangeSize(long rangeSize) {
+        this.rangeSize = rangeSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+}
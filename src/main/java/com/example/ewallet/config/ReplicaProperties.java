@@ -0,0 +1,77 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "ewallet.replica")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+
+    // One replica JDBC URL per shard, in shard order; a single URL without sharding.
+    // Credentials and driver come from spring.datasource.
+    private List<String> urls = new ArrayList<>();
+
+    private int poolSize = 10;
+
+    // A replica further behind than this is bypassed until it catches up
+    private Duration maxLag = Duration.ofSeconds(2);
+
+    private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+    // Reads of a wallet changed on this node, or by a client that wrote on any node,
+    // within the window go to the primary; keep it above max-lag plus heartbeat-interval
+    // plus the clock skew between nodes
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<String> urls) {
+        this.urls = urls;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    public void setMaxLag(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public Duration getReadYourWritesWindow() {
+        return readYourWritesWindow;
+    }
+
+    public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.ewallet.config;
+
+import com.example.ewallet.shard.ShardAwareOptimizer;
+import com.example.ewallet.shard.ShardRouter;
+import com.example.ewallet.shard.ShardSchemaIntegrator;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Makes Hibernate shard-aware: pooled id blocks are kept per shard and the
+ * schema is managed on every shard, not only the one connected at startup.
+ * The shard pools themselves are built by {@link DataSourceConfig}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ewallet.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernateProperties(ShardRouter shardRouter) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, ShardAwareOptimizer.class.getName());
+            hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(new ShardSchemaIntegrator(shardRouter)));
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@ConfigurationProperties(prefix = "ewallet.striping")
+public class StripingProperties {
+
+    // Hot wallets whose transfer credits are spread over sub-balance rows
+    private Set<Long> walletIds = new LinkedHashSet<>();
+
+    // Sub-balance rows per striped wallet; concurrent credits to one wallet scale up to this
+    private int stripes = 8;
+
+    private Duration consolidationInterval = Duration.ofSeconds(1);
+
+    public Set<Long> getWalletIds() {
+        return walletIds;
+    }
+
+    public void setWalletIds(Set<Long> walletIds) {
+        this.walletIds = walletIds;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public Duration getConsolidationInterval() {
+        return consolidationInterval;
+    }
+
+    public void setConsolidationInterval(Duration consolidationInterval) {
+        this.consolidationInterval = consolidationInterval;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ewallet.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "ewallet.events")
+public class WalletEventsProperties {
+
+    // Open event streams across all wallets; further subscriptions get a 503
+    private int maxSubscribers = 50_000;
+
+    // Threads writing to subscribers; 0 means one per CPU, at least two
+    private int senderThreads = 0;
+
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // A subscriber whose socket has stayed too full to write to for this long is disconnected
+    private Duration slowConsumerTimeout = Duration.ofSeconds(10);
+
+    // Streams are closed after this long; EventSource clients reconnect on their own
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public void setHeartbeatInterval(Duration heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public Duration getSlowConsumerTimeout() {
+        return slowConsumerTimeout;
+    }
+
+    public void setSlowConsumerTimeout(Duration slowConsumerTimeout) {
+        this.slowConsumerTimeout = slowConsumerTimeout;
+    }
+
+    public Duration getStreamTimeout() {
+        return streamTimeout;
+    }
+
+    public void setStreamTimeout(Duration streamTimeout) {
+        this.streamTimeout = streamTimeout;
+    }
+}
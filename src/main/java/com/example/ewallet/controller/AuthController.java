@@ -6,10 +6,14 @@ import com.example.ewallet.dto.UserProfileResponse;
 import com.example.ewallet.service.AuthService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 
 @CrossOrigin(origins = "http://localhost:3000", maxAge = 3600)
 @RestController
@@ -23,15 +27,15 @@ public class AuthController {
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<UserProfileResponse> signup(@Valid @RequestBody SignupRequest request) {
-        UserProfileResponse resp = authService.signup(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+    public CompletableFuture<ResponseEntity<UserProfileResponse>> signup(@Valid @RequestBody SignupRequest request) {
+        return authService.signup(request)
+                .thenApply(resp -> ResponseEntity.status(HttpStatus.CREATED).body(resp));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<UserProfileResponse> login(@Valid @RequestBody LoginRequest request) {
-        UserProfileResponse resp = authService.login(request);
-        return ResponseEntity.ok(resp);
+    public CompletableFuture<ResponseEntity<UserProfileResponse>> login(@Valid @RequestBody LoginRequest request) {
+        return authService.login(request)
+                .thenApply(ResponseEntity::ok);
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
@@ -43,4 +47,11 @@ public class AuthController {
     public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleOverloaded(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many authentication requests, retry shortly");
+    }
 }
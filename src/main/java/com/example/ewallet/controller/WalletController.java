@@ -1,8 +1,17 @@
 package com.example.ewallet.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,29 +19,60 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.ewallet.dto.BalanceAtResponse;
+import com.example.ewallet.dto.BatchTransferRequest;
+import com.example.ewallet.dto.BatchTransferResponse;
 import com.example.ewallet.dto.CreateWalletRequest;
 import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.StatementResponse;
+import com.example.ewallet.dto.TransactionPage;
 import com.example.ewallet.dto.TransactionResponse;
 import com.example.ewallet.dto.TransferRequest;
 import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.service.BalanceSnapshotService;
+import com.example.ewallet.service.IdempotencyService;
 import com.example.ewallet.service.WalletService;
+import com.example.ewallet.web.WalletEventHub;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import tools.jackson.databind.ObjectMapper;
 
 
-@CrossOrigin(origins = "http://localhost:3000", maxAge = 3600)
+@CrossOrigin(origins = "http://localhost:3000", maxAge = 3600, exposedHeaders = WalletController.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/wallets")
 public class WalletController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final byte NEWLINE = '\n';
+
     private final WalletService walletService;
+    private final IdempotencyService idempotencyService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final WalletEventHub walletEventHub;
+    private final ObjectMapper objectMapper;
 
-    public WalletController(WalletService walletService) {
+    public WalletController(WalletService walletService,
+                            IdempotencyService idempotencyService,
+                            BalanceSnapshotService balanceSnapshotService,
+                            WalletEventHub walletEventHub,
+                            ObjectMapper objectMapper) {
         this.walletService = walletService;
+        this.idempotencyService = idempotencyService;
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.walletEventHub = walletEventHub;
+        this.objectMapper = objectMapper;
     }
     
 
@@ -48,23 +88,86 @@ public class WalletController {
         return ResponseEntity.ok(resp);
     }
 
+    @GetMapping(value = "/{walletId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable Long walletId, HttpServletRequest request) {
+        return walletEventHub.subscribe(walletId, request, () -> walletService.getWalletSnapshot(walletId));
+    }
+
     @PostMapping("/{walletId}/recharge")
     public ResponseEntity<WalletResponse> recharge(@PathVariable Long walletId,
-                                                   @Valid @RequestBody RechargeRequest request) {
-        WalletResponse resp = walletService.recharge(walletId, request);
+                                                   @Valid @RequestBody RechargeRequest request,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                   String idempotencyKey) {
+        String key = IdempotencyService.normalizeKey(idempotencyKey);
+        WalletResponse resp = idempotencyService.execute(key, walletId,
+                IdempotencyService.rechargeScope(walletId, request),
+                () -> walletService.recharge(walletId, request, key));
         return ResponseEntity.ok(resp);
     }
 
     @PostMapping("/transfer")
-    public ResponseEntity<WalletResponse> transfer(@Valid @RequestBody TransferRequest request) {
-        WalletResponse resp = walletService.transfer(request);
+    public ResponseEntity<WalletResponse> transfer(@Valid @RequestBody TransferRequest request,
+                                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                   String idempotencyKey) {
+        String key = IdempotencyService.normalizeKey(idempotencyKey);
+        WalletResponse resp = idempotencyService.execute(key, request.getFromWalletId(),
+                IdempotencyService.transferScope(request),
+                () -> walletService.transfer(request, key));
+        return ResponseEntity.ok(resp);
+    }
+
+    @PostMapping("/transfers:batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        BatchTransferResponse resp = walletService.transferBatch(request.getTransfers());
         return ResponseEntity.ok(resp);
     }
 
     @GetMapping("/{walletId}/transactions")
-    public ResponseEntity<List<TransactionResponse>> transactions(@PathVariable Long walletId) {
-        List<TransactionResponse> list = walletService.getTransactions(walletId);
-        return ResponseEntity.ok(list);
+    public ResponseEntity<List<TransactionResponse>> transactions(@PathVariable Long walletId,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "50") int limit) {
+        TransactionPage page = walletService.getTransactions(walletId, cursor, limit);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return builder.body(page.getItems());
+    }
+
+    @GetMapping(value = "/{walletId}/transactions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTransactions(@PathVariable Long walletId) {
+        // Fail with 404 before the response is committed to streaming
+        walletService.requireWallet(walletId);
+        StreamingResponseBody body = out -> walletService.streamTransactions(walletId, tx -> writeLine(out, tx));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/{walletId}/balance")
+    public ResponseEntity<BalanceAtResponse> balanceAt(@PathVariable Long walletId,
+                                                       @RequestParam(required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                       LocalDateTime at) {
+        BalanceAtResponse resp = balanceSnapshotService.balanceAt(walletId, at != null ? at : LocalDateTime.now());
+        return ResponseEntity.ok(resp);
+    }
+
+    @GetMapping("/{walletId}/statement")
+    public ResponseEntity<StatementResponse> statement(@PathVariable Long walletId,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                       LocalDate from,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                       LocalDate to) {
+        StatementResponse resp = balanceSnapshotService.statement(walletId, from, to);
+        return ResponseEntity.ok(resp);
+    }
+
+    private void writeLine(OutputStream out, TransactionResponse tx) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(tx));
+            out.write(NEWLINE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
     
 
@@ -73,6 +176,13 @@ public class WalletController {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejected(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(ex.getMessage());
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleBadRequest(IllegalArgumentException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
@@ -0,0 +1,29 @@
+package com.example.ewallet.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class BalanceAtResponse {
+
+    private Long walletId;
+    private LocalDateTime at;
+    private BigDecimal balance;
+
+    public BalanceAtResponse(Long walletId, LocalDateTime at, BigDecimal balance) {
+        this.walletId = walletId;
+        this.at = at;
+        this.balance = balance;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ewallet.dto;
+
+public class BatchTransferItemResult {
+
+    public enum Status {
+        SUCCEEDED,
+        FAILED
+    }
+
+    private int index;
+    private Status status;
+    private String reference;
+    private String error;
+
+    public static BatchTransferItemResult succeeded(int index, String reference) {
+        BatchTransferItemResult result = new BatchTransferItemResult();
+        result.setIndex(index);
+        result.setStatus(Status.SUCCEEDED);
+        result.setReference(reference);
+        return result;
+    }
+
+    public static BatchTransferItemResult failed(int index, String error) {
+        BatchTransferItemResult result = new BatchTransferItemResult();
+        result.setIndex(index);
+        result.setStatus(Status.FAILED);
+        result.setError(error);
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ewallet.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchTransferRequest {
+
+    @NotEmpty
+    @Size(max = 10000)
+    private List<@Valid TransferRequest> transfers;
+
+    public List<TransferRequest> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferRequest> transfers) {
+        this.transfers = transfers;
+    }
+}
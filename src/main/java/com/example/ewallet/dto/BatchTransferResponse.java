@@ -0,0 +1,34 @@
+package com.example.ewallet.dto;
+
+import java.util.List;
+
+public class BatchTransferResponse {
+
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResult> results;
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<BatchTransferItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchTransferItemResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.ewallet.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class StatementDayResponse {
+
+    private LocalDate date;
+    private BigDecimal openingBalance;
+    private BigDecimal credits;
+    private BigDecimal debits;
+    private BigDecimal closingBalance;
+    private long transactionCount;
+
+    public StatementDayResponse(LocalDate date, BigDecimal openingBalance, BigDecimal credits,
+                                BigDecimal debits, long transactionCount) {
+        this.date = date;
+        this.openingBalance = openingBalance;
+        this.credits = credits;
+        this.debits = debits;
+        this.closingBalance = openingBalance.add(credits).subtract(debits);
+        this.transactionCount = transactionCount;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public BigDecimal getCredits() {
+        return credits;
+    }
+
+    public BigDecimal getDebits() {
+        return debits;
+    }
+
+    public BigDecimal getClosingBalance() {
+        return closingBalance;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ewallet.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public class StatementResponse {
+
+    private Long walletId;
+    private LocalDate from;
+    private LocalDate to;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal totalCredits;
+    private BigDecimal totalDebits;
+    private long transactionCount;
+    private List<StatementDayResponse> days;
+
+    public StatementResponse(Long walletId, LocalDate from, LocalDate to, BigDecimal openingBalance,
+                             List<StatementDayResponse> days) {
+        this.walletId = walletId;
+        this.from = from;
+        this.to = to;
+        this.openingBalance = openingBalance;
+        this.days = days;
+        this.totalCredits = BigDecimal.ZERO;
+        this.totalDebits = BigDecimal.ZERO;
+        for (StatementDayResponse day : days) {
+            totalCredits = totalCredits.add(day.getCredits());
+            totalDebits = totalDebits.add(day.getDebits());
+            transactionCount += day.getTransactionCount();
+        }
+        this.closingBalance = openingBalance.add(totalCredits).subtract(totalDebits);
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public BigDecimal getClosingBalance() {
+        return closingBalance;
+    }
+
+    public BigDecimal getTotalCredits() {
+        return totalCredits;
+    }
+
+    public BigDecimal getTotalDebits() {
+        return totalDebits;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public List<StatementDayResponse> getDays() {
+        return days;
+    }
+}
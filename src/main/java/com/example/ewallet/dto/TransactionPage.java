@@ -0,0 +1,22 @@
+package com.example.ewallet.dto;
+
+import java.util.List;
+
+public class TransactionPage {
+
+    private List<TransactionResponse> items;
+    private String nextCursor;
+
+    public TransactionPage(List<TransactionResponse> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionResponse> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -16,7 +16,23 @@ public class TransactionResponse {
     private String reference;
     private BigDecimal balanceAfter;
 
-   
+    public TransactionResponse() {
+    }
+
+    // Used by JPQL constructor expressions so history reads never hydrate entities
+    public TransactionResponse(Long id, Long walletId, BigDecimal amount, TransactionType type,
+                               LocalDateTime createdAt, String description, String reference,
+                               BigDecimal balanceAfter) {
+        this.id = id;
+        this.walletId = walletId;
+        this.amount = amount;
+        this.type = type;
+        this.createdAt = createdAt;
+        this.description = description;
+        this.reference = reference;
+        this.balanceAfter = balanceAfter;
+    }
+
     public Long getId() {
         return id;
     }
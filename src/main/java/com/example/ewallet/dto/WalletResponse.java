@@ -11,7 +11,21 @@ public class WalletResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String reference;
-    
+
+    public WalletResponse() {
+    }
+
+    // Used by JPQL constructor expressions so balance reads never hydrate entities
+    public WalletResponse(Long id, String ownerName, BigDecimal balance, LocalDateTime createdAt,
+                          LocalDateTime updatedAt, String reference) {
+        this.id = id;
+        this.ownerName = ownerName;
+        this.balance = balance;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.reference = reference;
+    }
+
     public String getReference() {
 		return reference;
 	}
@@ -0,0 +1,333 @@
+package com.example.ewallet.engine;
+
+import com.example.ewallet.config.EngineProperties;
+import com.example.ewallet.config.GroupCommitProperties;
+import com.example.ewallet.config.ShardingProperties;
+import com.example.ewallet.config.StripingProperties;
+import com.example.ewallet.metrics.OperationMetrics;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.service.Money;
+import com.example.ewallet.service.ReferenceGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authoritative wallet balances held in memory when
+ * {@code ewallet.engine.enabled} is set.
+ *
+ * <p>Recharges and transfers are queued to one sequencer thread, which
+ * applies them in order to a {@link LongBalanceMap} of minor-unit balances,
+ * appends an entry per accepted change to the {@link Journal}, and forces
+ * the journal once per batch before any caller is answered. The
+ * {@code wallets} and {@code wallet_transactions} tables are brought up to
+ * date afterwards by {@link JournalProjector}; until then, balances read
+ * through {@link #balance} are ahead of the database.
+ *
+ * <p>A wallet the engine has not seen yet is read from the database once,
+ * on first use. On startup the newest {@link EngineSnapshot} is loaded and
+ * the journal after it replayed. If the journal cannot be written the engine
+ * stops taking commands; a restart recovers from what was forced.
+ *
+ * <p>The engine must be the only writer of balances, so it cannot be
+ * combined with sharding, striped wallets or recharge group commit.
+ */
+@Service
+public class BalanceEngine implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceEngine.class);
+
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final EngineProperties properties;
+    private final WalletRepository walletRepository;
+    private final OperationMetrics metrics;
+    private final Path directory;
+    private final BlockingQueue<Command> queue;
+    private final LongBalanceMap working = new LongBalanceMap(1 << 10);
+    // Balances as of the last forced journal entry; the only map other threads read
+    private final LongBalanceMap durable = new LongBalanceMap(1 << 10);
+    private final Thread sequencer;
+    private Journal journal;
+    private long sequence;
+    private long snapshotSequence;
+    private volatile long durableSequence;
+    private volatile long projectedSequence = -1;
+    private volatile boolean running;
+
+    public BalanceEngine(EngineProperties properties,
+                         ShardingProperties shardingProperties,
+                         StripingProperties stripingProperties,
+                         GroupCommitProperties groupCommitProperties,
+                         WalletRepository walletRepository,
+                         OperationMetrics metrics,
+                         MeterRegistry registry) {
+        this.properties = properties;
+        this.walletRepository = walletRepository;
+        this.metrics = metrics;
+        this.directory = Path.of(properties.getDirectory());
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.sequencer = new Thread(this::run, "balance-engine");
+        this.sequencer.setDaemon(true);
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (shardingProperties.isEnabled() || !stripingProperties.getWalletIds().isEmpty()
+                || groupCommitProperties.isEnabled()) {
+            throw new IllegalStateException("ewallet.engine.enabled cannot be combined with sharding, "
+                    + "striped wallets or recharge group commit");
+        }
+        recover();
+        Gauge.builder("ewallet.engine.sequence", this, engine -> engine.durableSequence)
+                .description("Sequence of the last journal entry forced to disk")
+                .register(registry);
+        Gauge.builder("ewallet.engine.projection.lag", this,
+                        engine -> engine.projectedSequence < 0 ? 0 : engine.durableSequence - engine.projectedSequence)
+                .description("Journal entries not yet written to the database")
+                .register(registry);
+        running = true;
+        sequencer.start();
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        long started = System.nanoTime();
+        snapshotSequence = EngineSnapshot.load(directory, working);
+        journal = new Journal(directory, (int) properties.getSegmentSize().toBytes());
+        sequence = journal.recover(snapshotSequence, entry -> {
+            working.put(entry.walletId(), entry.balanceAfter());
+            if (entry.type() == JournalEntry.Type.TRANSFER) {
+                working.put(entry.counterpartyId(), entry.counterpartyBalanceAfter());
+            }
+        });
+        working.forEach(durable::put);
+        durableSequence = sequence;
+        log.info("Balance engine recovered {} wallets at journal entry {} ({} replayed after snapshot) in {} ms",
+                working.size(), sequence, sequence - snapshotSequence,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public Receipt recharge(Long walletId, long amount, String description, String idempotencyKey) {
+        return submit(new Command(JournalEntry.Type.RECHARGE, walletId, 0, amount, description, idempotencyKey));
+    }
+
+    public Receipt transfer(Long fromWalletId, Long toWalletId, long amount, String description,
+                            String idempotencyKey) {
+        return submit(new Command(JournalEntry.Type.TRANSFER, fromWalletId, toWalletId, amount, description,
+                idempotencyKey));
+    }
+
+    /**
+     * The wallet's balance as of the last journal flush, or empty when the
+     * engine has not seen the wallet, in which case the database is current.
+     */
+    public OptionalLong balance(Long walletId) {
+        long balance = durable.get(walletId);
+        return balance == LongBalanceMap.MISSING ? OptionalLong.empty() : OptionalLong.of(balance);
+    }
+
+    long durableSequence() {
+        return durableSequence;
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    // Journal segments are only deleted once both a snapshot and the projection have passed them
+    void projectedThrough(long sequence) {
+        projectedSequence = sequence;
+    }
+
+    private Receipt submit(Command command) {
+        if (command.description() != null && command.description().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("Description must be at most " + MAX_DESCRIPTION_LENGTH
+                    + " characters");
+        }
+        if (!running || !queue.offer(command)) {
+            throw new RejectedExecutionException("Balance engine is not accepting commands");
+        }
+        try {
+            return command.result().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running) {
+            try {
+                Command first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+                apply(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Command> batch) {
+        List<JournalEntry> entries = new ArrayList<>(batch.size());
+        List<Object> outcomes = new ArrayList<>(batch.size());
+        for (Command command : batch) {
+            try {
+                JournalEntry entry = command.type() == JournalEntry.Type.RECHARGE
+                        ? applyRecharge(command)
+                        : applyTransfer(command);
+                entries.add(entry);
+                outcomes.add(new Receipt(entry.reference(), entry.balanceAfter()));
+            } catch (RuntimeException ex) {
+                outcomes.add(ex);
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            try {
+                for (JournalEntry entry : entries) {
+                    journal.append(entry);
+                }
+                journal.force();
+            } catch (RuntimeException ex) {
+                // The working balances are now ahead of the journal; only a restart can reconcile them
+                log.error("Journal write failed; balance engine stopped", ex);
+                running = false;
+                IllegalStateException stopped = new IllegalStateException("Balance engine stopped", ex);
+                batch.forEach(command -> command.result().completeExceptionally(stopped));
+                queue.forEach(command -> command.result().completeExceptionally(stopped));
+                return;
+            }
+            for (JournalEntry entry : entries) {
+                durable.put(entry.walletId(), entry.balanceAfter());
+                if (entry.type() == JournalEntry.Type.TRANSFER) {
+                    durable.put(entry.counterpartyId(), entry.counterpartyBalanceAfter());
+                }
+            }
+            durableSequence = sequence;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes.get(i) instanceof Receipt receipt) {
+                batch.get(i).result().complete(receipt);
+            } else {
+                batch.get(i).result().completeExceptionally((RuntimeException) outcomes.get(i));
+            }
+        }
+
+        if (sequence - snapshotSequence >= properties.getSnapshotEvery()) {
+            snapshot();
+        }
+    }
+
+    private JournalEntry applyRecharge(Command command) {
+        long balance = Math.addExact(balanceOf(command.walletId()), command.amount());
+        working.put(command.walletId(), balance);
+        return entry(command, balance, 0);
+    }
+
+    private JournalEntry applyTransfer(Command command) {
+        long from = balanceOf(command.walletId());
+        long to = balanceOf(command.counterpartyId());
+        if (from < command.amount()) {
+            metrics.insufficientBalance();
+            throw new IllegalArgumentException("Insufficient balance in source wallet");
+        }
+        long toAfter = Math.addExact(to, command.amount());
+        working.put(command.walletId(), from - command.amount());
+        working.put(command.counterpartyId(), toAfter);
+        return entry(command, from - command.amount(), toAfter);
+    }
+
+    private JournalEntry entry(Command command, long balanceAfter, long counterpartyBalanceAfter) {
+        return new JournalEntry(++sequence, command.type(), command.walletId(), command.counterpartyId(),
+                command.amount(), balanceAfter, counterpartyBalanceAfter, System.currentTimeMillis(),
+                ReferenceGenerator.next(), command.description(), command.idempotencyKey());
+    }
+
+    private long balanceOf(long walletId) {
+        long balance = working.get(walletId);
+        if (balance != LongBalanceMap.MISSING) {
+            return balance;
+        }
+        // Not changed by the engine yet, so the database row is still authoritative
+        balance = walletRepository.findSnapshotById(walletId)
+                .map(snapshot -> Money.toMinor(snapshot.getBalance()))
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
+        working.put(walletId, balance);
+        durable.put(walletId, balance);
+        return balance;
+    }
+
+    private void snapshot() {
+        try {
+            EngineSnapshot.write(directory, sequence, working);
+            snapshotSequence = sequence;
+            if (projectedSequence >= 0) {
+                journal.deleteThrough(Math.min(snapshotSequence, projectedSequence));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Balance engine snapshot at entry {} failed; the journal still has everything", sequence, ex);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = false;
+        sequencer.join(TimeUnit.SECONDS.toMillis(5));
+        Command pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Shutting down"));
+        }
+        journal.close();
+    }
+
+    public record Receipt(String reference, long balanceAfter) {
+    }
+
+    private record Command(JournalEntry.Type type, long walletId, long counterpartyId, long amount,
+                           String description, String idempotencyKey, CompletableFuture<Receipt> result) {
+
+        Command(JournalEntry.Type type, long walletId, long counterpartyId, long amount, String description,
+                String idempotencyKey) {
+            this(type, walletId, counterpartyId, amount, description, idempotencyKey, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ewallet.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Point-in-time copy of every balance the engine holds, tagged with the
+ * sequence of the last journal entry it includes. Recovery loads the newest
+ * intact snapshot and replays only the journal after it, which keeps restart
+ * time bounded by the snapshot interval instead of the journal's age.
+ *
+ * <p>Layout: magic, sequence, count, then (wallet id, balance) pairs, then a
+ * CRC32 of everything before it. Files are written beside their final name
+ * and renamed into place, so a crash never leaves a half-written snapshot
+ * under a valid name.
+ */
+final class EngineSnapshot {
+
+    private static final int MAGIC = 0x45574253;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private EngineSnapshot() {
+    }
+
+    static void write(Path directory, long sequence, LongBalanceMap balances) {
+        int size = 4 + 8 + 4 + balances.size() * 16;
+        ByteBuffer buffer = ByteBuffer.allocate(size + 8);
+        buffer.putInt(MAGIC).putLong(sequence).putInt(balances.size());
+        balances.forEach((walletId, balance) -> buffer.putLong(walletId).putLong(balance));
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, size);
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            // The rename must be durable before journal segments it covers are deleted
+            try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                directoryChannel.force(true);
+            }
+            // Older snapshots are no longer needed once this one is in place
+            for (Path older : snapshots(directory)) {
+                if (!older.equals(target)) {
+                    Files.deleteIfExists(older);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Loads the newest intact snapshot into {@code balances}.
+     *
+     * @return the sequence it was taken at, or 0 when there is none
+     */
+    static long load(Path directory, LongBalanceMap balances) {
+        List<Path> snapshots = snapshots(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            ByteBuffer buffer;
+            try {
+                buffer = ByteBuffer.wrap(Files.readAllBytes(snapshots.get(i)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            if (!isIntact(buffer)) {
+                continue;
+            }
+            buffer.getInt();
+            long sequence = buffer.getLong();
+            int count = buffer.getInt();
+            for (int n = 0; n < count; n++) {
+                balances.put(buffer.getLong(), buffer.getLong());
+            }
+            return sequence;
+        }
+        return 0;
+    }
+
+    private static boolean isIntact(ByteBuffer buffer) {
+        if (buffer.remaining() < 4 + 8 + 4 + 8 || buffer.getInt(0) != MAGIC) {
+            return false;
+        }
+        int size = 4 + 8 + 4 + buffer.getInt(12) * 16;
+        if (buffer.remaining() != size + 8) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, size);
+        return crc.getValue() == buffer.getLong(size);
+    }
+
+    private static List<Path> snapshots(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.ewallet.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of {@link JournalEntry} records in fixed-size,
+ * pre-allocated segment files that are written through a memory mapping.
+ * Each segment is named after the sequence of its first entry.
+ *
+ * <p>A record is its payload length, a CRC32 of the payload, and the
+ * payload. Unused space is zero, so a zero length marks the end of a
+ * segment. On recovery, a record whose length or checksum does not hold at
+ * the tail of the last segment, with nothing but zeros past the space it
+ * could have taken, is a write torn by the crash: it is discarded. Anywhere
+ * else it is corruption.
+ *
+ * <p>Not thread-safe; only the sequencer writes.
+ */
+final class Journal implements AutoCloseable {
+
+    static final int HEADER_SIZE = 8;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    Journal(Path directory, int segmentSize) {
+        if (segmentSize < HEADER_SIZE + JournalEntry.MAX_ENCODED_SIZE) {
+            throw new IllegalArgumentException("Journal segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Passes every entry after {@code afterSequence} to {@code replay}, in
+     * order, and positions the journal for appending after the last one.
+     *
+     * @return the sequence of the last entry in the journal, or
+     * {@code afterSequence} when there is none after it
+     */
+    long recover(long afterSequence, Consumer<JournalEntry> replay) {
+        List<Path> segments = segments(directory);
+        long last = afterSequence;
+        for (int s = 0; s < segments.size(); s++) {
+            boolean tail = s == segments.size() - 1;
+            Path segment = segments.get(s);
+            open(segment);
+            while (true) {
+                int position = buffer.position();
+                JournalEntry entry = read(buffer, crc);
+                if (entry == null) {
+                    // Nothing written after a torn record can have been forced
+                    boolean intact = tail ? isZero(buffer, position + HEADER_SIZE + JournalEntry.MAX_ENCODED_SIZE)
+                            : isBlank(buffer, position);
+                    if (!intact) {
+                        throw new IllegalStateException("Corrupt journal record in " + segment + " at " + position);
+                    }
+                    buffer.position(position);
+                    break;
+                }
+                if (entry.sequence() > last + 1) {
+                    throw new IllegalStateException("Journal is missing entries " + (last + 1) + " to "
+                            + (entry.sequence() - 1) + " in " + segment);
+                }
+                if (entry.sequence() == last + 1) {
+                    replay.accept(entry);
+                    last = entry.sequence();
+                }
+            }
+            if (!tail) {
+                close();
+            }
+        }
+        if (buffer == null) {
+            create(last + 1);
+        } else {
+            // Drop whatever a torn write left behind the last good record
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        return last;
+    }
+
+    void append(JournalEntry entry) {
+        if (buffer.remaining() < HEADER_SIZE + JournalEntry.MAX_ENCODED_SIZE) {
+            buffer.force();
+            close();
+            create(entry.sequence());
+        }
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        entry.encode(buffer);
+        int length = buffer.position() - start - HEADER_SIZE;
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_SIZE, length));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, length);
+    }
+
+    /**
+     * Flushes everything appended so far to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Deletes the segments whose entries all have a sequence of at most
+     * {@code sequence}. The segment being written is always kept.
+     */
+    void deleteThrough(long sequence) {
+        List<Path> segments = segments(directory);
+        for (int s = 0; s + 1 < segments.size(); s++) {
+            if (firstSequence(segments.get(s + 1)) - 1 > sequence) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segments.get(s));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            channel = null;
+        }
+    }
+
+    private void create(long firstSequence) {
+        open(directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX)));
+        // Mapping grew the file; its size and its directory entry must be durable before anything in it is
+        try {
+            channel.force(true);
+            try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                directoryChannel.force(true);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void open(Path segment) {
+        try {
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the record at the buffer's position and moves past it, or
+     * returns null, leaving the position undefined, when there is no valid
+     * record there.
+     */
+    static JournalEntry read(ByteBuffer buffer, CRC32 crc) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt(start);
+        int checksum = buffer.getInt(start + 4);
+        if (length <= 0 || length > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        crc.reset();
+        crc.update(buffer.slice(start + HEADER_SIZE, length));
+        if ((int) crc.getValue() != checksum) {
+            return null;
+        }
+        JournalEntry entry = JournalEntry.decode(buffer.slice(start + HEADER_SIZE, length));
+        buffer.position(start + HEADER_SIZE + length);
+        return entry;
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int position) {
+        return buffer.limit() - position < HEADER_SIZE || buffer.getInt(position) == 0;
+    }
+
+    private static boolean isZero(ByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static List<Path> segments(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ewallet.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One applied balance change. Entries carry the balances they leave behind,
+ * so replaying the journal only has to set them, and the projection can
+ * write ledger rows without recomputing anything.
+ *
+ * <p>For a recharge {@code counterpartyId} and {@code counterpartyBalanceAfter}
+ * are 0.
+ */
+record JournalEntry(long sequence,
+                    Type type,
+                    long walletId,
+                    long counterpartyId,
+                    long amount,
+                    long balanceAfter,
+                    long counterpartyBalanceAfter,
+                    long epochMillis,
+                    String reference,
+                    String description,
+                    String idempotencyKey) {
+
+    enum Type {
+        RECHARGE,
+        TRANSFER
+    }
+
+    // Upper bound on an encoded entry, given the limits BalanceEngine checks
+    static final int MAX_ENCODED_SIZE = 8 * 7 + 1 + 3 * 2 + (26 + 255 + 100) * 3;
+
+    void encode(ByteBuffer buffer) {
+        buffer.putLong(sequence);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(walletId);
+        buffer.putLong(counterpartyId);
+        buffer.putLong(amount);
+        buffer.putLong(balanceAfter);
+        buffer.putLong(counterpartyBalanceAfter);
+        buffer.putLong(epochMillis);
+        putString(buffer, reference);
+        putString(buffer, description);
+        putString(buffer, idempotencyKey);
+    }
+
+    static JournalEntry decode(ByteBuffer buffer) {
+        return new JournalEntry(buffer.getLong(), Type.values()[buffer.get()], buffer.getLong(), buffer.getLong(),
+                buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                getString(buffer), getString(buffer), getString(buffer));
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
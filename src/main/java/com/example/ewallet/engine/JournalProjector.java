@@ -0,0 +1,199 @@
+package com.example.ewallet.engine;
+
+import com.example.ewallet.config.EngineProperties;
+import com.example.ewallet.config.LedgerProperties;
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.example.ewallet.outbox.OutboxWriter;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.LedgerBatchWriter;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.service.IdempotencyService;
+import com.example.ewallet.service.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Brings the {@code wallets} and {@code wallet_transactions} tables, the
+ * outbox and the idempotency keys up to date with the {@link BalanceEngine}
+ * journal. Each step writes a batch of entries and advances the
+ * {@code balance-engine} watermark (its {@code lastId} is the journal
+ * sequence) in the same transaction, so every entry is projected exactly
+ * once however often a step fails or the node restarts.
+ */
+@Service
+public class JournalProjector {
+
+    static final String WATERMARK = "balance-engine";
+
+    private static final Logger log = LoggerFactory.getLogger(JournalProjector.class);
+
+    private final EngineProperties properties;
+    private final BalanceEngine engine;
+    private final WalletRepository walletRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final LedgerProperties ledgerProperties;
+    private final OutboxWriter outboxWriter;
+    private final IdempotencyService idempotencyService;
+    private final JobWatermarkRepository watermarkRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final JournalReader reader;
+
+    public JournalProjector(EngineProperties properties,
+                            BalanceEngine engine,
+                            WalletRepository walletRepository,
+                            LedgerBatchWriter ledgerBatchWriter,
+                            LedgerProperties ledgerProperties,
+                            OutboxWriter outboxWriter,
+                            IdempotencyService idempotencyService,
+                            JobWatermarkRepository watermarkRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.engine = engine;
+        this.walletRepository = walletRepository;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.ledgerProperties = ledgerProperties;
+        this.outboxWriter = outboxWriter;
+        this.idempotencyService = idempotencyService;
+        this.watermarkRepository = watermarkRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reader = new JournalReader(engine.directory());
+    }
+
+    /**
+     * Projects everything the engine has forced so far, and returns how many
+     * journal entries were written.
+     */
+    @Scheduled(fixedDelayString = "${ewallet.engine.projection-interval:PT0.1S}")
+    public synchronized int project() {
+        if (!engine.isEnabled()) {
+            return 0;
+        }
+        int projected = 0;
+        while (true) {
+            Step step;
+            try {
+                step = transactionTemplate.execute(status -> projectBatch());
+            } catch (RuntimeException ex) {
+                // The reader is repositioned from the watermark on the next step
+                reader.close();
+                log.warn("Projecting the balance journal failed; will retry", ex);
+                return projected;
+            }
+            engine.projectedThrough(step.through());
+            projected += step.entries();
+            if (step.entries() < properties.getProjectionBatchSize()) {
+                return projected;
+            }
+        }
+    }
+
+    private Step projectBatch() {
+        JobWatermark watermark = watermarkRepository.lockOrCreate(WATERMARK);
+        long after = watermark.getLastId();
+        List<JournalEntry> entries = reader.read(after, engine.durableSequence(), properties.getProjectionBatchSize());
+        if (entries.isEmpty()) {
+            return new Step(after, 0);
+        }
+
+        TreeSet<Long> walletIds = new TreeSet<>();
+        for (JournalEntry entry : entries) {
+            walletIds.add(entry.walletId());
+            if (entry.type() == JournalEntry.Type.TRANSFER) {
+                walletIds.add(entry.counterpartyId());
+            }
+        }
+        Map<Long, Wallet> wallets = new HashMap<>();
+        for (Wallet wallet : walletRepository.findAllByIdForUpdate(walletIds)) {
+            wallets.put(wallet.getId(), wallet);
+        }
+
+        List<WalletTransaction> ledger = new ArrayList<>(entries.size() * 2);
+        Map<Long, Wallet> changed = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            Wallet wallet = wallets.get(entry.walletId());
+            Wallet counterparty = wallets.get(entry.counterpartyId());
+            if (wallet == null || (entry.type() == JournalEntry.Type.TRANSFER && counterparty == null)) {
+                log.warn("Skipping journal entry {}: wallet no longer exists", entry.sequence());
+                continue;
+            }
+            wallet.setBalance(Money.toDecimal(entry.balanceAfter()));
+            changed.put(wallet.getId(), wallet);
+            if (entry.type() == JournalEntry.Type.RECHARGE) {
+                ledger.add(ledgerEntry(wallet, TransactionType.RECHARGE, entry));
+            } else {
+                counterparty.setBalance(Money.toDecimal(entry.counterpartyBalanceAfter()));
+                changed.put(counterparty.getId(), counterparty);
+                WalletTransaction debit = ledgerEntry(wallet, TransactionType.TRANSFER_DEBIT, entry);
+                ledger.add(debit);
+                if (ledgerProperties.getFormat() == LedgerProperties.Format.COMPACT) {
+                    debit.setCounterpartyWalletId(counterparty.getId());
+                    debit.setCounterpartyBalanceAfter(counterparty.getBalance());
+                } else {
+                    ledger.add(ledgerEntry(counterparty, TransactionType.TRANSFER_CREDIT, entry));
+                }
+            }
+            if (entry.idempotencyKey() != null) {
+                idempotencyService.record(entry.idempotencyKey(), scope(entry), new WalletResponse(wallet.getId(),
+                        wallet.getOwnerName(), wallet.getBalance(), wallet.getCreatedAt(), wallet.getUpdatedAt(),
+                        wallet.getReference()));
+            }
+        }
+
+        long through = entries.get(entries.size() - 1).sequence();
+        watermark.advanceTo(LocalDateTime.now(), through);
+        ledgerBatchWriter.insertAll(ledger);
+        outboxWriter.append(ledger, changed.values());
+        eventPublisher.publishEvent(new WalletChangedEvent(List.copyOf(changed.values())));
+        return new Step(through, entries.size());
+    }
+
+    private static WalletTransaction ledgerEntry(Wallet wallet, TransactionType type, JournalEntry entry) {
+        WalletTransaction tx = new WalletTransaction();
+        tx.setWallet(wallet);
+        tx.setAmount(Money.toDecimal(entry.amount()));
+        tx.setType(type);
+        tx.setDescription(entry.description());
+        tx.setReference(entry.reference());
+        tx.setBalanceAfter(wallet.getBalance());
+        return tx;
+    }
+
+    private static String scope(JournalEntry entry) {
+        if (entry.type() == JournalEntry.Type.RECHARGE) {
+            RechargeRequest request = new RechargeRequest();
+            request.setAmount(Money.toDecimal(entry.amount()));
+            return IdempotencyService.rechargeScope(entry.walletId(), request);
+        }
+        TransferRequest request = new TransferRequest();
+        request.setFromWalletId(entry.walletId());
+        request.setToWalletId(entry.counterpartyId());
+        request.setAmount(Money.toDecimal(entry.amount()));
+        return IdempotencyService.transferScope(request);
+    }
+
+    private record Step(long through, int entries) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ewallet.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads journal entries in order for the projection, independently of the
+ * writer. It keeps its place between calls and only reads entries the
+ * sequencer has already forced to disk.
+ */
+final class JournalReader implements AutoCloseable {
+
+    private final Path directory;
+    private final CRC32 crc = new CRC32();
+    private Path segment;
+    private MappedByteBuffer buffer;
+    private long nextSequence = -1;
+
+    JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Up to {@code max} entries with sequences after {@code afterSequence}
+     * and at most {@code throughSequence}.
+     */
+    List<JournalEntry> read(long afterSequence, long throughSequence, int max) {
+        List<JournalEntry> entries = new ArrayList<>();
+        if (throughSequence <= afterSequence) {
+            return entries;
+        }
+        if (nextSequence != afterSequence + 1) {
+            seek(afterSequence + 1);
+        }
+        while (entries.size() < max && nextSequence <= throughSequence) {
+            int position = buffer.position();
+            JournalEntry entry = Journal.read(buffer, crc);
+            if (entry == null) {
+                buffer.position(position);
+                if (!advanceSegment()) {
+                    throw new IllegalStateException("Journal entry " + nextSequence + " is not readable");
+                }
+                continue;
+            }
+            if (entry.sequence() != nextSequence) {
+                throw new IllegalStateException("Expected journal entry " + nextSequence + " but found "
+                        + entry.sequence());
+            }
+            entries.add(entry);
+            nextSequence++;
+        }
+        return entries;
+    }
+
+    private void seek(long sequence) {
+        List<Path> segments = Journal.segments(directory);
+        Path from = null;
+        for (Path candidate : segments) {
+            if (Journal.firstSequence(candidate) <= sequence) {
+                from = candidate;
+            }
+        }
+        if (from == null) {
+            throw new IllegalStateException("No journal segment holds entry " + sequence);
+        }
+        map(from);
+        nextSequence = Journal.firstSequence(from);
+        while (nextSequence < sequence) {
+            int position = buffer.position();
+            JournalEntry entry = Journal.read(buffer, crc);
+            if (entry == null) {
+                buffer.position(position);
+                if (!advanceSegment()) {
+                    throw new IllegalStateException("Journal entry " + sequence + " is not readable");
+                }
+                continue;
+            }
+            nextSequence = entry.sequence() + 1;
+        }
+    }
+
+    // Moves on to the segment that starts at nextSequence, if the writer has created it
+    private boolean advanceSegment() {
+        for (Path candidate : Journal.segments(directory)) {
+            if (Journal.firstSequence(candidate) == nextSequence && !candidate.equals(segment)) {
+                map(candidate);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void map(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            segment = file;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+        buffer = null;
+        nextSequence = -1;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.ewallet.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from wallet id to balance in minor units, with keys
+ * and values interleaved in one {@code long[]} so that neither is boxed.
+ *
+ * <p>Only one thread may write. Any number of threads may read at the same
+ * time: a value is published before its key, and a resized table is
+ * published as a whole, so readers see either no entry or a balance the
+ * writer stored, never a torn one. Wallet id 0 is reserved as the empty
+ * marker; ids are never removed.
+ */
+final class LongBalanceMap {
+
+    static final long MISSING = Long.MIN_VALUE;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private volatile long[] table;
+    private int size;
+
+    LongBalanceMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity * 2];
+    }
+
+    /**
+     * The balance stored for {@code walletId}, or {@link #MISSING}.
+     */
+    long get(long walletId) {
+        long[] slots = table;
+        int mask = slots.length / 2 - 1;
+        for (int i = index(walletId, mask); ; i = (i + 1) & mask) {
+            long key = (long) SLOTS.getAcquire(slots, 2 * i);
+            if (key == walletId) {
+                return (long) SLOTS.getAcquire(slots, 2 * i + 1);
+            }
+            if (key == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    void put(long walletId, long balance) {
+        if (walletId == 0) {
+            throw new IllegalArgumentException("Wallet id 0 cannot be stored");
+        }
+        long[] slots = table;
+        int mask = slots.length / 2 - 1;
+        for (int i = index(walletId, mask); ; i = (i + 1) & mask) {
+            long key = slots[2 * i];
+            if (key == walletId) {
+                SLOTS.setRelease(slots, 2 * i + 1, balance);
+                return;
+            }
+            if (key == 0) {
+                SLOTS.setRelease(slots, 2 * i + 1, balance);
+                SLOTS.setRelease(slots, 2 * i, walletId);
+                if (++size > mask * LOAD_FACTOR) {
+                    resize(slots);
+                }
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(Entries action) {
+        long[] slots = table;
+        for (int i = 0; i < slots.length; i += 2) {
+            if (slots[i] != 0) {
+                action.accept(slots[i], slots[i + 1]);
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    private void resize(long[] old) {
+        long[] slots = new long[old.length * 2];
+        int mask = slots.length / 2 - 1;
+        for (int j = 0; j < old.length; j += 2) {
+            if (old[j] == 0) {
+                continue;
+            }
+            int i = index(old[j], mask);
+            while (slots[2 * i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[2 * i] = old[j];
+            slots[2 * i + 1] = old[j + 1];
+        }
+        table = slots;
+    }
+
+    // Sequence-allocated ids are dense, so spread them before masking
+    private static int index(long walletId, int mask) {
+        long h = walletId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @FunctionalInterface
+    interface Entries {
+        void accept(long walletId, long balance);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A {@link WalletTransaction} moved out of the hot ledger by the archiver.
+ * Rows keep their id and columns and are only ever written by the archiver's
+ * insert-select, so the entity is read-only.
+ */
+@Entity
+@Table(
+    name = "wallet_transactions_archive",
+    indexes = {
+        @Index(name = "idx_wallet_tx_archive_wallet_created_id", columnList = "wallet_id, created_at, id"),
+        @Index(name = "idx_wallet_tx_archive_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_wallet_tx_archive_counterparty_created_id",
+                columnList = "counterparty_wallet_id, created_at, id")
+    }
+)
+public class ArchivedWalletTransaction {
+
+    @Id
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private String description;
+
+    private String reference;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(name = "counterparty_wallet_id")
+    private Long counterpartyWalletId;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal counterpartyBalanceAfter;
+
+    protected ArchivedWalletTransaction() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public Long getCounterpartyWalletId() {
+        return counterpartyWalletId;
+    }
+
+    public BigDecimal getCounterpartyBalanceAfter() {
+        return counterpartyBalanceAfter;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One wallet's ledger activity for one day, rolled up from
+ * {@link WalletTransaction} rows. Only days with activity have a row.
+ */
+@Entity
+@Table(
+    name = "wallet_daily_balances",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_balance_wallet_date", columnNames = {"wallet_id", "balance_date"})
+    },
+    indexes = {
+        // Serves the per-day totals of the late-row re-scan
+        @Index(name = "idx_daily_balance_date", columnList = "balance_date")
+    }
+)
+public class DailyBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_balance_seq")
+    @SequenceGenerator(name = "daily_balance_seq", sequenceName = "wallet_daily_balances_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "balance_date", nullable = false)
+    private LocalDate balanceDate;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal openingBalance;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal credits = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal debits = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal closingBalance;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    protected DailyBalance() {
+    }
+
+    public DailyBalance(Long walletId, LocalDate balanceDate, BigDecimal openingBalance) {
+        this.walletId = walletId;
+        this.balanceDate = balanceDate;
+        this.openingBalance = openingBalance;
+        this.closingBalance = openingBalance;
+    }
+
+    public void apply(TransactionType type, BigDecimal amount) {
+        if (type.isCredit()) {
+            credits = credits.add(amount);
+            closingBalance = closingBalance.add(amount);
+        } else {
+            debits = debits.add(amount);
+            closingBalance = closingBalance.subtract(amount);
+        }
+        transactionCount++;
+    }
+
+    // Replaces the day's totals with ones recomputed from the ledger
+    public void restate(BigDecimal credits, BigDecimal debits, long transactionCount) {
+        this.credits = credits;
+        this.debits = debits;
+        this.closingBalance = openingBalance.add(credits).subtract(debits);
+        this.transactionCount = transactionCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public LocalDate getBalanceDate() {
+        return balanceDate;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public BigDecimal getCredits() {
+        return credits;
+    }
+
+    public BigDecimal getDebits() {
+        return debits;
+    }
+
+    public BigDecimal getClosingBalance() {
+        return closingBalance;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+    name = "idempotency_keys",
+    indexes = {
+        @Index(name = "idx_idempotency_created", columnList = "created_at")
+    }
+)
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    // Operation and payload fingerprint the key was first used with
+    @Column(nullable = false, length = 200)
+    private String scope;
+
+    @Column(nullable = false, length = 4000)
+    private String responseBody;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Keys are assigned by clients, so tell Spring Data to persist rather than merge
+    @Transient
+    private boolean isNew = true;
+
+    protected IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, String scope, String responseBody) {
+        this.key = key;
+        this.scope = scope;
+        this.responseBody = responseBody;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    public void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
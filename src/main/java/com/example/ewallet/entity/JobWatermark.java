@@ -0,0 +1,63 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker for background jobs that walk the ledger in
+ * {@code (createdAt, id)} order. A job resumes from the last row it finished.
+ */
+@Entity
+@Table(name = "job_watermarks")
+public class JobWatermark {
+
+    public static final LocalDateTime ORIGIN = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime lastCreatedAt = ORIGIN;
+
+    @Column(nullable = false)
+    private Long lastId = 0L;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected JobWatermark() {
+    }
+
+    public JobWatermark(String name) {
+        this.name = name;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void advanceTo(LocalDateTime createdAt, Long id) {
+        this.lastCreatedAt = createdAt;
+        this.lastId = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getLastCreatedAt() {
+        return lastCreatedAt;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
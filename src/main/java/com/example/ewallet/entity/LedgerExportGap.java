@@ -0,0 +1,59 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A run of ids the incremental ledger export passed over because no row had
+ * them yet. Ids come in pooled blocks, so a row can still commit into one
+ * later; the next runs export it and narrow or drop the gap.
+ */
+@Entity
+@Table(
+    name = "ledger_export_gaps",
+    indexes = {
+        @Index(name = "idx_ledger_export_gap_ids", columnList = "first_id, last_id")
+    }
+)
+public class LedgerExportGap {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_export_gap_seq")
+    @SequenceGenerator(name = "ledger_export_gap_seq", sequenceName = "ledger_export_gaps_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "first_id", nullable = false)
+    private long firstId;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(nullable = false)
+    private LocalDateTime recordedAt;
+
+    protected LedgerExportGap() {
+    }
+
+    public LedgerExportGap(long firstId, long lastId, LocalDateTime recordedAt) {
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.recordedAt = recordedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+}
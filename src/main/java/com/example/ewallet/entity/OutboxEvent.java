@@ -0,0 +1,76 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain event written in the same transaction as the wallet change it
+ * describes, and deleted once every sink has accepted it.
+ */
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long walletId;
+
+    // Version of the wallet row when the event was written. Informational
+    // only: credits to striped wallets leave it unchanged, so it does not
+    // order a wallet's events
+    @Column(nullable = false)
+    private Long walletVersion;
+
+    @Column(nullable = false, length = 30)
+    private String eventType;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    protected OutboxEvent() {
+    }
+
+    public OutboxEvent(Long walletId, Long walletVersion, String eventType, String payload) {
+        this.walletId = walletId;
+        this.walletVersion = walletVersion;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public Long getWalletVersion() {
+        return walletVersion;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
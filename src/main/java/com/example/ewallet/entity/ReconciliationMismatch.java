@@ -0,0 +1,118 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A wallet whose stored balance does not equal the sum of its ledger rows, or
+ * whose rows' {@code balanceAfter} values do not follow from one another, as
+ * found by the reconciliation run that started at {@code runStartedAt}.
+ */
+@Entity
+@Table(
+    name = "reconciliation_mismatches",
+    indexes = {
+        @Index(name = "idx_reconciliation_run_wallet", columnList = "run_started_at, wallet_id")
+    }
+)
+public class ReconciliationMismatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reconciliation_mismatch_seq")
+    @SequenceGenerator(name = "reconciliation_mismatch_seq", sequenceName = "reconciliation_mismatches_seq",
+            allocationSize = 50)
+    private Long id;
+
+    @Column(name = "run_started_at", nullable = false)
+    private LocalDateTime runStartedAt;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    // Wallet row plus any unfolded stripes
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal storedBalance;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal ledgerBalance;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    // The first row whose balanceAfter differs from the running sum, if any
+    private Long divergentTransactionId;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal expectedBalanceAfter;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal recordedBalanceAfter;
+
+    @Column(nullable = false)
+    private LocalDateTime detectedAt;
+
+    protected ReconciliationMismatch() {
+    }
+
+    public ReconciliationMismatch(LocalDateTime runStartedAt, Long walletId, BigDecimal storedBalance,
+                                  BigDecimal ledgerBalance, long transactionCount) {
+        this.runStartedAt = runStartedAt;
+        this.walletId = walletId;
+        this.storedBalance = storedBalance;
+        this.ledgerBalance = ledgerBalance;
+        this.transactionCount = transactionCount;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        detectedAt = LocalDateTime.now();
+    }
+
+    public void divergedAt(Long transactionId, BigDecimal expected, BigDecimal recorded) {
+        this.divergentTransactionId = transactionId;
+        this.expectedBalanceAfter = expected;
+        this.recordedBalanceAfter = recorded;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getRunStartedAt() {
+        return runStartedAt;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public BigDecimal getStoredBalance() {
+        return storedBalance;
+    }
+
+    public BigDecimal getLedgerBalance() {
+        return ledgerBalance;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public Long getDivergentTransactionId() {
+        return divergentTransactionId;
+    }
+
+    public BigDecimal getExpectedBalanceAfter() {
+        return expectedBalanceAfter;
+    }
+
+    public BigDecimal getRecordedBalanceAfter() {
+        return recordedBalanceAfter;
+    }
+
+    public LocalDateTime getDetectedAt() {
+        return detectedAt;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single row stamped on the primary by {@code ReplicaLagMonitor}; replication
+ * carries it to the replica, where its age is the replica's lag. Mapped so the
+ * table is created with the rest of the schema; it is only read and written
+ * through JDBC.
+ */
+@Entity
+@Table(name = "replica_heartbeat")
+public class ReplicaHeartbeat {
+
+    public static final long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime beatAt;
+
+    protected ReplicaHeartbeat() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getBeatAt() {
+        return beatAt;
+    }
+}
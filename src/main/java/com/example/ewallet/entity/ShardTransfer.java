@@ -0,0 +1,127 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One side of a transfer between wallets on different shards. The source
+ * shard keeps the outbound row, which follows the transfer from reservation
+ * to completion or reversal; the target shard keeps an inbound row whose
+ * unique reference stops the credit from being applied twice.
+ */
+@Entity
+@Table(
+    name = "shard_transfers",
+    indexes = {
+        // Serves recovery of reservations left behind by interrupted transfers
+        @Index(name = "idx_shard_transfers_status_updated", columnList = "status, updated_at")
+    }
+)
+public class ShardTransfer {
+
+    public enum Status {
+        // Outbound: the source wallet is debited, the credit is not confirmed yet
+        RESERVED,
+        // Outbound: the target wallet is credited
+        COMPLETED,
+        // Outbound: the credit was refused and the debit refunded
+        REVERSED,
+        // Inbound: the credit was applied on this shard
+        CREDITED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shard_transfer_seq")
+    @SequenceGenerator(name = "shard_transfer_seq", sequenceName = "shard_transfers_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36)
+    private String reference;
+
+    @Column(nullable = false)
+    private Long fromWalletId;
+
+    @Column(nullable = false)
+    private Long toWalletId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected ShardTransfer() {
+    }
+
+    public ShardTransfer(String reference, Long fromWalletId, Long toWalletId, BigDecimal amount,
+                         String description, Status status) {
+        this.reference = reference;
+        this.fromWalletId = fromWalletId;
+        this.toWalletId = toWalletId;
+        this.amount = amount;
+        this.description = description;
+        this.status = status;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public Long getFromWalletId() {
+        return fromWalletId;
+    }
+
+    public Long getToWalletId() {
+        return toWalletId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -3,6 +3,11 @@ package com.example.ewallet.entity;
 public enum TransactionType {
     RECHARGE,
     TRANSFER_DEBIT,
-    TRANSFER_CREDIT
-}
+    TRANSFER_CREDIT,
+    // Refund of a cross-shard transfer debit whose credit could not be applied
+    TRANSFER_REVERSAL;
 
+    public boolean isCredit() {
+        return this != TRANSFER_DEBIT;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ewallet.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One of the sub-balances of a striped wallet. Transfer credits to the wallet
+ * are added here instead of to {@code wallets.balance}, so concurrent credits
+ * contend on different rows; the wallet's balance is its own row plus all of
+ * its stripes until they are folded back in.
+ */
+@Entity
+@Table(
+    name = "wallet_balance_stripes",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_balance_stripe_wallet_stripe", columnNames = {"wallet_id", "stripe"})
+    }
+)
+public class WalletBalanceStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_stripe_seq")
+    @SequenceGenerator(name = "balance_stripe_seq", sequenceName = "wallet_balance_stripes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(nullable = false)
+    private int stripe;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    protected WalletBalanceStripe() {
+    }
+
+    public WalletBalanceStripe(Long walletId, int stripe) {
+        this.walletId = walletId;
+        this.stripe = stripe;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
@@ -5,11 +5,22 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "wallet_transactions")
+@Table(
+    name = "wallet_transactions",
+    indexes = {
+        // Serves keyset pagination of a wallet's history on (createdAt, id)
+        @Index(name = "idx_wallet_tx_wallet_created_id", columnList = "wallet_id, created_at, id"),
+        // Serves jobs that walk the whole ledger from a watermark
+        @Index(name = "idx_wallet_tx_created_id", columnList = "created_at, id"),
+        // Serves the credit side of compact transfer rows in a wallet's history
+        @Index(name = "idx_wallet_tx_counterparty_created_id", columnList = "counterparty_wallet_id, created_at, id")
+    }
+)
 public class WalletTransaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_tx_seq")
+    @SequenceGenerator(name = "wallet_tx_seq", sequenceName = "wallet_transactions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -33,6 +44,14 @@ public class WalletTransaction {
     @Column(precision = 19, scale = 2)
     private BigDecimal balanceAfter;
 
+    // Set only on compact transfer rows, which record both sides of a transfer:
+    // the row's own wallet is debited and the counterparty wallet is credited
+    @Column(name = "counterparty_wallet_id")
+    private Long counterpartyWalletId;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal counterpartyBalanceAfter;
+
     @PrePersist
     public void prePersist() {
         createdAt = LocalDateTime.now();
@@ -93,4 +112,20 @@ public class WalletTransaction {
     public void setBalanceAfter(BigDecimal balanceAfter) {
         this.balanceAfter = balanceAfter;
     }
+
+    public Long getCounterpartyWalletId() {
+        return counterpartyWalletId;
+    }
+
+    public void setCounterpartyWalletId(Long counterpartyWalletId) {
+        this.counterpartyWalletId = counterpartyWalletId;
+    }
+
+    public BigDecimal getCounterpartyBalanceAfter() {
+        return counterpartyBalanceAfter;
+    }
+
+    public void setCounterpartyBalanceAfter(BigDecimal counterpartyBalanceAfter) {
+        this.counterpartyBalanceAfter = counterpartyBalanceAfter;
+    }
 }
@@ -0,0 +1,24 @@
+package com.example.ewallet.event;
+
+import com.example.ewallet.entity.Wallet;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that created or modified the wallets.
+ * Listeners that must not observe uncommitted state subscribe with
+ * {@code @TransactionalEventListener(phase = AFTER_COMMIT)}; by then the
+ * entities carry the version and timestamps that were flushed.
+ */
+public class WalletChangedEvent {
+
+    private final List<Wallet> wallets;
+
+    public WalletChangedEvent(List<Wallet> wallets) {
+        this.wallets = wallets;
+    }
+
+    public List<Wallet> getWallets() {
+        return wallets;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ewallet.export;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte array for one column of a block, with the variable-length
+ * encodings {@link LedgerExportFile} uses. Reused block after block.
+ */
+final class ColumnBuffer {
+
+    private byte[] bytes;
+    private int length;
+    private int position;
+
+    ColumnBuffer(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void clear() {
+        length = 0;
+        position = 0;
+    }
+
+    // Makes room for and returns the array to decode {@code length} bytes into
+    byte[] reset(int length) {
+        ensure(length);
+        this.length = length;
+        this.position = 0;
+        return bytes;
+    }
+
+    void writeByte(int value) {
+        ensure(length + 1);
+        bytes[length++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensure(length + 10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    void writeZigZag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    // Length plus one, so that 0 can stand for null
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(utf8.length + 1L);
+        ensure(length + utf8.length);
+        System.arraycopy(utf8, 0, bytes, length, utf8.length);
+        length += utf8.length;
+    }
+
+    int readByte() {
+        return bytes[position++] & 0xFF;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    long readZigZag() {
+        long encoded = readVarLong();
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    String readString() {
+        int size = (int) readVarLong() - 1;
+        if (size < 0) {
+            return null;
+        }
+        String value = new String(bytes, position, size, StandardCharsets.UTF_8);
+        position += size;
+        return value;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
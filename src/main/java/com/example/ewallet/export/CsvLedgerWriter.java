@@ -0,0 +1,135 @@
+package com.example.ewallet.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * RFC 4180 CSV with a header line, for consumers that cannot read
+ * {@link LedgerExportFile}. Amounts are decimal, timestamps ISO-8601, and
+ * null fields are empty.
+ */
+final class CsvLedgerWriter implements LedgerRowWriter {
+
+    static final String EXTENSION = ".csv";
+
+    private static final String HEADER = "id,wallet_id,amount,type,created_at,description,reference,"
+            + "balance_after,counterparty_wallet_id,counterparty_balance_after\n";
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+    private final StringBuilder line = new StringBuilder(256);
+
+    CsvLedgerWriter(Path file) {
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        append(HEADER);
+    }
+
+    @Override
+    public void write(LedgerRow row) {
+        line.setLength(0);
+        line.append(row.id).append(',').append(row.walletId).append(',');
+        appendMinor(row.amount);
+        line.append(',').append(row.type.name()).append(',').append(row.createdAt()).append(',');
+        appendText(row.description);
+        line.append(',');
+        appendText(row.reference);
+        line.append(',');
+        if (row.hasBalanceAfter) {
+            appendMinor(row.balanceAfter);
+        }
+        line.append(',');
+        if (row.hasCounterparty) {
+            line.append(row.counterpartyWalletId);
+        }
+        line.append(',');
+        if (row.hasCounterpartyBalanceAfter) {
+            appendMinor(row.counterpartyBalanceAfter);
+        }
+        line.append('\n');
+        append(line);
+    }
+
+    private void appendMinor(long minor) {
+        if (minor < 0) {
+            line.append('-');
+        }
+        long units = Math.abs(minor);
+        line.append(units / 100).append('.');
+        long cents = units % 100;
+        if (cents < 10) {
+            line.append('0');
+        }
+        line.append(cents);
+    }
+
+    private void appendText(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void append(CharSequence text) {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.remaining()) {
+            flush();
+        }
+        if (bytes.length > buffer.capacity()) {
+            drain(ByteBuffer.wrap(bytes));
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    private void flush() {
+        buffer.flip();
+        drain(buffer);
+        buffer.clear();
+    }
+
+    private void drain(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        try (channel) {
+            flush();
+            channel.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
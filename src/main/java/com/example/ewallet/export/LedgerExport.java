@@ -0,0 +1,11 @@
+package com.example.ewallet.export;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * One shard's exported id range: a directory of part files in id order,
+ * each covering at most {@code ewallet.export.range-size} ids.
+ */
+public record LedgerExport(int shard, long afterId, long throughId, long rows, Path directory, List<Path> files) {
+}
@@ -0,0 +1,300 @@
+package com.example.ewallet.export;
+
+import com.example.ewallet.entity.TransactionType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Columnar ledger export file.
+ *
+ * <p>Layout: a header (magic, version, the transaction type names in code
+ * order), then blocks of up to {@code rows-per-block} rows, then a footer
+ * indexing each block by file offset, row count and first and last id, then
+ * the footer's offset and the magic again. A block is its row count followed
+ * by one deflated column per field: ids and creation times as deltas from the
+ * previous row, amounts and balances as zig-zag varints, nullable fields with
+ * a presence byte, strings as length-prefixed UTF-8. Rows are in id order.
+ */
+public final class LedgerExportFile {
+
+    public static final String EXTENSION = ".ewlc";
+
+    private static final int MAGIC = 0x45574C43;
+    private static final short VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int WALLET_ID = 1;
+    private static final int AMOUNT = 2;
+    private static final int TYPE = 3;
+    private static final int CREATED_AT = 4;
+    private static final int BALANCE_AFTER = 5;
+    private static final int COUNTERPARTY_WALLET_ID = 6;
+    private static final int COUNTERPARTY_BALANCE_AFTER = 7;
+    private static final int DESCRIPTION = 8;
+    private static final int REFERENCE = 9;
+    private static final int COLUMNS = 10;
+
+    private LedgerExportFile() {
+    }
+
+    /**
+     * Hands every row in {@code file} to {@code consumer}, in id order, and
+     * returns how many there were. The same {@link LedgerRow} instance is
+     * passed each time.
+     */
+    public static long read(Path file, Consumer<LedgerRow> consumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 6 + 12) {
+                throw new IllegalStateException("Not a ledger export file: " + file);
+            }
+            ByteBuffer trailer = readFully(channel, size - 12, 12);
+            long footerOffset = trailer.getLong();
+            ByteBuffer header = readFully(channel, 0, (int) Math.min(footerOffset, 4096));
+            if (trailer.getInt() != MAGIC || header.getInt() != MAGIC) {
+                throw new IllegalStateException("Not a ledger export file: " + file);
+            }
+            if (header.getShort() != VERSION) {
+                throw new IllegalStateException("Unsupported ledger export version in " + file);
+            }
+            TransactionType[] types = new TransactionType[header.getShort()];
+            for (int i = 0; i < types.length; i++) {
+                byte[] name = new byte[header.get()];
+                header.get(name);
+                types[i] = TransactionType.valueOf(new String(name, StandardCharsets.US_ASCII));
+            }
+
+            ByteBuffer footer = readFully(channel, footerOffset, (int) (size - 12 - footerOffset));
+            int blocks = footer.getInt();
+            ColumnBuffer[] columns = newColumns();
+            Inflater inflater = new Inflater();
+            LedgerRow row = new LedgerRow();
+            long total = 0;
+            try {
+                for (int block = 0; block < blocks; block++) {
+                    long offset = footer.getLong();
+                    int rows = footer.getInt();
+                    footer.getLong();
+                    footer.getLong();
+                    total += readBlock(channel, offset, rows, columns, inflater, types, row, consumer);
+                }
+            } finally {
+                inflater.end();
+            }
+            return total;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static int readBlock(FileChannel channel, long offset, int rows, ColumnBuffer[] columns,
+                                 Inflater inflater, TransactionType[] types, LedgerRow row,
+                                 Consumer<LedgerRow> consumer) throws IOException {
+        long position = offset + 4;
+        for (ColumnBuffer column : columns) {
+            ByteBuffer lengths = readFully(channel, position, 8);
+            int raw = lengths.getInt();
+            int compressed = lengths.getInt();
+            ByteBuffer data = readFully(channel, position + 8, compressed);
+            inflater.reset();
+            inflater.setInput(data.array(), 0, compressed);
+            try {
+                if (inflater.inflate(column.reset(raw), 0, raw) != raw) {
+                    throw new IllegalStateException("Truncated column at offset " + position);
+                }
+            } catch (DataFormatException ex) {
+                throw new IllegalStateException("Corrupt column at offset " + position, ex);
+            }
+            position += 8 + compressed;
+        }
+
+        long id = 0;
+        long micros = 0;
+        for (int i = 0; i < rows; i++) {
+            id += columns[ID].readVarLong();
+            micros += columns[CREATED_AT].readZigZag();
+            row.id = id;
+            row.walletId = columns[WALLET_ID].readVarLong();
+            row.amount = columns[AMOUNT].readZigZag();
+            row.type = types[columns[TYPE].readByte()];
+            row.createdAtMicros = micros;
+            row.hasBalanceAfter = columns[BALANCE_AFTER].readByte() != 0;
+            row.balanceAfter = row.hasBalanceAfter ? columns[BALANCE_AFTER].readZigZag() : 0;
+            row.hasCounterparty = columns[COUNTERPARTY_WALLET_ID].readByte() != 0;
+            row.counterpartyWalletId = row.hasCounterparty ? columns[COUNTERPARTY_WALLET_ID].readVarLong() : 0;
+            row.hasCounterpartyBalanceAfter = columns[COUNTERPARTY_BALANCE_AFTER].readByte() != 0;
+            row.counterpartyBalanceAfter = row.hasCounterpartyBalanceAfter
+                    ? columns[COUNTERPARTY_BALANCE_AFTER].readZigZag()
+                    : 0;
+            row.description = columns[DESCRIPTION].readString();
+            row.reference = columns[REFERENCE].readString();
+            consumer.accept(row);
+        }
+        return rows;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalStateException("Ledger export file ends early");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static ColumnBuffer[] newColumns() {
+        ColumnBuffer[] columns = new ColumnBuffer[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            columns[i] = new ColumnBuffer(1 << 16);
+        }
+        return columns;
+    }
+
+    static final class Writer implements LedgerRowWriter {
+
+        private final FileChannel channel;
+        private final int rowsPerBlock;
+        private final ColumnBuffer[] columns = newColumns();
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final ByteBuffer lengths = ByteBuffer.allocate(8);
+        private final List<Block> index = new ArrayList<>();
+        private byte[] compressed = new byte[1 << 16];
+        private long offset;
+        private int rows;
+        private long firstId;
+        private long previousId;
+        private long previousMicros;
+
+        Writer(Path file, int rowsPerBlock) {
+            this.rowsPerBlock = rowsPerBlock;
+            try {
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                TransactionType[] types = TransactionType.values();
+                ByteBuffer header = ByteBuffer.allocate(4 + 2 + 2 + types.length * 32);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) types.length);
+                for (TransactionType type : types) {
+                    byte[] name = type.name().getBytes(StandardCharsets.US_ASCII);
+                    header.put((byte) name.length).put(name);
+                }
+                write(header.flip());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void write(LedgerRow row) {
+            if (rows == 0) {
+                firstId = row.id;
+                previousId = 0;
+                previousMicros = 0;
+            }
+            columns[ID].writeVarLong(row.id - previousId);
+            columns[WALLET_ID].writeVarLong(row.walletId);
+            columns[AMOUNT].writeZigZag(row.amount);
+            columns[TYPE].writeByte(row.type.ordinal());
+            columns[CREATED_AT].writeZigZag(row.createdAtMicros - previousMicros);
+            columns[BALANCE_AFTER].writeByte(row.hasBalanceAfter ? 1 : 0);
+            if (row.hasBalanceAfter) {
+                columns[BALANCE_AFTER].writeZigZag(row.balanceAfter);
+            }
+            columns[COUNTERPARTY_WALLET_ID].writeByte(row.hasCounterparty ? 1 : 0);
+            if (row.hasCounterparty) {
+                columns[COUNTERPARTY_WALLET_ID].writeVarLong(row.counterpartyWalletId);
+            }
+            columns[COUNTERPARTY_BALANCE_AFTER].writeByte(row.hasCounterpartyBalanceAfter ? 1 : 0);
+            if (row.hasCounterpartyBalanceAfter) {
+                columns[COUNTERPARTY_BALANCE_AFTER].writeZigZag(row.counterpartyBalanceAfter);
+            }
+            columns[DESCRIPTION].writeString(row.description);
+            columns[REFERENCE].writeString(row.reference);
+            previousId = row.id;
+            previousMicros = row.createdAtMicros;
+            if (++rows == rowsPerBlock) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() {
+            if (rows == 0) {
+                return;
+            }
+            index.add(new Block(offset, rows, firstId, previousId));
+            write(ByteBuffer.allocate(4).putInt(0, rows));
+            for (ColumnBuffer column : columns) {
+                int size = deflate(column);
+                lengths.clear();
+                lengths.putInt(column.length()).putInt(size).flip();
+                write(lengths, ByteBuffer.wrap(compressed, 0, size));
+                column.clear();
+            }
+            rows = 0;
+        }
+
+        private int deflate(ColumnBuffer column) {
+            deflater.reset();
+            deflater.setInput(column.array(), 0, column.length());
+            deflater.finish();
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                size += deflater.deflate(compressed, size, compressed.length - size);
+            }
+            return size;
+        }
+
+        private void write(ByteBuffer... buffers) {
+            try {
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    remaining += buffer.remaining();
+                }
+                offset += remaining;
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() {
+            try (channel) {
+                flushBlock();
+                long footerOffset = offset;
+                ByteBuffer footer = ByteBuffer.allocate(4 + index.size() * 28 + 12);
+                footer.putInt(index.size());
+                for (Block block : index) {
+                    footer.putLong(block.offset()).putInt(block.rows()).putLong(block.firstId()).putLong(block.lastId());
+                }
+                footer.putLong(footerOffset).putInt(MAGIC);
+                write(footer.flip());
+                channel.force(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    private record Block(long offset, int rows, long firstId, long lastId) {
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.ewallet.export;
+
+import com.example.ewallet.config.LedgerExportProperties;
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.entity.LedgerExportGap;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.LedgerExportGapRepository;
+import com.example.ewallet.service.Money;
+import com.example.ewallet.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export of {@code wallet_transactions} to files for finance, in place
+ * of paging through the history endpoint.
+ *
+ * <p>A shard's id range is cut into {@code range-size} slices that worker
+ * threads export in parallel, each streaming its slice over a forward-only
+ * JDBC cursor in a read-only transaction (so from the replica when one is
+ * configured) into one part file. Parts are written into a temporary
+ * directory that is renamed into place once every part is complete.
+ *
+ * <p>The incremental export carries on from the {@code ledger-export}
+ * watermark, whose {@code lastId} is the last id exported on that shard, and
+ * stops short of the first row younger than the settle delay. Ids are handed
+ * out in pooled blocks, so with several nodes writing a row can still commit
+ * below the watermark. Each run therefore records the ids it passed over as
+ * {@link LedgerExportGap}s, and later runs export rows that have since
+ * appeared in one into a separate {@code late} directory, until the gap is
+ * older than {@code late-row-window}.
+ */
+@Service
+public class LedgerExporter {
+
+    public static final String JOB_NAME = "ledger-export";
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerExporter.class);
+
+    private static final String COLUMNS =
+            "select id, wallet_id, amount, type, created_at, description, reference, balance_after, "
+                    + "counterparty_wallet_id, counterparty_balance_after from wallet_transactions ";
+
+    private static final String SELECT_SQL = COLUMNS + "where id > ? and id <= ? order by id";
+
+    private static final String LATE_SQL = COLUMNS + "where created_at < ? and exists (select 1 "
+            + "from ledger_export_gaps g where wallet_transactions.id between g.first_id and g.last_id) order by id";
+
+    private final LedgerExportProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final JobWatermarkRepository watermarkRepository;
+    private final LedgerExportGapRepository gapRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter exportedRows;
+
+    public LedgerExporter(LedgerExportProperties properties,
+                          JdbcTemplate jdbcTemplate,
+                          JobWatermarkRepository watermarkRepository,
+                          LedgerExportGapRepository gapRepository,
+                          ShardRouter shardRouter,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.watermarkRepository = watermarkRepository;
+        this.gapRepository = gapRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        int workers = properties.getWorkers() > 0
+                ? properties.getWorkers()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("ledger-export-"));
+        this.exportedRows = Counter.builder("ewallet.export.rows")
+                .description("Ledger rows written to export files")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.export.interval:PT1H}")
+    public void run() {
+        if (properties.isEnabled()) {
+            exportIncremental();
+        }
+    }
+
+    /**
+     * Exports every ledger row past each shard's watermark that is older than
+     * the settle delay, and advances the watermarks, after exporting the rows
+     * that have committed into recorded gaps since. Shards with nothing new
+     * are left out of the result.
+     */
+    public List<LedgerExport> exportIncremental() {
+        List<LedgerExport> exports = new ArrayList<>();
+        shardRouter.onEachShard(shard -> exports.addAll(transactionTemplate.execute(status -> exportIncremental(shard))));
+        return exports;
+    }
+
+    // The watermark stays locked until the files are in place, so only one node exports a shard at a time
+    private List<LedgerExport> exportIncremental(int shard) {
+        JobWatermark watermark = watermarkRepository.lockOrCreate(JOB_NAME);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(properties.getSettleDelay());
+        List<LedgerExport> exports = new ArrayList<>();
+        gapRepository.deleteRecordedBefore(now.minus(properties.getLateRowWindow()));
+        LedgerExport late = exportLate(shard, cutoff);
+        if (late != null) {
+            exports.add(late);
+        }
+
+        long after = watermark.getLastId();
+        Long unsettled = jdbcTemplate.queryForObject(
+                "select min(id) from wallet_transactions where id > ? and created_at >= ?", Long.class, after, cutoff);
+        Long through = unsettled != null
+                ? Long.valueOf(unsettled - 1)
+                : jdbcTemplate.queryForObject("select max(id) from wallet_transactions where id > ?", Long.class, after);
+        if (through == null || through <= after) {
+            return exports;
+        }
+        List<IdRange> gaps = new ArrayList<>();
+        exports.add(export(shard, after, through, gaps));
+        gapRepository.saveAll(gaps.stream().map(gap -> new LedgerExportGap(gap.first(), gap.last(), now)).toList());
+        watermark.advanceTo(cutoff, through);
+        return exports;
+    }
+
+    // Settled rows that committed into a recorded gap after the run that passed over it
+    private LedgerExport exportLate(int shard, LocalDateTime cutoff) {
+        Path root = Path.of(properties.getDirectory());
+        Path temporary = root.resolve(String.format("ledger-%d-late.tmp", shard));
+        String file = String.format("part-%05d%s", 0, extension());
+        createEmpty(temporary);
+        List<Long> ids = new ArrayList<>();
+        long rows = write(temporary.resolve(file), query(LATE_SQL, cutoff), row -> ids.add(row.id));
+        if (rows == 0) {
+            try {
+                deleteRecursively(temporary);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return null;
+        }
+        long first = ids.get(0);
+        long last = ids.get(ids.size() - 1);
+        Path target = root.resolve(String.format("ledger-%d-late-%020d-%020d", shard, first, last));
+        publish(temporary, target);
+        for (Long id : ids) {
+            for (LedgerExportGap gap : gapRepository.findContaining(id)) {
+                gapRepository.delete(gap);
+                if (gap.getFirstId() < id) {
+                    gapRepository.save(new LedgerExportGap(gap.getFirstId(), id - 1, gap.getRecordedAt()));
+                }
+                if (id < gap.getLastId()) {
+                    gapRepository.save(new LedgerExportGap(id + 1, gap.getLastId(), gap.getRecordedAt()));
+                }
+            }
+        }
+        exportedRows.increment(rows);
+        log.info("Exported {} ledger rows that committed behind the export watermark on shard {} to {}",
+                rows, shard, target);
+        return new LedgerExport(shard, first - 1, last, rows, target, List.of(target.resolve(file)));
+    }
+
+    /**
+     * Exports every row currently in the ledger, without touching the
+     * incremental watermark.
+     */
+    public List<LedgerExport> exportAll() {
+        List<LedgerExport> exports = new ArrayList<>();
+        shardRouter.onEachShard(shard -> {
+            Long[] bounds = readTemplate.execute(status -> jdbcTemplate.queryForObject(
+                    "select min(id), max(id) from wallet_transactions",
+                    (rs, rowNum) -> new Long[] {rs.getObject(1, Long.class), rs.getObject(2, Long.class)}));
+            if (bounds != null && bounds[0] != null) {
+                exports.add(export(shard, bounds[0] - 1, bounds[1], new ArrayList<>()));
+            }
+        });
+        return exports;
+    }
+
+    // Adds the ids in (after, through] that no row had to gaps
+    private LedgerExport export(int shard, long after, long through, List<IdRange> gaps) {
+        long started = System.nanoTime();
+        Path root = Path.of(properties.getDirectory());
+        String name = String.format("ledger-%d-%020d-%020d", shard, after + 1, through);
+        Path target = root.resolve(name);
+        Path temporary = root.resolve(name + ".tmp");
+        String extension = extension();
+        createEmpty(temporary);
+
+        List<Path> files = new ArrayList<>();
+        List<Future<Slice>> parts = new ArrayList<>();
+        for (long from = after; from < through; from += properties.getRangeSize()) {
+            long sliceAfter = from;
+            long sliceThrough = Math.min(through, from + properties.getRangeSize());
+            String file = String.format("part-%05d%s", files.size(), extension);
+            files.add(target.resolve(file));
+            Path part = temporary.resolve(file);
+            parts.add(executor.submit(() -> shardRouter.onShard(shard,
+                    () -> exportSlice(sliceAfter, sliceThrough, part))));
+        }
+        long rows = 0;
+        try {
+            for (Future<Slice> part : parts) {
+                Slice slice = part.get();
+                rows += slice.rows();
+                gaps.addAll(slice.gaps());
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            parts.forEach(part -> part.cancel(true));
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                deleteRecursively(temporary);
+            } catch (IOException cleanup) {
+                ex.addSuppressed(cleanup);
+            }
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            throw new IllegalStateException("Ledger export of " + name + " failed", cause);
+        }
+
+        publish(temporary, target);
+        exportedRows.increment(rows);
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Exported {} ledger rows with ids {}..{} on shard {} to {} in {} ms ({} rows/s)",
+                rows, after + 1, through, shard, target, millis, rows * 1000 / millis);
+        return new LedgerExport(shard, after, through, rows, target, files);
+    }
+
+    private Slice exportSlice(long after, long through, Path file) {
+        return readTemplate.execute(status -> {
+            List<IdRange> gaps = new ArrayList<>();
+            long[] previous = {after};
+            long rows = write(file, query(SELECT_SQL, after, through), row -> {
+                if (row.id > previous[0] + 1) {
+                    gaps.add(new IdRange(previous[0] + 1, row.id - 1));
+                }
+                previous[0] = row.id;
+            });
+            if (previous[0] < through) {
+                gaps.add(new IdRange(previous[0] + 1, through));
+            }
+            return new Slice(rows, gaps);
+        });
+    }
+
+    private long write(Path file, PreparedStatementCreator query, Consumer<LedgerRow> written) {
+        try (LedgerRowWriter writer = properties.getFormat() == LedgerExportProperties.Format.CSV
+                ? new CsvLedgerWriter(file)
+                : new LedgerExportFile.Writer(file, properties.getRowsPerBlock())) {
+            LedgerRow row = new LedgerRow();
+            long[] count = new long[1];
+            jdbcTemplate.query(query, (RowCallbackHandler) rs -> {
+                read(rs, row);
+                writer.write(row);
+                written.accept(row);
+                count[0]++;
+            });
+            return count[0];
+        }
+    }
+
+    private PreparedStatementCreator query(String sql, Object... args) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(properties.getFetchSize());
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            return statement;
+        };
+    }
+
+    private String extension() {
+        return properties.getFormat() == LedgerExportProperties.Format.CSV
+                ? CsvLedgerWriter.EXTENSION
+                : LedgerExportFile.EXTENSION;
+    }
+
+    private static void createEmpty(Path directory) {
+        try {
+            deleteRecursively(directory);
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void publish(Path temporary, Path target) {
+        try {
+            deleteRecursively(target);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void read(ResultSet rs, LedgerRow row) throws SQLException {
+        row.id = rs.getLong(1);
+        row.walletId = rs.getLong(2);
+        row.amount = Money.toMinor(rs.getBigDecimal(3));
+        row.type = TransactionType.valueOf(rs.getString(4));
+        row.createdAtMicros = LedgerRow.toMicros(rs.getObject(5, LocalDateTime.class));
+        row.description = rs.getString(6);
+        row.reference = rs.getString(7);
+        BigDecimal balanceAfter = rs.getBigDecimal(8);
+        row.hasBalanceAfter = balanceAfter != null;
+        row.balanceAfter = balanceAfter != null ? Money.toMinor(balanceAfter) : 0;
+        row.counterpartyWalletId = rs.getLong(9);
+        row.hasCounterparty = !rs.wasNull();
+        BigDecimal counterpartyBalanceAfter = rs.getBigDecimal(10);
+        row.hasCounterpartyBalanceAfter = counterpartyBalanceAfter != null;
+        row.counterpartyBalanceAfter = counterpartyBalanceAfter != null ? Money.toMinor(counterpartyBalanceAfter) : 0;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record IdRange(long first, long last) {
+    }
+
+    private record Slice(long rows, List<IdRange> gaps) {
+    }
+}
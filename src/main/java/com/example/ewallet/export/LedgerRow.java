@@ -0,0 +1,78 @@
+package com.example.ewallet.export;
+
+import com.example.ewallet.entity.TransactionType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * One {@code wallet_transactions} row as exported, with amounts in minor
+ * units and {@code created_at} as microseconds since the epoch (the stored
+ * wall-clock time read as UTC). Instances are reused from row to row, so a
+ * consumer that keeps a row must copy what it needs.
+ */
+public final class LedgerRow {
+
+    long id;
+    long walletId;
+    long amount;
+    TransactionType type;
+    long createdAtMicros;
+    String description;
+    String reference;
+    boolean hasBalanceAfter;
+    long balanceAfter;
+    boolean hasCounterparty;
+    long counterpartyWalletId;
+    boolean hasCounterpartyBalanceAfter;
+    long counterpartyBalanceAfter;
+
+    public long id() {
+        return id;
+    }
+
+    public long walletId() {
+        return walletId;
+    }
+
+    public long amount() {
+        return amount;
+    }
+
+    public TransactionType type() {
+        return type;
+    }
+
+    public long createdAtMicros() {
+        return createdAtMicros;
+    }
+
+    public LocalDateTime createdAt() {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(createdAtMicros, 1_000_000),
+                (int) Math.floorMod(createdAtMicros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    public String description() {
+        return description;
+    }
+
+    public String reference() {
+        return reference;
+    }
+
+    public Long balanceAfter() {
+        return hasBalanceAfter ? balanceAfter : null;
+    }
+
+    public Long counterpartyWalletId() {
+        return hasCounterparty ? counterpartyWalletId : null;
+    }
+
+    public Long counterpartyBalanceAfter() {
+        return hasCounterpartyBalanceAfter ? counterpartyBalanceAfter : null;
+    }
+
+    static long toMicros(LocalDateTime createdAt) {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + createdAt.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.ewallet.export;
+
+/**
+ * Destination for the rows of one exported id range. Failures surface as
+ * {@link java.io.UncheckedIOException}.
+ */
+interface LedgerRowWriter extends AutoCloseable {
+
+    void write(LedgerRow row);
+
+    // Flushes what is buffered and forces the file to disk
+    @Override
+    void close();
+}
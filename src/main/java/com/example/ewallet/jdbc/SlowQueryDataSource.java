@@ -0,0 +1,102 @@
+package com.example.ewallet.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times every {@code execute*} call on the statements of its connections and
+ * hands the ones at or above the threshold to {@link SlowQueryLog}.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+        super(target);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection(), null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection(username, password), null);
+    }
+
+    // Closes the wrapped pool, as the bean's destroy method is now inferred from this wrapper
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+
+    private <T> T proxy(Class<T> type, T target, String sql) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                new TimingHandler(target, sql)));
+    }
+
+    private final class TimingHandler implements InvocationHandler {
+
+        private final Object target;
+        // SQL the statement was prepared with; null for connections and plain statements
+        private final String sql;
+
+        TimingHandler(Object target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (target instanceof Connection) {
+                Object result = call(method, args);
+                if (result instanceof CallableStatement statement) {
+                    return proxy(CallableStatement.class, statement, (String) args[0]);
+                }
+                if (result instanceof PreparedStatement statement) {
+                    return proxy(PreparedStatement.class, statement, (String) args[0]);
+                }
+                if (result instanceof Statement statement) {
+                    return proxy(Statement.class, statement, null);
+                }
+                return result;
+            }
+            if (!name.startsWith("execute")) {
+                return call(method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return call(method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                if (slowQueryLog.isSlow(elapsed)) {
+                    String statement = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+                    slowQueryLog.record(statement, elapsed, name.equals("executeBatch"));
+                }
+            }
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+    }
+}
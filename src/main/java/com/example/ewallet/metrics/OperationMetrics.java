@@ -0,0 +1,160 @@
+package com.example.ewallet.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency and outcome of the public wallet and auth operations, plus the
+ * conflict, rejection and result-size counters around them.
+ *
+ * <p>Tags are fixed enums ({@code operation}, {@code outcome}, {@code lock}),
+ * never ids or messages. Success timers are registered up front so the hot
+ * path is two clock reads and a histogram update; the rarer failure
+ * outcomes are registered on first use.
+ */
+@Component
+public class OperationMetrics {
+
+    public enum Operation {
+        RECHARGE("wallet.recharge"),
+        TRANSFER("wallet.transfer"),
+        GET_WALLET("wallet.get"),
+        GET_TRANSACTIONS("wallet.transactions"),
+        LOGIN("auth.login"),
+        SIGNUP("auth.signup");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final String TIMER = "ewallet.operations";
+
+    private final MeterRegistry registry;
+    private final Map<Operation, Timer> successes = new EnumMap<>(Operation.class);
+    private final Counter optimisticConflicts;
+    private final Counter pessimisticConflicts;
+    private final Counter retriesExhausted;
+    private final Counter insufficientBalance;
+    private final DistributionSummary historyRows;
+
+    public OperationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            successes.put(operation, timer(operation, "success"));
+        }
+        this.optimisticConflicts = conflicts("optimistic");
+        this.pessimisticConflicts = conflicts("pessimistic");
+        this.retriesExhausted = Counter.builder("ewallet.transaction.retries.exhausted")
+                .description("Transactions that still conflicted after the last retry")
+                .register(registry);
+        this.insufficientBalance = Counter.builder("ewallet.transfers.rejected")
+                .description("Transfers rejected by a balance check")
+                .tag("reason", "insufficient_balance")
+                .register(registry);
+        this.historyRows = DistributionSummary.builder("ewallet.wallet.history.rows")
+                .description("Rows returned per transaction history page")
+                .baseUnit("rows")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(500.0)
+                .register(registry);
+    }
+
+    public <T> T record(Operation operation, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            T result = work.get();
+            successes.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException ex) {
+            timer(operation, outcomeOf(ex)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    // Times until the returned future completes, not until this method returns
+    public <T> CompletableFuture<T> recordAsync(Operation operation, Supplier<CompletableFuture<T>> work) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = work.get();
+        } catch (RuntimeException ex) {
+            timer(operation, outcomeOf(ex)).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+        return future.whenComplete((result, failure) -> {
+            Timer timer = failure == null ? successes.get(operation) : timer(operation, outcomeOf(failure));
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    public void conflict(RuntimeException ex) {
+        (ex instanceof PessimisticLockingFailureException ? pessimisticConflicts : optimisticConflicts).increment();
+    }
+
+    public void retriesExhausted() {
+        retriesExhausted.increment();
+    }
+
+    public void insufficientBalance() {
+        insufficientBalance.increment();
+    }
+
+    public void historyRows(int rows) {
+        historyRows.record(rows);
+    }
+
+    private Timer timer(Operation operation, String outcome) {
+        return Timer.builder(TIMER)
+                .description("Latency of wallet and auth operations by outcome")
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+
+    private Counter conflicts(String lock) {
+        return Counter.builder("ewallet.transaction.conflicts")
+                .description("Transaction attempts that hit a lock conflict, retried or not")
+                .tag("lock", lock)
+                .register(registry);
+    }
+
+    private static String outcomeOf(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof IllegalArgumentException) {
+            return "rejected";
+        }
+        if (cause instanceof EntityNotFoundException) {
+            return "not_found";
+        }
+        if (cause instanceof OptimisticLockingFailureException || cause instanceof PessimisticLockingFailureException) {
+            return "conflict";
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return "overloaded";
+        }
+        return "error";
+    }
+}
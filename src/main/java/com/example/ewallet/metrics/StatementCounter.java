@@ -0,0 +1,32 @@
+package com.example.ewallet.metrics;
+
+/**
+ * Counts the JDBC statements prepared on the current thread between
+ * {@link #begin()} and {@link #end()}, whether by Hibernate or by a
+ * {@code JdbcTemplate}. {@link com.example.ewallet.jdbc.StatementCountingDataSource}
+ * reports each one; outside such a scope that only reads a thread-local.
+ */
+public final class StatementCounter {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    private StatementCounter() {
+    }
+
+    public static void begin() {
+        COUNT.set(new int[1]);
+    }
+
+    public static int end() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    public static void increment() {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ewallet.outbox;
+
+import com.example.ewallet.config.OutboxProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Keeps the most recent events in memory, for tests and local inspection.
+ */
+@Component
+@ConditionalOnProperty(name = "ewallet.outbox.sinks.memory.enabled", havingValue = "true")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final int capacity;
+    private final ArrayDeque<OutboxMessage> messages = new ArrayDeque<>();
+
+    public InMemoryOutboxSink(OutboxProperties properties) {
+        this.capacity = properties.getSinks().getMemory().getCapacity();
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized void deliver(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            if (messages.size() == capacity) {
+                messages.removeFirst();
+            }
+            messages.addLast(message);
+        }
+    }
+
+    public synchronized List<OutboxMessage> messages() {
+        return List.copyOf(messages);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ewallet.outbox;
+
+import com.example.ewallet.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Payload of an outbox event: one side of a ledger entry as seen by the
+ * wallet it belongs to.
+ */
+public record LedgerEvent(Long walletId, TransactionType type, BigDecimal amount, BigDecimal balanceAfter,
+                          Long counterpartyWalletId, String reference, String description,
+                          LocalDateTime occurredAt) {
+}
@@ -0,0 +1,218 @@
+package com.example.ewallet.outbox;
+
+import com.example.ewallet.config.OutboxProperties;
+import com.example.ewallet.entity.OutboxEvent;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.OutboxEventRepository;
+import com.example.ewallet.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the outbox to every {@link OutboxSink} on a single background thread.
+ *
+ * <p>Events are read in id order, up to {@code batch-size} at a time. A partial
+ * batch is held back until its oldest event is {@code linger} old, so bursts go
+ * out in few deliveries. A batch is deleted in the same transaction that
+ * delivered it; if a sink or the commit fails, the batch is delivered again,
+ * which makes delivery at least once. Each step holds the dispatcher's row in
+ * {@code job_watermarks} locked, so only one node dispatches at a time. Ids
+ * come from pooled sequence blocks, so with several nodes writing, id order
+ * is not commit order and consumers must not rely on the order of delivery.
+ * With sharding, each pass takes one step on every shard, each under that
+ * shard's own lock.
+ *
+ * <p>With no sink configured the dispatcher does not run, so events are
+ * kept in the outbox rather than deleted undelivered.
+ */
+@Component
+@ConditionalOnProperty(name = "ewallet.outbox.enabled", havingValue = "true")
+public class OutboxDispatcher implements SmartLifecycle {
+
+    static final String JOB_NAME = "outbox-dispatcher";
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    // Ordered by how soon the dispatcher should look again
+    private enum Step { FULL_BATCH, LINGERING, PARTIAL_BATCH, IDLE }
+
+    private final OutboxEventRepository repository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final List<OutboxSink> sinks;
+    private final OutboxProperties properties;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter delivered;
+    private final Counter failures;
+    private final DistributionSummary batchSizes;
+    private final Timer deliveryTime;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    public OutboxDispatcher(OutboxEventRepository repository,
+                            JobWatermarkRepository watermarkRepository,
+                            ObjectProvider<OutboxSink> sinks,
+                            OutboxProperties properties,
+                            ShardRouter shardRouter,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry registry) {
+        this.repository = repository;
+        this.watermarkRepository = watermarkRepository;
+        this.sinks = sinks.orderedStream().toList();
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.delivered = Counter.builder("ewallet.outbox.delivered")
+                .description("Outbox events accepted by every sink")
+                .register(registry);
+        this.failures = Counter.builder("ewallet.outbox.failures")
+                .description("Outbox batches that failed and will be delivered again")
+                .register(registry);
+        this.batchSizes = DistributionSummary.builder("ewallet.outbox.batch.size")
+                .description("Events per delivered outbox batch")
+                .register(registry);
+        this.deliveryTime = Timer.builder("ewallet.outbox.delivery")
+                .description("Time for all sinks to accept one outbox batch")
+                .register(registry);
+        this.lag = Timer.builder("ewallet.outbox.lag")
+                .description("Age of the oldest event in each batch when it was delivered")
+                .register(registry);
+    }
+
+    /**
+     * Delivers everything currently in the outbox, ignoring {@code linger},
+     * and returns the number of events delivered.
+     */
+    public int drain() {
+        if (sinks.isEmpty()) {
+            return 0;
+        }
+        int total = 0;
+        int before;
+        do {
+            before = total;
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                total += shardRouter.onShard(shard, () -> step(true)).delivered;
+            }
+        } while (total > before);
+        return total;
+    }
+
+    // Commits are the only time new events can appear, so wake up instead of waiting for the next poll
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWalletChanged(WalletChangedEvent event) {
+        Thread current = worker;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (sinks.isEmpty()) {
+            log.warn("No outbox sink is configured (ewallet.outbox.sinks.*); events will stay in the outbox");
+            return;
+        }
+        // Created up front so the worker and drain() never race to insert it
+        shardRouter.onEachShard(shard -> transactionTemplate.executeWithoutResult(
+                status -> watermarkRepository.lockOrCreate(JOB_NAME)));
+        running = true;
+        worker = new Thread(this::run, "outbox-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread current = worker;
+        if (current != null) {
+            LockSupport.unpark(current);
+            try {
+                current.join(properties.getPollInterval().toMillis() + 5_000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        worker = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Step next = Step.IDLE;
+                for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                    Step step = shardRouter.onShard(shard, () -> step(false)).step;
+                    next = step.compareTo(next) < 0 ? step : next;
+                }
+                switch (next) {
+                    case FULL_BATCH -> {
+                        // More are waiting; go again straight away
+                    }
+                    case LINGERING -> LockSupport.parkNanos(properties.getLinger().toNanos());
+                    case PARTIAL_BATCH, IDLE -> LockSupport.parkNanos(properties.getPollInterval().toNanos());
+                }
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.warn("Outbox delivery failed; retrying in {}", properties.getRetryBackoff(), ex);
+                LockSupport.parkNanos(properties.getRetryBackoff().toNanos());
+            }
+        }
+    }
+
+    private StepResult step(boolean ignoreLinger) {
+        return transactionTemplate.execute(status -> {
+            watermarkRepository.lockOrCreate(JOB_NAME);
+            int batchSize = properties.getBatchSize();
+            List<OutboxEvent> events = repository.findOldest(Limit.of(batchSize));
+            if (events.isEmpty()) {
+                return new StepResult(Step.IDLE, 0);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime oldest = events.get(0).getCreatedAt();
+            if (!ignoreLinger && events.size() < batchSize && oldest.isAfter(now.minus(properties.getLinger()))) {
+                return new StepResult(Step.LINGERING, 0);
+            }
+
+            List<OutboxMessage> batch = events.stream().map(OutboxMessage::of).toList();
+            deliveryTime.record(() -> sinks.forEach(sink -> sink.deliver(batch)));
+            repository.deleteAllByIdInBatch(batch.stream().map(OutboxMessage::id).toList());
+
+            delivered.increment(batch.size());
+            batchSizes.record(batch.size());
+            lag.record(Duration.between(oldest, now));
+            return new StepResult(batch.size() == batchSize ? Step.FULL_BATCH : Step.PARTIAL_BATCH, batch.size());
+        });
+    }
+
+    private record StepResult(Step step, int delivered) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ewallet.outbox;
+
+import com.example.ewallet.entity.OutboxEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox event as handed to sinks. {@code payload} is the JSON form of a
+ * {@link LedgerEvent}. Delivery is at least once, so consumers should
+ * deduplicate on {@code id}. Delivery is also unordered: ids come from
+ * pooled sequence blocks, so with several nodes writing, id order is not the
+ * order in which changes committed, not even for one wallet.
+ */
+public record OutboxMessage(Long id, Long walletId, Long walletVersion, String eventType,
+                            @JsonRawValue String payload, LocalDateTime createdAt) {
+
+    static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getWalletId(), event.getWalletVersion(), event.getEventType(),
+                event.getPayload(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ewallet.outbox;
+
+import java.util.List;
+
+/**
+ * Destination for outbox events. A batch is only removed from the outbox once
+ * every sink has returned normally; if any sink throws, the whole batch is
+ * delivered again later, to every sink.
+ */
+public interface OutboxSink {
+
+    String name();
+
+    void deliver(List<OutboxMessage> batch);
+}
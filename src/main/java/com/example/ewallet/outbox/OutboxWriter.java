@@ -0,0 +1,72 @@
+package com.example.ewallet.outbox;
+
+import com.example.ewallet.config.OutboxProperties;
+import com.example.ewallet.entity.OutboxEvent;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends one outbox event per wallet affected by each ledger entry, inside
+ * the caller's transaction, so events exist exactly when the change commits.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxEventRepository repository;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public OutboxWriter(OutboxEventRepository repository, OutboxProperties properties, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param wallets every wallet the entries touch, including counterparties
+     *                of compact transfer rows
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<WalletTransaction> entries, Collection<Wallet> wallets) {
+        if (!properties.isEnabled() || entries.isEmpty()) {
+            return;
+        }
+        Map<Long, Wallet> byId = new HashMap<>();
+        for (Wallet wallet : wallets) {
+            byId.put(wallet.getId(), wallet);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(entries.size());
+        for (WalletTransaction tx : entries) {
+            Long walletId = tx.getWallet().getId();
+            events.add(event(byId.get(walletId), new LedgerEvent(walletId, tx.getType(), tx.getAmount(),
+                    tx.getBalanceAfter(), tx.getCounterpartyWalletId(), tx.getReference(), tx.getDescription(), now)));
+            if (tx.getCounterpartyWalletId() != null) {
+                Long payeeId = tx.getCounterpartyWalletId();
+                events.add(event(byId.get(payeeId), new LedgerEvent(payeeId, TransactionType.TRANSFER_CREDIT,
+                        tx.getAmount(), tx.getCounterpartyBalanceAfter(), walletId, tx.getReference(),
+                        tx.getDescription(), now)));
+            }
+        }
+        repository.saveAll(events);
+    }
+
+    private OutboxEvent event(Wallet wallet, LedgerEvent payload) {
+        return new OutboxEvent(wallet.getId(), wallet.getVersion(), payload.type().name(),
+                objectMapper.writeValueAsString(payload));
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.ewallet.reconciliation;
+
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.service.Money;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the wallets in one id range against their ledger rows, in whatever
+ * transaction the caller has open.
+ *
+ * <p>A wallet's movements come from two cursors ordered by wallet and then
+ * {@code (createdAt, id)}: the rows it owns, and compact transfer rows that
+ * credit it as the counterparty, each over both the archive and the hot
+ * ledger. They are merged per wallet, summed in minor
+ * units, and each recorded balance after is compared with the running sum.
+ * Striped wallets are only checked in total: credits land in their stripes
+ * without the wallet lock, so their rows are not written in balance order.
+ */
+final class LedgerRangeVerifier {
+
+    private static final String WALLETS_SQL =
+            "select id, balance from wallets where id between ? and ? order by id";
+
+    private static final String STRIPES_SQL =
+            "select wallet_id, sum(balance) from wallet_balance_stripes where wallet_id between ? and ? "
+                    + "group by wallet_id";
+
+    // Each movement query reads the archive and the hot ledger as one
+    private static final String OWN_ROWS_SQL =
+            "select wallet_id, created_at, id, type, amount, balance_after from ("
+                    + "select wallet_id, created_at, id, type, amount, balance_after from wallet_transactions_archive "
+                    + "where wallet_id between ? and ? "
+                    + "union all "
+                    + "select wallet_id, created_at, id, type, amount, balance_after from wallet_transactions "
+                    + "where wallet_id between ? and ?) "
+                    + "order by wallet_id, created_at, id";
+
+    private static final String CREDIT_ROWS_SQL =
+            "select counterparty_wallet_id, created_at, id, 'TRANSFER_CREDIT', amount, counterparty_balance_after "
+                    + "from ("
+                    + "select counterparty_wallet_id, created_at, id, amount, counterparty_balance_after "
+                    + "from wallet_transactions_archive where counterparty_wallet_id between ? and ? "
+                    + "union all "
+                    + "select counterparty_wallet_id, created_at, id, amount, counterparty_balance_after "
+                    + "from wallet_transactions where counterparty_wallet_id between ? and ?) "
+                    + "order by counterparty_wallet_id, created_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<Long> stripedWalletIds;
+    private final int fetchSize;
+
+    LedgerRangeVerifier(JdbcTemplate jdbcTemplate, Set<Long> stripedWalletIds, int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripedWalletIds = stripedWalletIds;
+        this.fetchSize = fetchSize;
+    }
+
+    Result verify(long fromWalletId, long toWalletId) {
+        return jdbcTemplate.execute((ConnectionCallback<Result>) connection ->
+                verify(connection, fromWalletId, toWalletId));
+    }
+
+    private Result verify(Connection connection, long fromWalletId, long toWalletId) throws SQLException {
+        Map<Long, Long> stripes = new HashMap<>();
+        try (PreparedStatement statement = prepare(connection, STRIPES_SQL, fromWalletId, toWalletId);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                stripes.put(rs.getLong(1), Money.toMinor(rs.getBigDecimal(2)));
+            }
+        }
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        int wallets = 0;
+        long transactions = 0;
+        try (PreparedStatement walletStatement = prepare(connection, WALLETS_SQL, fromWalletId, toWalletId);
+             ResultSet walletRows = walletStatement.executeQuery();
+             PreparedStatement ownStatement = prepare(connection, OWN_ROWS_SQL, fromWalletId, toWalletId);
+             PreparedStatement creditStatement = prepare(connection, CREDIT_ROWS_SQL, fromWalletId, toWalletId);
+             Cursor own = new Cursor(ownStatement.executeQuery());
+             Cursor credits = new Cursor(creditStatement.executeQuery())) {
+            while (walletRows.next()) {
+                long walletId = walletRows.getLong(1);
+                long stored = Math.addExact(Money.toMinor(walletRows.getBigDecimal(2)),
+                        stripes.getOrDefault(walletId, 0L));
+                boolean checkChain = !stripedWalletIds.contains(walletId) && !stripes.containsKey(walletId);
+                // Rows of wallets that no longer exist are passed over
+                own.skipBefore(walletId);
+                credits.skipBefore(walletId);
+
+                long running = 0;
+                long count = 0;
+                Long divergentId = null;
+                long expected = 0;
+                long recorded = 0;
+                while (own.walletId == walletId || credits.walletId == walletId) {
+                    Cursor next = credits.walletId != walletId || (own.walletId == walletId && own.isBefore(credits))
+                            ? own
+                            : credits;
+                    running = Math.addExact(running, next.signedAmount);
+                    count++;
+                    if (divergentId == null && checkChain && next.hasBalanceAfter && next.balanceAfter != running) {
+                        divergentId = next.id;
+                        expected = running;
+                        recorded = next.balanceAfter;
+                    }
+                    next.advance();
+                }
+                wallets++;
+                transactions += count;
+                if (divergentId != null || running != stored) {
+                    discrepancies.add(new Discrepancy(walletId, stored, running, count, divergentId, expected,
+                            recorded));
+                }
+            }
+        }
+        return new Result(wallets, transactions, discrepancies);
+    }
+
+    private PreparedStatement prepare(Connection connection, String sql, long from, long to) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        for (int index = 1; index <= statement.getParameterMetaData().getParameterCount(); index += 2) {
+            statement.setLong(index, from);
+            statement.setLong(index + 1, to);
+        }
+        return statement;
+    }
+
+    record Result(int wallets, long transactions, List<Discrepancy> discrepancies) {
+    }
+
+    /**
+     * Balances in minor units. {@code divergentTransactionId} is null when
+     * every recorded balance after followed from the rows before it.
+     */
+    record Discrepancy(long walletId, long storedBalance, long ledgerBalance, long transactionCount,
+                       Long divergentTransactionId, long expectedBalanceAfter, long recordedBalanceAfter) {
+    }
+
+    // The current row of one ordered movement query; walletId is Long.MAX_VALUE once it is exhausted
+    private static final class Cursor implements AutoCloseable {
+
+        private final ResultSet rs;
+        private long walletId;
+        private LocalDateTime createdAt;
+        private long id;
+        private long signedAmount;
+        private boolean hasBalanceAfter;
+        private long balanceAfter;
+
+        Cursor(ResultSet rs) throws SQLException {
+            this.rs = rs;
+            advance();
+        }
+
+        void advance() throws SQLException {
+            if (!rs.next()) {
+                walletId = Long.MAX_VALUE;
+                return;
+            }
+            walletId = rs.getLong(1);
+            createdAt = rs.getObject(2, LocalDateTime.class);
+            id = rs.getLong(3);
+            long amount = Money.toMinor(rs.getBigDecimal(5));
+            signedAmount = TransactionType.valueOf(rs.getString(4)).isCredit() ? amount : -amount;
+            BigDecimal after = rs.getBigDecimal(6);
+            hasBalanceAfter = after != null;
+            balanceAfter = after != null ? Money.toMinor(after) : 0;
+        }
+
+        void skipBefore(long wallet) throws SQLException {
+            while (walletId < wallet) {
+                advance();
+            }
+        }
+
+        boolean isBefore(Cursor other) {
+            int byTime = createdAt.compareTo(other.createdAt);
+            return byTime < 0 || (byTime == 0 && id < other.id);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            rs.close();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.ewallet.reconciliation;
+
+import com.example.ewallet.config.ReconciliationProperties;
+import com.example.ewallet.config.StripingProperties;
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.entity.ReconciliationMismatch;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.ReconciliationMismatchRepository;
+import com.example.ewallet.repository.WalletBalanceStripeRepository;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.service.Money;
+import com.example.ewallet.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies that every wallet's stored balance equals the sum of its ledger
+ * rows and that the rows' recorded balances follow from one another, and
+ * records a {@link ReconciliationMismatch} for each wallet where they do not.
+ *
+ * <p>Each shard's wallets are cut into {@code range-size} id ranges that
+ * worker threads verify in parallel, each in one read-only repeatable-read
+ * transaction, so the balances and ledger rows it sees are consistent without
+ * taking a lock. Only wallets that fail that check are looked at again with
+ * the wallet row locked, one at a time, before anything is recorded.
+ *
+ * <p>Progress is kept in the shard's {@code reconciliation} watermark: its
+ * {@code lastCreatedAt} is when the run started and its {@code lastId} the
+ * highest wallet id below which every range is done. A run that is
+ * interrupted resumes from there, under the same start time; a finished run
+ * resets the watermark so the next one starts over.
+ */
+@Service
+public class LedgerReconciler {
+
+    static final String JOB_NAME = "reconciliation";
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerReconciler.class);
+
+    private final ReconciliationProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final WalletRepository walletRepository;
+    private final WalletBalanceStripeRepository stripeRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final ShardRouter shardRouter;
+    private final LedgerRangeVerifier verifier;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotReadTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int workers;
+    private final Counter mismatches;
+
+    public LedgerReconciler(ReconciliationProperties properties,
+                            StripingProperties stripingProperties,
+                            JdbcTemplate jdbcTemplate,
+                            WalletRepository walletRepository,
+                            WalletBalanceStripeRepository stripeRepository,
+                            ReconciliationMismatchRepository mismatchRepository,
+                            JobWatermarkRepository watermarkRepository,
+                            ShardRouter shardRouter,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry registry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.walletRepository = walletRepository;
+        this.stripeRepository = stripeRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.shardRouter = shardRouter;
+        this.verifier = new LedgerRangeVerifier(jdbcTemplate, stripingProperties.getWalletIds(),
+                properties.getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotReadTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotReadTemplate.setReadOnly(true);
+        this.snapshotReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.workers = properties.getWorkers() > 0
+                ? properties.getWorkers()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("reconciliation-"));
+        this.mismatches = Counter.builder("ewallet.reconciliation.mismatches")
+                .description("Wallets whose balance does not match their ledger")
+                .register(registry);
+    }
+
+    @Scheduled(cron = "${ewallet.reconciliation.cron:0 0 2 * * *}")
+    public void nightly() {
+        if (properties.isEnabled()) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Runs, or resumes, reconciliation on every shard. The counts cover the
+     * ranges verified by this call.
+     */
+    public synchronized ReconciliationReport reconcile() {
+        long started = System.nanoTime();
+        ReconciliationReport[] total = {ReconciliationReport.EMPTY};
+        shardRouter.onEachShard(shard -> total[0] = total[0].plus(reconcileShard(shard)));
+        ReconciliationReport report = total[0];
+        log.info("Reconciled {} wallets and {} ledger rows in {} ms; {} mismatched",
+                report.wallets(), report.transactions(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), report.mismatches());
+        return report;
+    }
+
+    private ReconciliationReport reconcileShard(int shard) {
+        JobWatermark checkpoint = transactionTemplate.execute(status -> {
+            JobWatermark watermark = watermarkRepository.lockOrCreate(JOB_NAME);
+            if (watermark.getLastCreatedAt().equals(JobWatermark.ORIGIN)) {
+                watermark.advanceTo(LocalDateTime.now(), 0L);
+            }
+            return watermark;
+        });
+        LocalDateTime runStartedAt = checkpoint.getLastCreatedAt();
+        Long[] bounds = snapshotReadTemplate.execute(status -> jdbcTemplate.queryForObject(
+                "select min(id), max(id) from wallets",
+                (rs, rowNum) -> new Long[] {rs.getObject(1, Long.class), rs.getObject(2, Long.class)}));
+        if (checkpoint.getLastId() > 0) {
+            log.info("Resuming reconciliation of shard {} started at {} after wallet {}",
+                    shard, runStartedAt, checkpoint.getLastId());
+        }
+
+        ReconciliationReport report = ReconciliationReport.EMPTY;
+        if (bounds != null && bounds[0] != null) {
+            report = verifyRanges(shard, runStartedAt, Math.max(bounds[0], checkpoint.getLastId() + 1), bounds[1]);
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                watermarkRepository.lockOrCreate(JOB_NAME).advanceTo(JobWatermark.ORIGIN, 0L));
+        return report;
+    }
+
+    // Keeps a few ranges per worker in flight and checkpoints as the oldest completes
+    private ReconciliationReport verifyRanges(int shard, LocalDateTime runStartedAt, long first, long last) {
+        Deque<Future<ReconciliationReport>> inFlight = new ArrayDeque<>();
+        Deque<Long> rangeEnds = new ArrayDeque<>();
+        ReconciliationReport report = ReconciliationReport.EMPTY;
+        long next = first;
+        try {
+            while (next <= last || !inFlight.isEmpty()) {
+                while (next <= last && inFlight.size() < workers * 4) {
+                    long from = next;
+                    long to = Math.min(last, from + properties.getRangeSize() - 1);
+                    inFlight.add(executor.submit(() -> shardRouter.onShard(shard,
+                            () -> verifyRange(runStartedAt, from, to))));
+                    rangeEnds.add(to);
+                    next = to + 1;
+                }
+                report = report.plus(inFlight.peekFirst().get());
+                inFlight.removeFirst();
+                long done = rangeEnds.removeFirst();
+                transactionTemplate.executeWithoutResult(status ->
+                        watermarkRepository.lockOrCreate(JOB_NAME).advanceTo(runStartedAt, done));
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            inFlight.forEach(range -> range.cancel(true));
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Reconciliation of shard " + shard + " stopped; it will resume from "
+                    + "its checkpoint", ex.getCause() != null ? ex.getCause() : ex);
+        }
+        return report;
+    }
+
+    private ReconciliationReport verifyRange(LocalDateTime runStartedAt, long from, long to) {
+        LedgerRangeVerifier.Result result = snapshotReadTemplate.execute(status -> verifier.verify(from, to));
+        List<ReconciliationMismatch> confirmed = new ArrayList<>();
+        for (LedgerRangeVerifier.Discrepancy suspect : result.discrepancies()) {
+            LedgerRangeVerifier.Discrepancy discrepancy = transactionTemplate.execute(status -> recheck(suspect));
+            if (discrepancy != null) {
+                confirmed.add(toMismatch(runStartedAt, discrepancy));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            mismatchRepository.deleteRange(runStartedAt, from, to);
+            mismatchRepository.saveAll(confirmed);
+        });
+        for (ReconciliationMismatch mismatch : confirmed) {
+            log.warn("Wallet {} balance {} does not match its ledger {} over {} rows; first divergent row {}",
+                    mismatch.getWalletId(), mismatch.getStoredBalance(), mismatch.getLedgerBalance(),
+                    mismatch.getTransactionCount(), mismatch.getDivergentTransactionId());
+        }
+        mismatches.increment(confirmed.size());
+        return new ReconciliationReport(result.wallets(), result.transactions(), confirmed.size());
+    }
+
+    // With the wallet and its stripes locked nothing can be in flight for it, so what is left is real
+    private LedgerRangeVerifier.Discrepancy recheck(LedgerRangeVerifier.Discrepancy suspect) {
+        if (walletRepository.findByIdForUpdate(suspect.walletId()).isEmpty()) {
+            return null;
+        }
+        stripeRepository.findAllByWalletIdForUpdate(suspect.walletId());
+        List<LedgerRangeVerifier.Discrepancy> again =
+                verifier.verify(suspect.walletId(), suspect.walletId()).discrepancies();
+        return again.isEmpty() ? null : again.get(0);
+    }
+
+    private static ReconciliationMismatch toMismatch(LocalDateTime runStartedAt,
+                                                     LedgerRangeVerifier.Discrepancy discrepancy) {
+        ReconciliationMismatch mismatch = new ReconciliationMismatch(runStartedAt, discrepancy.walletId(),
+                Money.toDecimal(discrepancy.storedBalance()), Money.toDecimal(discrepancy.ledgerBalance()),
+                discrepancy.transactionCount());
+        if (discrepancy.divergentTransactionId() != null) {
+            mismatch.divergedAt(discrepancy.divergentTransactionId(),
+                    Money.toDecimal(discrepancy.expectedBalanceAfter()),
+                    Money.toDecimal(discrepancy.recordedBalanceAfter()));
+        }
+        return mismatch;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ewallet.reconciliation;
+
+/**
+ * What a reconciliation call verified. The mismatches themselves are in
+ * {@code reconciliation_mismatches}.
+ */
+public record ReconciliationReport(long wallets, long transactions, long mismatches) {
+
+    static final ReconciliationReport EMPTY = new ReconciliationReport(0, 0, 0);
+
+    ReconciliationReport plus(ReconciliationReport other) {
+        return new ReconciliationReport(wallets + other.wallets, transactions + other.transactions,
+                mismatches + other.mismatches);
+    }
+}
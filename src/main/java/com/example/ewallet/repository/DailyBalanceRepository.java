@@ -0,0 +1,40 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.DailyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyBalanceRepository extends JpaRepository<DailyBalance, Long> {
+
+    Optional<DailyBalance> findTopByWalletIdOrderByBalanceDateDesc(Long walletId);
+
+    Optional<DailyBalance> findTopByWalletIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(Long walletId,
+                                                                                            LocalDate date);
+
+    List<DailyBalance> findByWalletIdAndBalanceDateBetweenOrderByBalanceDate(Long walletId,
+                                                                           LocalDate from,
+                                                                           LocalDate to);
+
+    List<DailyBalance> findByBalanceDate(LocalDate balanceDate);
+
+    @Query("select coalesce(sum(d.transactionCount), 0) from DailyBalance d where d.balanceDate = :date")
+    long sumTransactionCount(@Param("date") LocalDate date);
+
+    // Carries a restated day's change in closing balance through the wallet's later days
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DailyBalance d set d.openingBalance = d.openingBalance + :delta, "
+            + "d.closingBalance = d.closingBalance + :delta where d.walletId = :walletId and d.balanceDate > :date")
+    int shiftAfter(@Param("walletId") Long walletId, @Param("date") LocalDate date, @Param("delta") BigDecimal delta);
+
+    @Query("select d from DailyBalance d where d.walletId in :walletIds and d.balanceDate = "
+            + "(select max(l.balanceDate) from DailyBalance l where l.walletId = d.walletId)")
+    List<DailyBalance> findLatestByWalletIdIn(@Param("walletIds") Collection<Long> walletIds);
+}
@@ -0,0 +1,83 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.shard.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves databases created while ids were IDENTITY columns onto the pooled
+ * sequences. The id columns were created as {@code generated by default as
+ * identity}, so they accept the explicit ids Hibernate now supplies; all that
+ * is left is to start each sequence past the highest id already in its table.
+ *
+ * <p>With sharding enabled it also starts every sequence on shard {@code n}
+ * at {@link ShardRouter#firstId(int)} or later, which is what lets a wallet
+ * id name its shard.
+ *
+ * <p>Runs once at startup, after the schema update has created the sequences
+ * and before anything is inserted. Every step is a no-op on an up-to-date
+ * database, so it can stay enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "ewallet.ids.align-sequences", havingValue = "true", matchIfMissing = true)
+public class IdSequenceMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "wallets", "wallets_seq",
+            "wallet_transactions", "wallet_transactions_seq",
+            // Archived rows keep their ids, so the sequence must also pass them
+            "wallet_transactions_archive", "wallet_transactions_seq",
+            "users", "users_seq",
+            "outbox_events", "outbox_events_seq",
+            "wallet_daily_balances", "wallet_daily_balances_seq",
+            "shard_transfers", "shard_transfers_seq",
+            "wallet_balance_stripes", "wallet_balance_stripes_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+    private final ShardRouter shardRouter;
+
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate,
+                               EntityManagerFactory entityManagerFactory,
+                               ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.shardRouter = shardRouter;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        shardRouter.onEachShard(shard -> SEQUENCES.forEach((table, sequence) -> align(shard, table, sequence)));
+    }
+
+    private void align(int shard, String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+        long floor = ShardRouter.firstId(shard);
+        if ((maxId == null || maxId == 0) && floor == 0) {
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        // The pooled optimizer hands out the block ending at the value it reads,
+        // so the first value read must be a full block past the existing ids
+        long required = Math.max(maxId == null ? 0 : maxId, floor) + ALLOCATION_SIZE;
+        if (next != null && next >= required) {
+            return;
+        }
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + required);
+        log.info("Restarted {} on shard {} at {} to follow the ids in {}", sequence, shard, required, table);
+    }
+}
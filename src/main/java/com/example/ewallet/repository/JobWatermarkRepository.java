@@ -0,0 +1,22 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.JobWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+
+    // Held for the length of a job step so that only one node advances a watermark at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from JobWatermark w where w.name = :name")
+    Optional<JobWatermark> findByNameForUpdate(@Param("name") String name);
+
+    default JobWatermark lockOrCreate(String name) {
+        return findByNameForUpdate(name).orElseGet(() -> saveAndFlush(new JobWatermark(name)));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.LedgerExportGap;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerExportGapRepository extends JpaRepository<LedgerExportGap, Long> {
+
+    @Query("select g from LedgerExportGap g where g.firstId <= :id and g.lastId >= :id")
+    List<LedgerExportGap> findContaining(@Param("id") long id);
+
+    @Modifying
+    @Query("delete from LedgerExportGap g where g.recordedAt < :before")
+    int deleteRecordedBefore(@Param("before") LocalDateTime before);
+}
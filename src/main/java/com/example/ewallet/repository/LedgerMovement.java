@@ -0,0 +1,34 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The columns of a ledger row that balance roll-ups need. A compact transfer
+ * row moves money for two wallets; {@link #sides()} splits it into both.
+ */
+public record LedgerMovement(Long id, Long walletId, TransactionType type, BigDecimal amount, LocalDateTime createdAt,
+                             Long counterpartyWalletId) {
+
+    public BigDecimal signedAmount() {
+        return type.isCredit() ? amount : amount.negate();
+    }
+
+    /**
+     * This row as it affects {@code wallet}, which must be either its own
+     * wallet or its counterparty.
+     */
+    public LedgerMovement asSeenBy(Long wallet) {
+        if (wallet.equals(walletId)) {
+            return this;
+        }
+        return new LedgerMovement(id, counterpartyWalletId, TransactionType.TRANSFER_CREDIT, amount, createdAt, walletId);
+    }
+
+    public List<LedgerMovement> sides() {
+        return counterpartyWalletId == null ? List.of(this) : List.of(this, asSeenBy(counterpartyWalletId));
+    }
+}
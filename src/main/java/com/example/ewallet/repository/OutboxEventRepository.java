@@ -0,0 +1,14 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.OutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("select e from OutboxEvent e order by e.id")
+    List<OutboxEvent> findOldest(Limit limit);
+}
@@ -0,0 +1,23 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.ReconciliationMismatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReconciliationMismatchRepository extends JpaRepository<ReconciliationMismatch, Long> {
+
+    List<ReconciliationMismatch> findByRunStartedAtOrderByWalletId(LocalDateTime runStartedAt);
+
+    // Clears what an interrupted attempt at the same range already recorded
+    @Modifying
+    @Query("delete from ReconciliationMismatch m where m.runStartedAt = :runStartedAt "
+            + "and m.walletId between :fromWalletId and :toWalletId")
+    int deleteRange(@Param("runStartedAt") LocalDateTime runStartedAt,
+                    @Param("fromWalletId") Long fromWalletId,
+                    @Param("toWalletId") Long toWalletId);
+}
@@ -0,0 +1,24 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.ShardTransfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ShardTransferRepository extends JpaRepository<ShardTransfer, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from ShardTransfer t where t.reference = :reference")
+    Optional<ShardTransfer> findByReferenceForUpdate(@Param("reference") String reference);
+
+    List<ShardTransfer> findByStatusAndUpdatedAtBeforeOrderByUpdatedAt(ShardTransfer.Status status,
+                                                                        LocalDateTime before,
+                                                                        Limit limit);
+}
@@ -1,6 +1,7 @@
 package com.example.ewallet.repository;
 
 import com.example.ewallet.entity.UserAccount;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
@@ -9,6 +10,9 @@ public interface UserRepository extends JpaRepository<UserAccount, Long> {
 
     Optional<UserAccount> findByUsername(String username);
 
+    @EntityGraph(attributePaths = "wallet")
+    Optional<UserAccount> findWithWalletByUsername(String username);
+
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
@@ -0,0 +1,25 @@
+package com.example.ewallet.repository;
+
+import com.example.ewallet.entity.WalletBalanceStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface WalletBalanceStripeRepository extends JpaRepository<WalletBalanceStripe, Long> {
+
+    // Adds in place, holding only this stripe's row lock; returns 0 if the stripe does not exist
+    @Modifying
+    @Query("update WalletBalanceStripe s set s.balance = s.balance + :amount "
+            + "where s.walletId = :walletId and s.stripe = :stripe")
+    int credit(@Param("walletId") Long walletId, @Param("stripe") int stripe, @Param("amount") BigDecimal amount);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from WalletBalanceStripe s where s.walletId = :walletId order by s.stripe")
+    List<WalletBalanceStripe> findAllByWalletIdForUpdate(@Param("walletId") Long walletId);
+}
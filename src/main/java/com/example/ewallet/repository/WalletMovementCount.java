@@ -0,0 +1,7 @@
+package com.example.ewallet.repository;
+
+/**
+ * How many ledger movements a wallet has in some range.
+ */
+public record WalletMovementCount(Long walletId, long count) {
+}
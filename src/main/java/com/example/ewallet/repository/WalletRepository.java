@@ -1,7 +1,34 @@
 package com.example.ewallet.repository;
 
+import com.example.ewallet.cache.WalletSnapshot;
 import com.example.ewallet.entity.Wallet;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface WalletRepository extends JpaRepository<Wallet, Long> {
+
+    @Query("select new com.example.ewallet.cache.WalletSnapshot(w.id, w.version, w.ownerName, w.balance, "
+            + "w.createdAt, w.updatedAt, w.reference) from Wallet w where w.id = :id")
+    Optional<WalletSnapshot> findSnapshotById(@Param("id") Long id);
+
+    // Row and stripes in one statement, so a consolidation committing in between cannot hide the stripes' credits
+    @Query("select new com.example.ewallet.cache.WalletSnapshot(w.id, w.version, w.ownerName, "
+            + "w.balance + coalesce((select sum(s.balance) from WalletBalanceStripe s where s.walletId = w.id), 0), "
+            + "w.createdAt, w.updatedAt, w.reference) from Wallet w where w.id = :id")
+    Optional<WalletSnapshot> findStripedSnapshotById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from Wallet w where w.id = :id")
+    Optional<Wallet> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from Wallet w where w.id in :ids order by w.id")
+    List<Wallet> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
@@ -1,12 +1,113 @@
 package com.example.ewallet.repository;
 
+import com.example.ewallet.dto.TransactionResponse;
 import com.example.ewallet.entity.WalletTransaction;
-import com.example.ewallet.entity.Wallet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
 
-    List<WalletTransaction> findByWalletOrderByCreatedAtDesc(Wallet wallet);
+    String RESPONSE_PROJECTION = "select new com.example.ewallet.dto.TransactionResponse(t.id, t.wallet.id, "
+            + "t.amount, t.type, t.createdAt, t.description, t.reference, t.balanceAfter) "
+            + "from WalletTransaction t ";
+
+    // The payee's view of a compact transfer row
+    String COUNTERPARTY_PROJECTION = "select new com.example.ewallet.dto.TransactionResponse(t.id, "
+            + "t.counterpartyWalletId, t.amount, com.example.ewallet.entity.TransactionType.TRANSFER_CREDIT, "
+            + "t.createdAt, t.description, t.reference, t.counterpartyBalanceAfter) "
+            + "from WalletTransaction t ";
+
+    String MOVEMENT_PROJECTION = "select new com.example.ewallet.repository.LedgerMovement(t.id, t.wallet.id, "
+            + "t.type, t.amount, t.createdAt, t.counterpartyWalletId) "
+            + "from WalletTransaction t ";
+
+    @Query(RESPONSE_PROJECTION + "where t.wallet.id = :walletId "
+            + "order by t.createdAt desc, t.id desc")
+    List<TransactionResponse> findLatest(@Param("walletId") Long walletId, Limit limit);
+
+    @Query(RESPONSE_PROJECTION + "where t.wallet.id = :walletId "
+            + "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id)) "
+            + "order by t.createdAt desc, t.id desc")
+    List<TransactionResponse> findBefore(@Param("walletId") Long walletId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE_PROJECTION + "where t.wallet.id = :walletId "
+            + "order by t.createdAt desc, t.id desc")
+    Stream<TransactionResponse> streamByWalletId(@Param("walletId") Long walletId);
+
+    @Query(COUNTERPARTY_PROJECTION + "where t.counterpartyWalletId = :walletId "
+            + "order by t.createdAt desc, t.id desc")
+    List<TransactionResponse> findLatestAsCounterparty(@Param("walletId") Long walletId, Limit limit);
+
+    @Query(COUNTERPARTY_PROJECTION + "where t.counterpartyWalletId = :walletId "
+            + "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id)) "
+            + "order by t.createdAt desc, t.id desc")
+    List<TransactionResponse> findBeforeAsCounterparty(@Param("walletId") Long walletId,
+                                                       @Param("createdAt") LocalDateTime createdAt,
+                                                       @Param("id") Long id,
+                                                       Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(COUNTERPARTY_PROJECTION + "where t.counterpartyWalletId = :walletId "
+            + "order by t.createdAt desc, t.id desc")
+    Stream<TransactionResponse> streamByCounterpartyWalletId(@Param("walletId") Long walletId);
+
+    @Query(MOVEMENT_PROJECTION
+            + "where (t.createdAt > :createdAt or (t.createdAt = :createdAt and t.id > :id)) "
+            + "and t.createdAt < :before "
+            + "order by t.createdAt, t.id")
+    List<LedgerMovement> findMovementsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            @Param("before") LocalDateTime before,
+                                            Limit limit);
+
+    @Query(MOVEMENT_PROJECTION + "where (t.wallet.id = :walletId or t.counterpartyWalletId = :walletId) "
+            + "and (t.createdAt > :createdAt or (t.createdAt = :createdAt and t.id > :id)) "
+            + "and t.createdAt < :before "
+            + "order by t.createdAt, t.id")
+    List<LedgerMovement> findWalletMovementsAfter(@Param("walletId") Long walletId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  @Param("before") LocalDateTime before);
+
+    // Ledger movements, counting both sides of compact rows, in [from, to) and at or before (createdAt, id)
+    @Query("select count(t) + count(t.counterpartyWalletId) from WalletTransaction t "
+            + "where t.createdAt >= :from and t.createdAt < :to "
+            + "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id <= :id))")
+    long countMovementsUpTo(@Param("from") LocalDateTime from,
+                            @Param("to") LocalDateTime to,
+                            @Param("createdAt") LocalDateTime createdAt,
+                            @Param("id") Long id);
+
+    @Query("select new com.example.ewallet.repository.WalletMovementCount(t.wallet.id, count(t)) from WalletTransaction t "
+            + "where t.createdAt >= :from and t.createdAt < :to "
+            + "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id <= :id)) "
+            + "group by t.wallet.id")
+    List<WalletMovementCount> countOwnMovementsUpTo(@Param("from") LocalDateTime from,
+                                                    @Param("to") LocalDateTime to,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id);
+
+    // The payee side of compact transfer rows, counted the same way
+    @Query("select new com.example.ewallet.repository.WalletMovementCount(t.counterpartyWalletId, count(t)) "
+            + "from WalletTransaction t where t.counterpartyWalletId is not null "
+            + "and t.createdAt >= :from and t.createdAt < :to "
+            + "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id <= :id)) "
+            + "group by t.counterpartyWalletId")
+    List<WalletMovementCount> countCounterpartyMovementsUpTo(@Param("from") LocalDateTime from,
+                                                             @Param("to") LocalDateTime to,
+                                                             @Param("createdAt") LocalDateTime createdAt,
+                                                             @Param("id") Long id);
 }
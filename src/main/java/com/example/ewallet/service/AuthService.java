@@ -5,41 +5,84 @@ import com.example.ewallet.dto.SignupRequest;
 import com.example.ewallet.dto.UserProfileResponse;
 import com.example.ewallet.entity.UserAccount;
 import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.metrics.OperationMetrics;
+import com.example.ewallet.metrics.OperationMetrics.Operation;
 import com.example.ewallet.repository.UserRepository;
 import com.example.ewallet.repository.WalletRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Password hashing and verification run on {@link PasswordHasher}'s pool and
+ * never inside a transaction: the database is touched in short transactions
+ * before and after the hash, so a login burst cannot pin pool connections
+ * for the ~100ms each bcrypt round costs. The write after a signup hash is
+ * handed to the application task executor, so hashing threads only hash.
+ */
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
     private final WalletRepository walletRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final OperationMetrics metrics;
+    private final Executor writeExecutor;
 
     public AuthService(UserRepository userRepository,
-                       WalletRepository walletRepository) {
+                       WalletRepository walletRepository,
+                       PasswordHasher passwordHasher,
+                       PlatformTransactionManager transactionManager,
+                       OperationMetrics metrics,
+                       @Qualifier("applicationTaskExecutor") Executor writeExecutor) {
         this.userRepository = userRepository;
         this.walletRepository = walletRepository;
+        this.passwordHasher = passwordHasher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.metrics = metrics;
+        this.writeExecutor = writeExecutor;
     }
 
-    @Transactional
-    public UserProfileResponse signup(SignupRequest request) {
-        if (userRepository.existsByUsername(request.getUsername())) {
-            throw new IllegalArgumentException("Username already taken");
-        }
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new IllegalArgumentException("Email already registered");
-        }
+    public CompletableFuture<UserProfileResponse> signup(SignupRequest request) {
+        return metrics.recordAsync(Operation.SIGNUP, () -> {
+            // Reject duplicates before spending CPU on the hash; createAccount checks again
+            checkAvailable(request);
+            return passwordHasher.encode(request.getPassword())
+                    .thenApplyAsync(hash -> transactionTemplate.execute(status -> createAccount(request, hash)),
+                            writeExecutor);
+        });
+    }
+
+    public CompletableFuture<UserProfileResponse> login(LoginRequest request) {
+        return metrics.recordAsync(Operation.LOGIN, () -> {
+            Credentials credentials = readOnlyTransactionTemplate.execute(status -> loadCredentials(request.getUsername()));
+            return passwordHasher.matches(request.getPassword(), credentials.passwordHash())
+                    .thenApply(matches -> {
+                        if (!matches) {
+                            throw new IllegalArgumentException("Invalid credentials");
+                        }
+                        return credentials.profile();
+                    });
+        });
+    }
+
+    private UserProfileResponse createAccount(SignupRequest request, String passwordHash) {
+        checkAvailable(request);
 
         UserAccount user = new UserAccount();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+        user.setPasswordHash(passwordHash);
 
         user = userRepository.save(user);
 
@@ -52,19 +95,22 @@ public class AuthService {
         return toProfileResponse(user, wallet);
     }
 
-    @Transactional(readOnly = true)
-    public UserProfileResponse login(LoginRequest request) {
-        UserAccount user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
-            throw new IllegalArgumentException("Invalid credentials");
+    private void checkAvailable(SignupRequest request) {
+        if (userRepository.existsByUsername(request.getUsername())) {
+            throw new IllegalArgumentException("Username already taken");
         }
+        if (userRepository.existsByEmail(request.getEmail())) {
+            throw new IllegalArgumentException("Email already registered");
+        }
+    }
 
-        Wallet wallet = walletRepository.findById(user.getWallet().getId())
-                .orElseThrow(() -> new EntityNotFoundException("Wallet not found for user"));
-
-        return toProfileResponse(user, wallet);
+    private Credentials loadCredentials(String username) {
+        UserAccount user = userRepository.findWithWalletByUsername(username)
+                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+        if (user.getWallet() == null) {
+            throw new EntityNotFoundException("Wallet not found for user");
+        }
+        return new Credentials(user.getPasswordHash(), toProfileResponse(user, user.getWallet()));
     }
 
     private UserProfileResponse toProfileResponse(UserAccount user, Wallet wallet) {
@@ -76,4 +122,7 @@ public class AuthService {
         resp.setWalletBalance(wallet.getBalance());
         return resp;
     }
+
+    private record Credentials(String passwordHash, UserProfileResponse profile) {
+    }
 }
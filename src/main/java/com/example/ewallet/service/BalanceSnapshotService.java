@@ -0,0 +1,378 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.BalanceSnapshotProperties;
+import com.example.ewallet.dto.BalanceAtResponse;
+import com.example.ewallet.dto.StatementDayResponse;
+import com.example.ewallet.dto.StatementResponse;
+import com.example.ewallet.entity.DailyBalance;
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.repository.ArchivedWalletTransactionRepository;
+import com.example.ewallet.repository.DailyBalanceRepository;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.LedgerMovement;
+import com.example.ewallet.repository.WalletMovementCount;
+import com.example.ewallet.repository.WalletTransactionRepository;
+import com.example.ewallet.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Rolls the ledger up into per-wallet, per-day {@link DailyBalance} rows and
+ * answers point-in-time balance and statement queries from them.
+ *
+ * <p>The roll-up walks {@code wallet_transactions} in {@code (createdAt, id)}
+ * order from a {@link JobWatermark}, one batch per transaction, so a run can
+ * stop anywhere and the next one carries on. Reads combine the day rows up to
+ * the watermark with the wallet's raw rows after it, so they are exact even
+ * while the roll-up lags behind. Each shard rolls up its own ledger under its
+ * own watermark. Rows are only archived once the roll-up has passed them, so
+ * the roll-up reads the hot ledger alone while wallet reads take in both.
+ *
+ * <p>The watermark moves on {@code createdAt}, which is set when a row is
+ * inserted, not when it commits. A transaction that commits more than the
+ * settle delay after its insert lands behind the watermark, where the batches
+ * never look again. After each roll-up, {@link #reapplyLateRows} re-scans the
+ * days within {@code late-row-window} of the watermark, restates the day rows
+ * of any wallet whose rows do not add up, and carries the change through that
+ * wallet's later days.
+ */
+@Service
+public class BalanceSnapshotService {
+
+    public static final String JOB_NAME = "daily-balances";
+
+    private static final int MAX_STATEMENT_DAYS = 366;
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotService.class);
+
+    private final WalletTransactionRepository transactionRepository;
+    private final ArchivedWalletTransactionRepository archivedTransactionRepository;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final WalletService walletService;
+    private final BalanceSnapshotProperties properties;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotReadTemplate;
+    private final Counter lateRows;
+
+    public BalanceSnapshotService(WalletTransactionRepository transactionRepository,
+                                  ArchivedWalletTransactionRepository archivedTransactionRepository,
+                                  DailyBalanceRepository dailyBalanceRepository,
+                                  JobWatermarkRepository watermarkRepository,
+                                  WalletService walletService,
+                                  BalanceSnapshotProperties properties,
+                                  ShardRouter shardRouter,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry registry) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.walletService = walletService;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Repeatable read keeps the watermark and the day rows from coming from different roll-up batches
+        this.snapshotReadTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotReadTemplate.setReadOnly(true);
+        this.snapshotReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.lateRows = Counter.builder("ewallet.snapshots.late.rows")
+                .description("Ledger rows that committed behind the daily-balance roll-up and were re-applied")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.snapshots.build-interval:PT1M}")
+    public void build() {
+        rollUp(LocalDateTime.now().minus(properties.getSettleDelay()));
+        reapplyLateRows();
+    }
+
+    /**
+     * Rolls up every ledger row created before {@code before} that is past the
+     * watermark, and returns how many rows that was.
+     */
+    public int rollUp(LocalDateTime before) {
+        int total = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            total += shardRouter.onShard(shard, () -> rollUpShard(before));
+        }
+        return total;
+    }
+
+    private int rollUpShard(LocalDateTime before) {
+        int total = 0;
+        int rolled;
+        do {
+            rolled = transactionTemplate.execute(status -> rollUpBatch(before));
+            total += rolled;
+        } while (rolled == properties.getBatchSize());
+        return total;
+    }
+
+    private int rollUpBatch(LocalDateTime before) {
+        JobWatermark watermark = watermarkRepository.lockOrCreate(JOB_NAME);
+        List<LedgerMovement> rows = transactionRepository.findMovementsAfter(
+                watermark.getLastCreatedAt(), watermark.getLastId(), before, Limit.of(properties.getBatchSize()));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<LedgerMovement> movements = rows.stream().flatMap(row -> row.sides().stream()).toList();
+        Set<Long> walletIds = movements.stream().map(LedgerMovement::walletId).collect(Collectors.toSet());
+        Map<Long, DailyBalance> latest = new HashMap<>();
+        for (DailyBalance day : dailyBalanceRepository.findLatestByWalletIdIn(walletIds)) {
+            latest.put(day.getWalletId(), day);
+        }
+
+        for (LedgerMovement row : movements) {
+            LocalDate date = row.createdAt().toLocalDate();
+            DailyBalance day = latest.get(row.walletId());
+            if (day == null || !day.getBalanceDate().equals(date)) {
+                BigDecimal opening = day == null ? BigDecimal.ZERO : day.getClosingBalance();
+                day = dailyBalanceRepository.save(new DailyBalance(row.walletId(), date, opening));
+                latest.put(row.walletId(), day);
+            }
+            day.apply(row.type(), row.amount());
+        }
+
+        LedgerMovement last = rows.get(rows.size() - 1);
+        watermark.advanceTo(last.createdAt(), last.id());
+        return rows.size();
+    }
+
+    /**
+     * Folds ledger rows that committed behind the watermark, on the days
+     * within {@code late-row-window} of it, into their day rows, and returns
+     * how many rows that was.
+     */
+    public long reapplyLateRows() {
+        long[] total = {0};
+        shardRouter.onEachShard(shard -> total[0] += transactionTemplate.execute(status -> reapplyLateRows(shard)));
+        return total[0];
+    }
+
+    private long reapplyLateRows(int shard) {
+        // Held throughout, so the roll-up cannot move the watermark or touch day rows meanwhile
+        JobWatermark watermark = watermarkRepository.lockOrCreate(JOB_NAME);
+        if (watermark.getLastCreatedAt().equals(JobWatermark.ORIGIN)) {
+            return 0;
+        }
+        LocalDate last = watermark.getLastCreatedAt().toLocalDate();
+        LocalDate first = watermark.getLastCreatedAt().minus(properties.getLateRowWindow()).toLocalDate();
+        long late = 0;
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            long reapplied = reapplyLateRows(day, watermark);
+            if (reapplied > 0) {
+                log.warn("Re-applied {} ledger rows dated {} on shard {} that committed behind the daily-balance "
+                        + "roll-up", reapplied, day, shard);
+                late += reapplied;
+            }
+        }
+        lateRows.increment(late);
+        return late;
+    }
+
+    private long reapplyLateRows(LocalDate day, JobWatermark watermark) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        LocalDateTime createdAt = watermark.getLastCreatedAt();
+        Long id = watermark.getLastId();
+        // The whole day first, so the usual case costs two counts
+        long ledger = transactionRepository.countMovementsUpTo(from, to, createdAt, id)
+                + archivedTransactionRepository.countMovementsUpTo(from, to, createdAt, id);
+        if (ledger == dailyBalanceRepository.sumTransactionCount(day)) {
+            return 0;
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (List<WalletMovementCount> part : List.of(
+                transactionRepository.countOwnMovementsUpTo(from, to, createdAt, id),
+                transactionRepository.countCounterpartyMovementsUpTo(from, to, createdAt, id),
+                archivedTransactionRepository.countOwnMovementsUpTo(from, to, createdAt, id),
+                archivedTransactionRepository.countCounterpartyMovementsUpTo(from, to, createdAt, id))) {
+            for (WalletMovementCount count : part) {
+                counts.merge(count.walletId(), count.count(), Long::sum);
+            }
+        }
+        for (DailyBalance row : dailyBalanceRepository.findByBalanceDate(day)) {
+            counts.computeIfPresent(row.getWalletId(),
+                    (walletId, count) -> count == row.getTransactionCount() ? null : count);
+        }
+        long late = 0;
+        for (Long walletId : counts.keySet()) {
+            late += restate(walletId, day, watermark);
+        }
+        return late;
+    }
+
+    // Recomputes one wallet's day row from the ledger up to the watermark; returns how many rows it gained
+    private long restate(Long walletId, LocalDate day, JobWatermark watermark) {
+        DailyBalance row = dailyBalanceRepository
+                .findTopByWalletIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(walletId, day)
+                .orElse(null);
+        if (row == null || !row.getBalanceDate().equals(day)) {
+            BigDecimal opening = row == null ? BigDecimal.ZERO : row.getClosingBalance();
+            row = dailyBalanceRepository.save(new DailyBalance(walletId, day, opening));
+        }
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        LocalDateTime before = watermark.getLastCreatedAt().isBefore(end)
+                ? watermark.getLastCreatedAt().plusNanos(1)
+                : end;
+        DayTotals totals = new DayTotals();
+        for (LedgerMovement movement : walletMovementsAfter(walletId, day.atStartOfDay(), 0L, before)) {
+            if (!movement.createdAt().equals(watermark.getLastCreatedAt()) || movement.id() <= watermark.getLastId()) {
+                totals.add(movement.asSeenBy(walletId));
+            }
+        }
+        BigDecimal closing = row.getClosingBalance();
+        long gained = totals.count - row.getTransactionCount();
+        row.restate(totals.credits, totals.debits, totals.count);
+        BigDecimal delta = row.getClosingBalance().subtract(closing);
+        if (delta.signum() != 0) {
+            dailyBalanceRepository.shiftAfter(walletId, day, delta);
+        }
+        return gained;
+    }
+
+    public BalanceAtResponse balanceAt(Long walletId, LocalDateTime at) {
+        return shardRouter.onWallet(walletId, () -> snapshotReadTemplate.execute(status -> {
+            walletService.requireWallet(walletId);
+            BigDecimal balance = balanceBefore(walletId, at.plusNanos(1), currentWatermark());
+            return new BalanceAtResponse(walletId, at, balance);
+        }));
+    }
+
+    public StatementResponse statement(Long walletId, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Statement end date is before its start date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_STATEMENT_DAYS) {
+            throw new IllegalArgumentException("Statement cannot cover more than " + MAX_STATEMENT_DAYS + " days");
+        }
+        return shardRouter.onWallet(walletId, () -> snapshotReadTemplate.execute(
+                status -> buildStatement(walletId, from, to)));
+    }
+
+    private StatementResponse buildStatement(Long walletId, LocalDate from, LocalDate to) {
+        walletService.requireWallet(walletId);
+
+        JobWatermark watermark = currentWatermark();
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        BigDecimal opening = balanceBefore(walletId, start, watermark);
+
+        TreeMap<LocalDate, DayTotals> totals = new TreeMap<>();
+        for (DailyBalance day : dailyBalanceRepository.findByWalletIdAndBalanceDateBetweenOrderByBalanceDate(walletId, from, to)) {
+            totals.put(day.getBalanceDate(), new DayTotals(day.getCredits(), day.getDebits(), day.getTransactionCount()));
+        }
+        // Day rows cover everything up to the watermark; add the raw rows after it
+        List<LedgerMovement> unrolled = watermark.getLastCreatedAt().isBefore(start)
+                ? walletMovementsAfter(walletId, start, 0L, end)
+                : walletMovementsAfter(walletId, watermark.getLastCreatedAt(),
+                        watermark.getLastId(), end);
+        for (LedgerMovement row : unrolled) {
+            totals.computeIfAbsent(row.createdAt().toLocalDate(), date -> new DayTotals()).add(row.asSeenBy(walletId));
+        }
+
+        List<StatementDayResponse> days = new ArrayList<>(totals.size());
+        BigDecimal balance = opening;
+        for (Map.Entry<LocalDate, DayTotals> entry : totals.entrySet()) {
+            DayTotals day = entry.getValue();
+            StatementDayResponse line = new StatementDayResponse(entry.getKey(), balance, day.credits, day.debits, day.count);
+            days.add(line);
+            balance = line.getClosingBalance();
+        }
+        return new StatementResponse(walletId, from, to, opening, days);
+    }
+
+    // Balance from every row created strictly before the given instant
+    private BigDecimal balanceBefore(Long walletId, LocalDateTime before, JobWatermark watermark) {
+        LocalDate date = before.toLocalDate();
+        LocalDateTime dayStart = date.atStartOfDay();
+        BigDecimal base;
+        List<LedgerMovement> tail;
+        if (!watermark.getLastCreatedAt().isBefore(dayStart)) {
+            // Everything before the day is rolled up: start from the day's opening balance
+            base = dailyBalanceRepository.findTopByWalletIdAndBalanceDateLessThanEqualOrderByBalanceDateDesc(walletId, date)
+                    .map(day -> day.getBalanceDate().equals(date) ? day.getOpeningBalance() : day.getClosingBalance())
+                    .orElse(BigDecimal.ZERO);
+            tail = walletMovementsAfter(walletId, dayStart, 0L, before);
+        } else {
+            // The roll-up is behind the day: start from the balance at the watermark
+            base = dailyBalanceRepository.findTopByWalletIdOrderByBalanceDateDesc(walletId)
+                    .map(DailyBalance::getClosingBalance)
+                    .orElse(BigDecimal.ZERO);
+            tail = walletMovementsAfter(walletId, watermark.getLastCreatedAt(),
+                    watermark.getLastId(), before);
+        }
+        for (LedgerMovement row : tail) {
+            base = base.add(row.asSeenBy(walletId).signedAmount());
+        }
+        return base;
+    }
+
+    // Archived rows all precede the hot ones, so the two concatenate in (createdAt, id) order
+    private List<LedgerMovement> walletMovementsAfter(Long walletId, LocalDateTime createdAt, Long id,
+                                                      LocalDateTime before) {
+        List<LedgerMovement> archived =
+                archivedTransactionRepository.findWalletMovementsAfter(walletId, createdAt, id, before);
+        List<LedgerMovement> hot = transactionRepository.findWalletMovementsAfter(walletId, createdAt, id, before);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<LedgerMovement> movements = new ArrayList<>(archived.size() + hot.size());
+        movements.addAll(archived);
+        movements.addAll(hot);
+        return movements;
+    }
+
+    private JobWatermark currentWatermark() {
+        return watermarkRepository.findById(JOB_NAME).orElseGet(() -> new JobWatermark(JOB_NAME));
+    }
+
+    private static final class DayTotals {
+
+        private BigDecimal credits = BigDecimal.ZERO;
+        private BigDecimal debits = BigDecimal.ZERO;
+        private long count;
+
+        DayTotals() {
+        }
+
+        DayTotals(BigDecimal credits, BigDecimal debits, long count) {
+            this.credits = credits;
+            this.debits = debits;
+            this.count = count;
+        }
+
+        void add(LedgerMovement row) {
+            if (row.type().isCredit()) {
+                credits = credits.add(row.amount());
+            } else {
+                debits = debits.add(row.amount());
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.ShardingProperties;
+import com.example.ewallet.config.TransferProperties;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.entity.ShardTransfer;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.example.ewallet.metrics.OperationMetrics;
+import com.example.ewallet.outbox.OutboxWriter;
+import com.example.ewallet.repository.ShardTransferRepository;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.repository.WalletTransactionRepository;
+import com.example.ewallet.shard.ShardRouter;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves money between wallets on different shards, where no one database
+ * transaction can lock both wallets.
+ *
+ * <p>A transfer is three local transactions. The reserve debits the source
+ * wallet and records an outbound {@link ShardTransfer} as RESERVED on the
+ * source shard; once it commits the transfer will happen. The credit pays the
+ * target wallet together with an inbound row under the same reference, whose
+ * unique key makes a repeated credit fail instead of paying twice. The confirm
+ * marks the outbound row COMPLETED. If the target wallet cannot be found the
+ * debit is refunded with a {@code TRANSFER_REVERSAL} entry instead.
+ *
+ * <p>A transfer interrupted after its reserve is finished by {@link #recover()},
+ * which replays the credit and confirm for reservations older than
+ * {@code ewallet.sharding.recovery-delay}. Every step can be replayed safely.
+ */
+@Service
+public class CrossShardTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(CrossShardTransferService.class);
+
+    private final ShardRouter shardRouter;
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository transactionRepository;
+    private final ShardTransferRepository shardTransferRepository;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IdempotencyService idempotencyService;
+    private final TransferProperties transferProperties;
+    private final ShardingProperties shardingProperties;
+    private final StripedBalanceService stripedBalances;
+    private final OperationMetrics metrics;
+    private final TransactionRetry retry;
+
+    public CrossShardTransferService(ShardRouter shardRouter,
+                                     WalletRepository walletRepository,
+                                     WalletTransactionRepository transactionRepository,
+                                     ShardTransferRepository shardTransferRepository,
+                                     OutboxWriter outboxWriter,
+                                     ApplicationEventPublisher eventPublisher,
+                                     IdempotencyService idempotencyService,
+                                     TransferProperties transferProperties,
+                                     ShardingProperties shardingProperties,
+                                     StripedBalanceService stripedBalances,
+                                     OperationMetrics metrics,
+                                     PlatformTransactionManager transactionManager) {
+        this.shardRouter = shardRouter;
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.shardTransferRepository = shardTransferRepository;
+        this.outboxWriter = outboxWriter;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyService = idempotencyService;
+        this.transferProperties = transferProperties;
+        this.shardingProperties = shardingProperties;
+        this.stripedBalances = stripedBalances;
+        this.metrics = metrics;
+        this.retry = new TransactionRetry(new TransactionTemplate(transactionManager), transferProperties, metrics);
+    }
+
+    /**
+     * Transfers between wallets on different shards and returns the source
+     * wallet after the debit. Once the reserve has committed a failure to
+     * reach the target shard is left to recovery rather than reported.
+     */
+    public Reservation transfer(TransferRequest request, String idempotencyKey) {
+        Long toWalletId = request.getToWalletId();
+        // Catch the common mistake up front rather than reserving and reversing
+        if (!shardRouter.onWallet(toWalletId, () -> walletRepository.existsById(toWalletId))) {
+            throw new EntityNotFoundException("Wallet not found with id: " + toWalletId);
+        }
+        Reservation reservation = reserve(request, idempotencyKey);
+        try {
+            complete(reservation.reference(), request.getFromWalletId(), toWalletId, request.getAmount(),
+                    request.getDescription());
+        } catch (EntityNotFoundException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            log.warn("Transfer {} is reserved but not yet credited; recovery will finish it",
+                    reservation.reference(), ex);
+        }
+        return reservation;
+    }
+
+    /**
+     * Finishes reservations older than {@code ewallet.sharding.recovery-delay}
+     * on every shard, and returns how many were finished.
+     */
+    @Scheduled(fixedDelayString = "${ewallet.sharding.recovery-interval:PT30S}")
+    public int recover() {
+        if (!shardRouter.isSharded()) {
+            return 0;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(shardingProperties.getRecoveryDelay());
+        int recovered = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            List<ShardTransfer> stuck = shardRouter.onShard(shard, () -> shardTransferRepository
+                    .findByStatusAndUpdatedAtBeforeOrderByUpdatedAt(ShardTransfer.Status.RESERVED, before,
+                            Limit.of(shardingProperties.getRecoveryBatchSize())));
+            for (ShardTransfer transfer : stuck) {
+                try {
+                    complete(transfer.getReference(), transfer.getFromWalletId(), transfer.getToWalletId(),
+                            transfer.getAmount(), transfer.getDescription());
+                    recovered++;
+                } catch (EntityNotFoundException ex) {
+                    recovered++;
+                } catch (RuntimeException ex) {
+                    log.warn("Could not finish transfer {}; will retry", transfer.getReference(), ex);
+                }
+            }
+        }
+        return recovered;
+    }
+
+    Reservation reserve(TransferRequest request, String idempotencyKey) {
+        Long fromWalletId = request.getFromWalletId();
+        long amount = Money.toPositiveMinor(request.getAmount());
+        String reference = ReferenceGenerator.next();
+        return shardRouter.onWallet(fromWalletId, () -> retry.execute(() -> {
+            Wallet from = lockWalletOrThrow(fromWalletId);
+            stripedBalances.fold(from);
+            long balance = Money.toMinor(from.getBalance());
+            if (balance < amount) {
+                metrics.insufficientBalance();
+                throw new IllegalArgumentException("Insufficient balance in source wallet");
+            }
+            from.setBalance(Money.toDecimal(balance - amount));
+            WalletTransaction debit = ledgerEntry(from, TransactionType.TRANSFER_DEBIT, request.getAmount(),
+                    request.getDescription(), reference);
+            shardTransferRepository.save(new ShardTransfer(reference, fromWalletId, request.getToWalletId(),
+                    request.getAmount(), request.getDescription(), ShardTransfer.Status.RESERVED));
+            record(from, debit);
+
+            WalletResponse response = WalletService.toWalletResponse(from);
+            if (idempotencyKey != null) {
+                idempotencyService.record(idempotencyKey, IdempotencyService.transferScope(request), response);
+            }
+            return new Reservation(reference, response);
+        }));
+    }
+
+    private void complete(String reference, Long fromWalletId, Long toWalletId, BigDecimal amount, String description) {
+        try {
+            shardRouter.onWallet(toWalletId, () -> retry.execute(() -> {
+                // Inserted first so that a replayed credit fails before touching the wallet
+                shardTransferRepository.saveAndFlush(new ShardTransfer(reference, fromWalletId, toWalletId, amount,
+                        description, ShardTransfer.Status.CREDITED));
+                Wallet to = lockWalletOrThrow(toWalletId);
+                stripedBalances.fold(to);
+                to.setBalance(Money.toDecimal(Math.addExact(Money.toMinor(to.getBalance()), Money.toMinor(amount))));
+                record(to, ledgerEntry(to, TransactionType.TRANSFER_CREDIT, amount, description, reference));
+                return null;
+            }));
+        } catch (DataIntegrityViolationException ex) {
+            // An earlier attempt already credited the target
+        } catch (EntityNotFoundException ex) {
+            settle(reference, fromWalletId, ShardTransfer.Status.REVERSED);
+            throw ex;
+        }
+        settle(reference, fromWalletId, ShardTransfer.Status.COMPLETED);
+    }
+
+    private void settle(String reference, Long fromWalletId, ShardTransfer.Status outcome) {
+        shardRouter.onWallet(fromWalletId, () -> retry.execute(() -> {
+            ShardTransfer transfer = shardTransferRepository.findByReferenceForUpdate(reference)
+                    .orElseThrow(() -> new IllegalStateException("No reservation for transfer " + reference));
+            if (transfer.getStatus() != ShardTransfer.Status.RESERVED) {
+                return null;
+            }
+            if (outcome == ShardTransfer.Status.REVERSED) {
+                Wallet from = lockWalletOrThrow(fromWalletId);
+                stripedBalances.fold(from);
+                from.setBalance(Money.toDecimal(Math.addExact(Money.toMinor(from.getBalance()),
+                        Money.toMinor(transfer.getAmount()))));
+                record(from, ledgerEntry(from, TransactionType.TRANSFER_REVERSAL, transfer.getAmount(),
+                        transfer.getDescription(), reference));
+            }
+            transfer.setStatus(outcome);
+            return null;
+        }));
+    }
+
+    private void record(Wallet wallet, WalletTransaction entry) {
+        walletRepository.save(wallet);
+        transactionRepository.save(entry);
+        outboxWriter.append(List.of(entry), List.of(wallet));
+        eventPublisher.publishEvent(new WalletChangedEvent(List.of(wallet)));
+    }
+
+    private static WalletTransaction ledgerEntry(Wallet wallet, TransactionType type, BigDecimal amount,
+                                                 String description, String reference) {
+        WalletTransaction tx = new WalletTransaction();
+        tx.setWallet(wallet);
+        tx.setAmount(amount);
+        tx.setType(type);
+        tx.setDescription(description);
+        tx.setReference(reference);
+        tx.setBalanceAfter(wallet.getBalance());
+        return tx;
+    }
+
+    private Wallet lockWalletOrThrow(Long walletId) {
+        return (transferProperties.getLockMode() == TransferProperties.LockMode.OPTIMISTIC
+                ? walletRepository.findById(walletId)
+                : walletRepository.findByIdForUpdate(walletId))
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
+    }
+
+    public record Reservation(String reference, WalletResponse source) {
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.IdempotencyProperties;
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.entity.IdempotencyRecord;
+import com.example.ewallet.repository.IdempotencyRecordRepository;
+import com.example.ewallet.shard.ShardRouter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes money-moving calls safe to retry with an {@code Idempotency-Key}.
+ *
+ * <p>The key is written to {@code idempotency_keys} in the same transaction as
+ * the wallet mutation (see {@link #record}), so either both commit or neither
+ * does. Replays are answered from a TTL-bounded in-memory cache, then from the
+ * table, without touching wallet rows. Concurrent requests with the same key on
+ * this node wait for the first one instead of executing again; across nodes
+ * the primary key on the table lets exactly one of them commit.
+ *
+ * <p>Keys live on the shard of the wallet the call debits or credits, since
+ * that is where its transaction runs.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository repository;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+    private final Cache<String, Outcome> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<WalletResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              IdempotencyProperties properties,
+                              ObjectMapper objectMapper,
+                              ShardRouter shardRouter) {
+        this.repository = repository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.completed = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getCacheTtl())
+                .maximumSize(properties.getCacheMaxSize())
+                .build();
+    }
+
+    public static String rechargeScope(Long walletId, RechargeRequest request) {
+        return "recharge:" + walletId + ":" + request.getAmount().stripTrailingZeros().toPlainString();
+    }
+
+    public static String transferScope(TransferRequest request) {
+        return "transfer:" + request.getFromWalletId() + ":" + request.getToWalletId() + ":"
+                + request.getAmount().stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * The key as the services expect it: null when the client sent none, or
+     * sent an empty or blank header.
+     */
+    public static String normalizeKey(String key) {
+        return key == null || key.isBlank() ? null : key;
+    }
+
+    /**
+     * @param walletId the wallet whose transaction records the key: the
+     *                 recharged wallet, or the source wallet of a transfer
+     */
+    public WalletResponse execute(String key, Long walletId, String scope, Supplier<WalletResponse> action) {
+        if (normalizeKey(key) == null) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Outcome cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return cached.replay(scope);
+        }
+
+        CompletableFuture<WalletResponse> mine = new CompletableFuture<>();
+        CompletableFuture<WalletResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            WalletResponse response = await(running);
+            // The first caller may have used the key for a different request
+            Outcome outcome = completed.getIfPresent(key);
+            return outcome != null ? outcome.replay(scope) : response;
+        }
+
+        try {
+            WalletResponse response = lookup(key, walletId).map(outcome -> outcome.replay(scope)).orElse(null);
+            if (response == null) {
+                try {
+                    response = action.get();
+                    completed.put(key, new Outcome(scope, response));
+                } catch (DataIntegrityViolationException ex) {
+                    // Another node committed the same key first; answer with its result
+                    response = lookup(key, walletId).orElseThrow(() -> ex).replay(scope);
+                }
+            }
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Stores the response for {@code key} as part of the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String key, String scope, WalletResponse response) {
+        repository.save(new IdempotencyRecord(key, scope, objectMapper.writeValueAsString(response)));
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        shardRouter.onEachShard(shard -> repository.deleteCreatedBefore(cutoff));
+    }
+
+    private Optional<Outcome> lookup(String key, Long walletId) {
+        Optional<Outcome> stored = shardRouter.onWallet(walletId, () -> repository.findById(key))
+                .map(record -> new Outcome(record.getScope(),
+                        objectMapper.readValue(record.getResponseBody(), WalletResponse.class)));
+        stored.ifPresent(outcome -> completed.put(key, outcome));
+        return stored;
+    }
+
+    private static WalletResponse await(CompletableFuture<WalletResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Outcome(String scope, WalletResponse response) {
+
+        WalletResponse replay(String requestedScope) {
+            if (!scope.equals(requestedScope)) {
+                throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+            }
+            return response;
+        }
+    }
+}
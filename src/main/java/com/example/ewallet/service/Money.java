@@ -0,0 +1,47 @@
+package com.example.ewallet.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Money as a {@code long} count of minor units, at the scale of the
+ * {@code precision = 19, scale = 2} money columns. Balance arithmetic and
+ * checks in the transfer path run on these; {@link BigDecimal} is only used
+ * where a value crosses into an entity or a response.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * The amount in minor units. Amounts finer than a minor unit are
+     * rejected rather than rounded.
+     */
+    public static long toMinor(BigDecimal amount) {
+        try {
+            return amount.scaleByPowerOfTen(SCALE).longValueExact();
+        } catch (ArithmeticException ex) {
+            if (amount.stripTrailingZeros().scale() > SCALE) {
+                throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places");
+            }
+            throw new IllegalArgumentException("Amount is too large");
+        }
+    }
+
+    /**
+     * A positive request amount in minor units.
+     */
+    public static long toPositiveMinor(BigDecimal amount) {
+        long minor = toMinor(amount);
+        if (minor <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        return minor;
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+}
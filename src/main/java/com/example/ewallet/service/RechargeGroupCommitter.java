@@ -0,0 +1,278 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.GroupCommitProperties;
+import com.example.ewallet.config.TransferProperties;
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.example.ewallet.outbox.OutboxWriter;
+import com.example.ewallet.repository.LedgerBatchWriter;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.shard.ShardRouter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for recharges when {@code ewallet.group-commit.enabled} is set.
+ *
+ * <p>Callers queue their recharge and block until it is committed. A single
+ * writer thread takes the first queued recharge, waits up to
+ * {@code linger} for more (or until {@code max-batch-size} are queued), and
+ * applies them all in one transaction per shard: wallets are locked once in
+ * ascending id order, ledger rows go out as one JDBC batch, and the whole
+ * group shares a single commit. Each caller gets its own response, or its
+ * own error when its wallet does not exist.
+ *
+ * <p>If the group's transaction fails, its recharges are retried one per
+ * transaction, so one bad recharge only fails its own caller.
+ */
+@Service
+public class RechargeGroupCommitter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RechargeGroupCommitter.class);
+
+    private final GroupCommitProperties properties;
+    private final TransferProperties transferProperties;
+    private final WalletRepository walletRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final OutboxWriter outboxWriter;
+    private final IdempotencyService idempotencyService;
+    private final StripedBalanceService stripedBalances;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingRecharge> queue;
+    private final Thread writer;
+    private final DistributionSummary groupSizes;
+    private volatile boolean running = true;
+
+    public RechargeGroupCommitter(GroupCommitProperties properties,
+                                  TransferProperties transferProperties,
+                                  WalletRepository walletRepository,
+                                  LedgerBatchWriter ledgerBatchWriter,
+                                  OutboxWriter outboxWriter,
+                                  IdempotencyService idempotencyService,
+                                  StripedBalanceService stripedBalances,
+                                  ApplicationEventPublisher eventPublisher,
+                                  ShardRouter shardRouter,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry registry) {
+        this.properties = properties;
+        this.transferProperties = transferProperties;
+        this.walletRepository = walletRepository;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.outboxWriter = outboxWriter;
+        this.idempotencyService = idempotencyService;
+        this.stripedBalances = stripedBalances;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.groupSizes = DistributionSummary.builder("ewallet.recharge.group.size")
+                .description("Recharges committed together by the group-commit writer")
+                .register(registry);
+        Gauge.builder("ewallet.recharge.group.queued", queue, BlockingQueue::size)
+                .description("Recharges waiting for the group-commit writer")
+                .register(registry);
+        this.writer = new Thread(this::run, "recharge-group-commit");
+        this.writer.setDaemon(true);
+        if (properties.isEnabled()) {
+            writer.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Queues the recharge and waits for the group it lands in to commit.
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public WalletResponse recharge(Long walletId, RechargeRequest request, String idempotencyKey) {
+        PendingRecharge pending = new PendingRecharge(walletId, Money.toPositiveMinor(request.getAmount()), request,
+                idempotencyKey, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            throw new RejectedExecutionException("Too many recharges waiting to commit");
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void run() {
+        List<PendingRecharge> group = new ArrayList<>(properties.getMaxBatchSize());
+        long lingerNanos = properties.getLinger().toNanos();
+        while (running) {
+            try {
+                PendingRecharge first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (group.size() < properties.getMaxBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingRecharge next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        // Linger is over; take whatever else is already waiting
+                        queue.drainTo(group, properties.getMaxBatchSize() - group.size());
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                log.error("Recharge group commit failed", ex);
+                group.forEach(pending -> pending.result().completeExceptionally(ex));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingRecharge> group) {
+        groupSizes.record(group.size());
+        Map<Integer, List<PendingRecharge>> byShard = new TreeMap<>();
+        for (PendingRecharge pending : group) {
+            try {
+                byShard.computeIfAbsent(shardRouter.shardOf(pending.walletId()), s -> new ArrayList<>()).add(pending);
+            } catch (EntityNotFoundException ex) {
+                pending.result().completeExceptionally(ex);
+            }
+        }
+        byShard.forEach((shard, recharges) -> {
+            try {
+                complete(recharges, shardRouter.onShard(shard, () -> transactionTemplate.execute(
+                        status -> apply(recharges))));
+            } catch (RuntimeException ex) {
+                if (recharges.size() == 1) {
+                    recharges.get(0).result().completeExceptionally(ex);
+                    return;
+                }
+                log.debug("Group of {} recharges failed; committing them one by one", recharges.size(), ex);
+                for (PendingRecharge pending : recharges) {
+                    try {
+                        complete(List.of(pending), shardRouter.onShard(shard, () -> transactionTemplate.execute(
+                                status -> apply(List.of(pending)))));
+                    } catch (RuntimeException single) {
+                        pending.result().completeExceptionally(single);
+                    }
+                }
+            }
+        });
+    }
+
+    // Called after commit, so no caller sees a response that could still roll back
+    private static void complete(List<PendingRecharge> recharges, List<Object> outcomes) {
+        for (int i = 0; i < recharges.size(); i++) {
+            Object outcome = outcomes.get(i);
+            if (outcome instanceof WalletResponse response) {
+                recharges.get(i).result().complete(response);
+            } else {
+                recharges.get(i).result().completeExceptionally((RuntimeException) outcome);
+            }
+        }
+    }
+
+    // One WalletResponse or RuntimeException per recharge, in order
+    private List<Object> apply(List<PendingRecharge> recharges) {
+        TreeSet<Long> walletIds = new TreeSet<>();
+        for (PendingRecharge pending : recharges) {
+            walletIds.add(pending.walletId());
+        }
+        List<Wallet> locked = transferProperties.getLockMode() == TransferProperties.LockMode.OPTIMISTIC
+                ? walletRepository.findAllById(walletIds)
+                : walletRepository.findAllByIdForUpdate(walletIds);
+        Map<Long, Wallet> wallets = new HashMap<>();
+        for (Wallet wallet : locked) {
+            stripedBalances.fold(wallet);
+            wallets.put(wallet.getId(), wallet);
+        }
+
+        List<Object> outcomes = new ArrayList<>(recharges.size());
+        List<WalletTransaction> ledger = new ArrayList<>(recharges.size());
+        Map<Long, Wallet> changed = new LinkedHashMap<>();
+        for (PendingRecharge pending : recharges) {
+            Wallet wallet = wallets.get(pending.walletId());
+            if (wallet == null) {
+                outcomes.add(new EntityNotFoundException("Wallet not found with id: " + pending.walletId()));
+                continue;
+            }
+            BigDecimal newBalance = Money.toDecimal(Math.addExact(Money.toMinor(wallet.getBalance()),
+                    pending.amount()));
+            wallet.setBalance(newBalance);
+            changed.put(wallet.getId(), wallet);
+
+            WalletTransaction tx = new WalletTransaction();
+            tx.setWallet(wallet);
+            tx.setAmount(pending.request().getAmount());
+            tx.setType(TransactionType.RECHARGE);
+            tx.setDescription(pending.request().getDescription());
+            tx.setBalanceAfter(newBalance);
+            tx.setReference(ReferenceGenerator.next());
+            ledger.add(tx);
+
+            WalletResponse response = WalletService.toWalletResponse(wallet);
+            if (pending.idempotencyKey() != null) {
+                idempotencyService.record(pending.idempotencyKey(),
+                        IdempotencyService.rechargeScope(pending.walletId(), pending.request()), response);
+            }
+            outcomes.add(response);
+        }
+
+        ledgerBatchWriter.insertAll(ledger);
+        outboxWriter.append(ledger, changed.values());
+        eventPublisher.publishEvent(new WalletChangedEvent(List.copyOf(changed.values())));
+        return outcomes;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        PendingRecharge pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Shutting down"));
+        }
+    }
+
+    private record PendingRecharge(Long walletId, long amount, RechargeRequest request, String idempotencyKey,
+                                   CompletableFuture<WalletResponse> result) {
+    }
+}
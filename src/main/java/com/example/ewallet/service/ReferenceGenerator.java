@@ -0,0 +1,42 @@
+package com.example.ewallet.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Transaction references in the ULID layout: 48 bits of epoch millis and 80
+ * random bits, as 26 Crockford base-32 characters. They sort by creation
+ * time, and drawing from {@link ThreadLocalRandom} avoids the shared
+ * {@code SecureRandom} behind {@code UUID.randomUUID()}. References identify
+ * transfers; they are not secrets.
+ */
+public final class ReferenceGenerator {
+
+    public static final int LENGTH = 26;
+
+    private static final byte[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private ReferenceGenerator() {
+    }
+
+    public static String next() {
+        return next(System.currentTimeMillis(), ThreadLocalRandom.current());
+    }
+
+    static String next(long epochMillis, Random random) {
+        byte[] chars = new byte[LENGTH];
+        encode(chars, 0, 10, epochMillis);
+        encode(chars, 10, 8, random.nextLong());
+        encode(chars, 18, 8, random.nextLong());
+        return new String(chars, StandardCharsets.US_ASCII);
+    }
+
+    // Writes the low 5 * count bits of value, most significant first
+    private static void encode(byte[] chars, int offset, int count, long value) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+    }
+}
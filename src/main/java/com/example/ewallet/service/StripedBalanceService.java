@@ -0,0 +1,147 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.StripingProperties;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.entity.WalletBalanceStripe;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.example.ewallet.repository.WalletBalanceStripeRepository;
+import com.example.ewallet.repository.WalletRepository;
+import com.example.ewallet.shard.ShardRouter;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Striped balances for the hot wallets in {@code ewallet.striping.wallet-ids}.
+ *
+ * <p>A transfer credit to a striped wallet is added in place to one of its
+ * {@link WalletBalanceStripe} rows, picked by hashing the transfer reference,
+ * and leaves the wallet row alone; concurrent credits therefore only collide
+ * when they hash to the same stripe. Anything that needs the full balance
+ * reads the wallet row plus its stripes. Before a striped wallet's row is
+ * debited or credited, and every consolidation-interval, the stripes are
+ * folded back into the wallet row under lock, so the row is exact whenever
+ * it is written.
+ */
+@Service
+public class StripedBalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(StripedBalanceService.class);
+
+    private final StripingProperties properties;
+    private final WalletBalanceStripeRepository stripeRepository;
+    private final WalletRepository walletRepository;
+    private final ShardRouter shardRouter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public StripedBalanceService(StripingProperties properties,
+                                 WalletBalanceStripeRepository stripeRepository,
+                                 WalletRepository walletRepository,
+                                 ShardRouter shardRouter,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.stripeRepository = stripeRepository;
+        this.walletRepository = walletRepository;
+        this.shardRouter = shardRouter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isStriped(Long walletId) {
+        return properties.getWalletIds().contains(walletId);
+    }
+
+    /**
+     * Adds {@code amount} to one of the wallet's stripes. Returns false when
+     * the wallet is not striped or its stripes have not been created yet, in
+     * which case the caller credits the wallet row as usual.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean credit(Long walletId, String reference, BigDecimal amount) {
+        if (!isStriped(walletId)) {
+            return false;
+        }
+        int stripe = Math.floorMod(reference.hashCode(), properties.getStripes());
+        return stripeRepository.credit(walletId, stripe, amount) == 1;
+    }
+
+    /**
+     * Moves the stripes' balances into the wallet row. The caller must hold
+     * the wallet's lock; the stripes are locked here, in stripe order.
+     * Returns whether the wallet's balance changed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean fold(Wallet wallet) {
+        if (!isStriped(wallet.getId())) {
+            return false;
+        }
+        BigDecimal folded = BigDecimal.ZERO;
+        for (WalletBalanceStripe stripe : stripeRepository.findAllByWalletIdForUpdate(wallet.getId())) {
+            if (stripe.getBalance().signum() != 0) {
+                folded = folded.add(stripe.getBalance());
+                stripe.setBalance(BigDecimal.ZERO);
+            }
+        }
+        if (folded.signum() == 0) {
+            return false;
+        }
+        wallet.setBalance(wallet.getBalance().add(folded));
+        return true;
+    }
+
+    /**
+     * Creates missing stripes and folds every striped wallet's stripes into
+     * its row. Returns the number of wallets whose balance changed.
+     */
+    @Scheduled(fixedDelayString = "${ewallet.striping.consolidation-interval:PT1S}")
+    public int consolidate() {
+        int consolidated = 0;
+        for (Long walletId : List.copyOf(properties.getWalletIds())) {
+            try {
+                Boolean changed = shardRouter.onWallet(walletId, () -> transactionTemplate.execute(
+                        status -> consolidate(walletId)));
+                if (Boolean.TRUE.equals(changed)) {
+                    consolidated++;
+                }
+            } catch (EntityNotFoundException ex) {
+                log.debug("Striped wallet {} does not exist", walletId);
+            } catch (RuntimeException ex) {
+                log.warn("Could not consolidate striped wallet {}; will retry", walletId, ex);
+            }
+        }
+        return consolidated;
+    }
+
+    private boolean consolidate(Long walletId) {
+        Wallet wallet = walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
+        Set<Integer> existing = new HashSet<>();
+        for (WalletBalanceStripe stripe : stripeRepository.findAllByWalletIdForUpdate(walletId)) {
+            existing.add(stripe.getStripe());
+        }
+        for (int stripe = 0; stripe < properties.getStripes(); stripe++) {
+            if (!existing.contains(stripe)) {
+                stripeRepository.save(new WalletBalanceStripe(walletId, stripe));
+            }
+        }
+        if (!fold(wallet)) {
+            return false;
+        }
+        eventPublisher.publishEvent(new WalletChangedEvent(List.of(wallet)));
+        return true;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.TransferProperties;
+import com.example.ewallet.metrics.OperationMetrics;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs work in a transaction and retries lock conflicts with bounded
+ * exponential backoff, so callers only see a conflict once
+ * {@code ewallet.transfer.max-attempts} is exhausted.
+ */
+class TransactionRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties properties;
+    private final OperationMetrics metrics;
+
+    TransactionRetry(TransactionTemplate transactionTemplate, TransferProperties properties, OperationMetrics metrics) {
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    <T> T execute(Supplier<T> work) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException ex) {
+                metrics.conflict(ex);
+                if (attempt >= properties.getMaxAttempts()) {
+                    metrics.retriesExhausted();
+                    throw ex;
+                }
+                backoff(attempt++, ex);
+            }
+        }
+    }
+
+    private void backoff(int attempt, RuntimeException cause) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long ceiling = Math.min(max, initial << Math.min(attempt - 1, 20));
+        // Full jitter keeps retrying transfers on a hot wallet from waking up in lockstep
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
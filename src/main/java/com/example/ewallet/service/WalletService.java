@@ -1,50 +1,170 @@
 package com.example.ewallet.service;
 
+import com.example.ewallet.archive.LedgerArchiver;
+import com.example.ewallet.cache.WalletSnapshot;
+import com.example.ewallet.cache.WalletSnapshotCache;
+import com.example.ewallet.config.LedgerProperties;
+import com.example.ewallet.config.TransferProperties;
+import com.example.ewallet.dto.BatchTransferItemResult;
+import com.example.ewallet.dto.BatchTransferResponse;
 import com.example.ewallet.dto.CreateWalletRequest;
 import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.TransactionPage;
 import com.example.ewallet.dto.TransactionResponse;
 import com.example.ewallet.dto.TransferRequest;
 import com.example.ewallet.dto.WalletResponse;
+import com.example.ewallet.engine.BalanceEngine;
+import com.example.ewallet.entity.JobWatermark;
 import com.example.ewallet.entity.TransactionType;
 import com.example.ewallet.entity.Wallet;
 import com.example.ewallet.entity.WalletTransaction;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.example.ewallet.metrics.OperationMetrics;
+import com.example.ewallet.metrics.OperationMetrics.Operation;
+import com.example.ewallet.outbox.OutboxWriter;
+import com.example.ewallet.repository.ArchivedWalletTransactionRepository;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.LedgerBatchWriter;
 import com.example.ewallet.repository.WalletRepository;
 import com.example.ewallet.repository.WalletTransactionRepository;
+import com.example.ewallet.shard.ShardRouter;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class WalletService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final Comparator<TransactionResponse> NEWEST_FIRST = Comparator
+            .comparing(TransactionResponse::getCreatedAt)
+            .thenComparing(TransactionResponse::getId)
+            .reversed();
+
     private final WalletRepository walletRepository;
     private final WalletTransactionRepository transactionRepository;
+    private final ArchivedWalletTransactionRepository archivedTransactionRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final LedgerBatchWriter ledgerBatchWriter;
+    private final TransferProperties transferProperties;
+    private final LedgerProperties ledgerProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final TransactionRetry retry;
+    private final WalletSnapshotCache walletCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IdempotencyService idempotencyService;
+    private final OutboxWriter outboxWriter;
+    private final ShardRouter shardRouter;
+    private final CrossShardTransferService crossShardTransfers;
+    private final StripedBalanceService stripedBalances;
+    private final OperationMetrics metrics;
+    private final RechargeGroupCommitter groupCommitter;
+    private final BalanceEngine engine;
 
     public WalletService(WalletRepository walletRepository,
-                         WalletTransactionRepository transactionRepository) {
+                         WalletTransactionRepository transactionRepository,
+                         ArchivedWalletTransactionRepository archivedTransactionRepository,
+                         JobWatermarkRepository watermarkRepository,
+                         LedgerBatchWriter ledgerBatchWriter,
+                         TransferProperties transferProperties,
+                         LedgerProperties ledgerProperties,
+                         PlatformTransactionManager transactionManager,
+                         WalletSnapshotCache walletCache,
+                         ApplicationEventPublisher eventPublisher,
+                         IdempotencyService idempotencyService,
+                         OutboxWriter outboxWriter,
+                         ShardRouter shardRouter,
+                         CrossShardTransferService crossShardTransfers,
+                         StripedBalanceService stripedBalances,
+                         OperationMetrics metrics,
+                         RechargeGroupCommitter groupCommitter,
+                         BalanceEngine engine) {
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+        this.transferProperties = transferProperties;
+        this.ledgerProperties = ledgerProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Repeatable read keeps history reads to one snapshot, so a row the archiver moves from the hot
+        // table to the archive between the two reads is seen in exactly one of them
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.readOnlyTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.retry = new TransactionRetry(transactionTemplate, transferProperties, metrics);
+        this.walletCache = walletCache;
+        this.eventPublisher = eventPublisher;
+        this.idempotencyService = idempotencyService;
+        this.outboxWriter = outboxWriter;
+        this.shardRouter = shardRouter;
+        this.crossShardTransfers = crossShardTransfers;
+        this.stripedBalances = stripedBalances;
+        this.metrics = metrics;
+        this.groupCommitter = groupCommitter;
+        this.engine = engine;
     }
 
-    @Transactional
     public WalletResponse createWallet(CreateWalletRequest request) {
-        Wallet wallet = new Wallet();
-        wallet.setOwnerName(request.getOwnerName());
-        wallet.setBalance(BigDecimal.ZERO);
-        Wallet saved = walletRepository.save(wallet);
-        return toWalletResponse(saved);
+        return shardRouter.onShard(shardRouter.nextShard(), () -> transactionTemplate.execute(status -> {
+            Wallet wallet = new Wallet();
+            wallet.setOwnerName(request.getOwnerName());
+            wallet.setBalance(BigDecimal.ZERO);
+            Wallet saved = walletRepository.save(wallet);
+            eventPublisher.publishEvent(new WalletChangedEvent(List.of(saved)));
+            return toWalletResponse(saved);
+        }));
     }
 
-    @Transactional
     public WalletResponse recharge(Long walletId, RechargeRequest request) {
-        Wallet wallet = findWalletOrThrow(walletId);
-        String reference = UUID.randomUUID().toString();
-        BigDecimal newBalance = wallet.getBalance().add(request.getAmount());
+        return recharge(walletId, request, null);
+    }
+
+    /**
+     * Recharges the wallet and, when {@code idempotencyKey} is given, stores the
+     * response under that key in the same transaction. With group commit on,
+     * the transaction is shared with other recharges queued at the same time;
+     * see {@link RechargeGroupCommitter}. With the {@link BalanceEngine} on,
+     * the engine applies it and the database follows asynchronously.
+     */
+    public WalletResponse recharge(Long walletId, RechargeRequest request, String idempotencyKey) {
+        if (engine.isEnabled()) {
+            return metrics.record(Operation.RECHARGE, () -> engineResponse(walletId, engine.recharge(walletId,
+                    Money.toPositiveMinor(request.getAmount()), request.getDescription(), idempotencyKey)));
+        }
+        if (groupCommitter.isEnabled()) {
+            return metrics.record(Operation.RECHARGE, () -> groupCommitter.recharge(walletId, request, idempotencyKey));
+        }
+        return metrics.record(Operation.RECHARGE, () -> shardRouter.onWallet(walletId, () -> transactionTemplate.execute(
+                status -> doRecharge(walletId, request, idempotencyKey))));
+    }
+
+    private WalletResponse doRecharge(Long walletId, RechargeRequest request, String idempotencyKey) {
+        long amount = Money.toPositiveMinor(request.getAmount());
+        // A striped wallet's row is locked before its stripes, as consolidation does
+        Wallet wallet = stripedBalances.isStriped(walletId) ? lockWalletOrThrow(walletId) : findWalletOrThrow(walletId);
+        stripedBalances.fold(wallet);
+        String reference = ReferenceGenerator.next();
+        BigDecimal newBalance = Money.toDecimal(Math.addExact(Money.toMinor(wallet.getBalance()), amount));
         wallet.setBalance(newBalance);
 
         WalletTransaction tx = new WalletTransaction();
@@ -57,26 +177,274 @@ public class WalletService {
 
         walletRepository.save(wallet);
         transactionRepository.save(tx);
+        outboxWriter.append(List.of(tx), List.of(wallet));
+        eventPublisher.publishEvent(new WalletChangedEvent(List.of(wallet)));
 
-        return toWalletResponse(wallet);
+        WalletResponse response = toWalletResponse(wallet);
+        if (idempotencyKey != null) {
+            idempotencyService.record(idempotencyKey, IdempotencyService.rechargeScope(walletId, request), response);
+        }
+        return response;
     }
 
-    @Transactional
+    /**
+     * Runs the transfer in its own transaction and retries lock conflicts with
+     * bounded exponential backoff, so callers only see a conflict once
+     * {@code ewallet.transfer.max-attempts} is exhausted. Wallets on different
+     * shards go through {@link CrossShardTransferService}.
+     */
     public WalletResponse transfer(TransferRequest request) {
+        return transfer(request, null);
+    }
+
+    public WalletResponse transfer(TransferRequest request, String idempotencyKey) {
+        return metrics.record(Operation.TRANSFER, () -> route(request, idempotencyKey));
+    }
+
+    private WalletResponse route(TransferRequest request, String idempotencyKey) {
         if (request.getFromWalletId().equals(request.getToWalletId())) {
             throw new IllegalArgumentException("From and To wallet cannot be same");
         }
+        if (engine.isEnabled()) {
+            return engineResponse(request.getFromWalletId(), engine.transfer(request.getFromWalletId(),
+                    request.getToWalletId(), Money.toPositiveMinor(request.getAmount()), request.getDescription(),
+                    idempotencyKey));
+        }
 
-        Wallet from = findWalletOrThrow(request.getFromWalletId());
-        Wallet to = findWalletOrThrow(request.getToWalletId());
+        int shard = shardRouter.shardOf(request.getFromWalletId());
+        if (shard != shardRouter.shardOf(request.getToWalletId())) {
+            return crossShardTransfers.transfer(request, idempotencyKey).source();
+        }
+        return shardRouter.onShard(shard, () -> retry.execute(() -> doTransfer(request, idempotencyKey)));
+    }
 
-        if (from.getBalance().compareTo(request.getAmount()) < 0) {
+    /**
+     * Applies all transfers in one transaction. Every wallet involved is locked
+     * up front in ascending id order, balances are netted in memory so each
+     * wallet row is updated once, and the ledger is written with batch inserts.
+     * Items that fail validation are reported and skipped without affecting the
+     * rest of the batch.
+     *
+     * <p>When wallets span shards, each shard's items run as one such batch
+     * and cross-shard items run one by one afterwards, so an item cannot rely
+     * on funds from an earlier item that credited a wallet on another shard.
+     */
+    public BatchTransferResponse transferBatch(List<TransferRequest> requests) {
+        if (engine.isEnabled()) {
+            return engineTransferBatch(requests);
+        }
+        if (!shardRouter.isSharded()) {
+            return retry.execute(() -> doTransferBatch(requests));
+        }
+
+        BatchTransferItemResult[] results = new BatchTransferItemResult[requests.size()];
+        Map<Integer, List<Integer>> positionsByShard = new TreeMap<>();
+        List<Integer> crossShard = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                int shard = shardRouter.shardOf(request.getFromWalletId());
+                if (shard == shardRouter.shardOf(request.getToWalletId())) {
+                    positionsByShard.computeIfAbsent(shard, s -> new ArrayList<>()).add(i);
+                } else {
+                    crossShard.add(i);
+                }
+            } catch (EntityNotFoundException ex) {
+                results[i] = BatchTransferItemResult.failed(i, ex.getMessage());
+            }
+        }
+
+        positionsByShard.forEach((shard, positions) -> {
+            List<TransferRequest> items = positions.stream().map(requests::get).toList();
+            BatchTransferResponse part = shardRouter.onShard(shard, () -> retry.execute(() -> doTransferBatch(items)));
+            for (BatchTransferItemResult result : part.getResults()) {
+                int position = positions.get(result.getIndex());
+                result.setIndex(position);
+                results[position] = result;
+            }
+        });
+        for (int position : crossShard) {
+            try {
+                String reference = crossShardTransfers.transfer(requests.get(position), null).reference();
+                results[position] = BatchTransferItemResult.succeeded(position, reference);
+            } catch (IllegalArgumentException | EntityNotFoundException ex) {
+                results[position] = BatchTransferItemResult.failed(position, ex.getMessage());
+            }
+        }
+
+        BatchTransferResponse response = new BatchTransferResponse();
+        response.setResults(List.of(results));
+        int succeeded = (int) response.getResults().stream()
+                .filter(result -> result.getStatus() == BatchTransferItemResult.Status.SUCCEEDED)
+                .count();
+        response.setSucceeded(succeeded);
+        response.setFailed(requests.size() - succeeded);
+        return response;
+    }
+
+    // The engine applies transfers one at a time anyway, so items are simply submitted in order
+    private BatchTransferResponse engineTransferBatch(List<TransferRequest> requests) {
+        List<BatchTransferItemResult> results = new ArrayList<>(requests.size());
+        int succeeded = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                if (request.getFromWalletId().equals(request.getToWalletId())) {
+                    throw new IllegalArgumentException("From and To wallet cannot be same");
+                }
+                BalanceEngine.Receipt receipt = engine.transfer(request.getFromWalletId(), request.getToWalletId(),
+                        Money.toPositiveMinor(request.getAmount()), request.getDescription(), null);
+                results.add(BatchTransferItemResult.succeeded(i, receipt.reference()));
+                succeeded++;
+            } catch (IllegalArgumentException | EntityNotFoundException ex) {
+                results.add(BatchTransferItemResult.failed(i, ex.getMessage()));
+            }
+        }
+        BatchTransferResponse response = new BatchTransferResponse();
+        response.setSucceeded(succeeded);
+        response.setFailed(requests.size() - succeeded);
+        response.setResults(results);
+        return response;
+    }
+
+    private BatchTransferResponse doTransferBatch(List<TransferRequest> requests) {
+        TreeSet<Long> walletIds = new TreeSet<>();
+        for (TransferRequest request : requests) {
+            walletIds.add(request.getFromWalletId());
+            walletIds.add(request.getToWalletId());
+        }
+        List<Wallet> locked = transferProperties.getLockMode() == TransferProperties.LockMode.OPTIMISTIC
+                ? walletRepository.findAllById(walletIds)
+                : walletRepository.findAllByIdForUpdate(walletIds);
+
+        // Balances are netted in minor units, indexed by each wallet's position in locked
+        Map<Long, Integer> slots = new HashMap<>();
+        long[] opening = new long[locked.size()];
+        long[] balances = new long[locked.size()];
+        boolean[] folded = new boolean[locked.size()];
+        for (int slot = 0; slot < locked.size(); slot++) {
+            Wallet wallet = locked.get(slot);
+            folded[slot] = stripedBalances.fold(wallet);
+            slots.put(wallet.getId(), slot);
+            opening[slot] = Money.toMinor(wallet.getBalance());
+            balances[slot] = opening[slot];
+        }
+
+        List<BatchTransferItemResult> results = new ArrayList<>(requests.size());
+        List<WalletTransaction> ledger = new ArrayList<>(requests.size() * 2);
+        int succeeded = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            Long fromId = request.getFromWalletId();
+            Long toId = request.getToWalletId();
+            if (fromId.equals(toId)) {
+                results.add(BatchTransferItemResult.failed(i, "From and To wallet cannot be same"));
+                continue;
+            }
+            Integer fromSlot = slots.get(fromId);
+            if (fromSlot == null) {
+                results.add(BatchTransferItemResult.failed(i, "Wallet not found with id: " + fromId));
+                continue;
+            }
+            Integer toSlot = slots.get(toId);
+            if (toSlot == null) {
+                results.add(BatchTransferItemResult.failed(i, "Wallet not found with id: " + toId));
+                continue;
+            }
+            long amount;
+            try {
+                amount = Money.toPositiveMinor(request.getAmount());
+            } catch (IllegalArgumentException ex) {
+                results.add(BatchTransferItemResult.failed(i, ex.getMessage()));
+                continue;
+            }
+            if (balances[fromSlot] < amount) {
+                metrics.insufficientBalance();
+                results.add(BatchTransferItemResult.failed(i, "Insufficient balance in source wallet"));
+                continue;
+            }
+
+            String reference = ReferenceGenerator.next();
+            balances[fromSlot] -= amount;
+            balances[toSlot] = Math.addExact(balances[toSlot], amount);
+
+            WalletTransaction debit = ledgerEntry(locked.get(fromSlot), TransactionType.TRANSFER_DEBIT, request, reference,
+                    Money.toDecimal(balances[fromSlot]));
+            ledger.add(debit);
+            if (isCompactLedger()) {
+                debit.setCounterpartyWalletId(toId);
+                debit.setCounterpartyBalanceAfter(Money.toDecimal(balances[toSlot]));
+            } else {
+                ledger.add(ledgerEntry(locked.get(toSlot), TransactionType.TRANSFER_CREDIT, request, reference,
+                        Money.toDecimal(balances[toSlot])));
+            }
+            results.add(BatchTransferItemResult.succeeded(i, reference));
+            succeeded++;
+        }
+
+        // Only the net change per wallet reaches the database, flushed as one update per row
+        List<Wallet> changed = new ArrayList<>();
+        for (int slot = 0; slot < locked.size(); slot++) {
+            if (balances[slot] != opening[slot] || folded[slot]) {
+                Wallet wallet = locked.get(slot);
+                wallet.setBalance(Money.toDecimal(balances[slot]));
+                changed.add(wallet);
+            }
+        }
+        ledgerBatchWriter.insertAll(ledger);
+        outboxWriter.append(ledger, locked);
+        eventPublisher.publishEvent(new WalletChangedEvent(changed));
+
+        BatchTransferResponse response = new BatchTransferResponse();
+        response.setSucceeded(succeeded);
+        response.setFailed(requests.size() - succeeded);
+        response.setResults(results);
+        return response;
+    }
+
+    private WalletTransaction ledgerEntry(Wallet wallet, TransactionType type, TransferRequest request,
+                                          String reference, BigDecimal balanceAfter) {
+        WalletTransaction tx = new WalletTransaction();
+        tx.setWallet(wallet);
+        tx.setAmount(request.getAmount());
+        tx.setType(type);
+        tx.setDescription(request.getDescription());
+        tx.setReference(reference);
+        tx.setBalanceAfter(balanceAfter);
+        return tx;
+    }
+
+    private WalletResponse doTransfer(TransferRequest request, String idempotencyKey) {
+        long amount = Money.toPositiveMinor(request.getAmount());
+        Long fromId = request.getFromWalletId();
+        Long toId = request.getToWalletId();
+        boolean stripedCredit = stripedBalances.isStriped(toId);
+        Wallet from;
+        Wallet to;
+        if (stripedCredit && !stripedBalances.isStriped(fromId)) {
+            // The payee's row is left unlocked; the credit goes to one of its stripes
+            from = lockWalletOrThrow(fromId);
+            to = findWalletOrThrow(toId);
+        } else {
+            // Always lock the lower id first so two opposite transfers can never deadlock. With both
+            // wallets striped, holding both rows also keeps them from locking each other's stripes
+            // in opposite orders
+            Wallet first = lockWalletOrThrow(Math.min(fromId, toId));
+            Wallet second = lockWalletOrThrow(Math.max(fromId, toId));
+            from = first.getId().equals(fromId) ? first : second;
+            to = first.getId().equals(fromId) ? second : first;
+        }
+        stripedBalances.fold(from);
+
+        long fromBalance = Money.toMinor(from.getBalance());
+        if (fromBalance < amount) {
+            metrics.insufficientBalance();
             throw new IllegalArgumentException("Insufficient balance in source wallet");
         }
 
-        String reference = UUID.randomUUID().toString();
+        String reference = ReferenceGenerator.next();
 
-        BigDecimal newFromBalance = from.getBalance().subtract(request.getAmount());
+        BigDecimal newFromBalance = Money.toDecimal(fromBalance - amount);
         from.setBalance(newFromBalance);
 
         WalletTransaction debitTx = new WalletTransaction();
@@ -86,45 +454,251 @@ public class WalletService {
         debitTx.setDescription(request.getDescription());
         debitTx.setReference(reference);
         debitTx.setBalanceAfter(newFromBalance);
-        
-        BigDecimal newToBalance = to.getBalance().add(request.getAmount());
-        to.setBalance(newToBalance);
 
-        WalletTransaction creditTx = new WalletTransaction();
-        creditTx.setWallet(to);
-        creditTx.setAmount(request.getAmount());
-        creditTx.setType(TransactionType.TRANSFER_CREDIT);
-        creditTx.setDescription(request.getDescription());
-        creditTx.setReference(reference);
-        creditTx.setBalanceAfter(newToBalance);
+        // A striped credit has no single balance after it, so none is recorded
+        BigDecimal newToBalance = null;
+        List<Wallet> changed = List.of(from);
+        if (!stripedCredit || !stripedBalances.credit(toId, reference, request.getAmount())) {
+            newToBalance = Money.toDecimal(Math.addExact(Money.toMinor(to.getBalance()), amount));
+            to.setBalance(newToBalance);
+            changed = List.of(from, to);
+        }
+
+        walletRepository.saveAll(changed);
+        List<WalletTransaction> entries;
+        if (isCompactLedger()) {
+            debitTx.setCounterpartyWalletId(to.getId());
+            debitTx.setCounterpartyBalanceAfter(newToBalance);
+            entries = List.of(debitTx);
+        } else {
+            WalletTransaction creditTx = new WalletTransaction();
+            creditTx.setWallet(to);
+            creditTx.setAmount(request.getAmount());
+            creditTx.setType(TransactionType.TRANSFER_CREDIT);
+            creditTx.setDescription(request.getDescription());
+            creditTx.setReference(reference);
+            creditTx.setBalanceAfter(newToBalance);
+            entries = List.of(debitTx, creditTx);
+        }
+        transactionRepository.saveAll(entries);
+        outboxWriter.append(entries, List.of(from, to));
+        eventPublisher.publishEvent(new WalletChangedEvent(changed));
 
-        walletRepository.saveAll(List.of(from,to));
-        transactionRepository.saveAll(List.of(debitTx,creditTx));
-        return toWalletResponse(from);
+        WalletResponse response = toWalletResponse(from);
+        if (idempotencyKey != null) {
+            idempotencyService.record(idempotencyKey, IdempotencyService.transferScope(request), response);
+        }
+        return response;
     }
 
-    @Transactional(readOnly = true)
     public WalletResponse getWallet(Long walletId) {
-        Wallet wallet = findWalletOrThrow(walletId);
-        return toWalletResponse(wallet);
+        return metrics.record(Operation.GET_WALLET, () -> getWalletSnapshot(walletId).toResponse());
+    }
+
+    /**
+     * The wallet as last committed, from the cache when possible. A striped
+     * wallet is always read from the database, as its row plus its stripes.
+     * With the balance engine on, the balance is the engine's.
+     */
+    public WalletSnapshot getWalletSnapshot(Long walletId) {
+        if (stripedBalances.isStriped(walletId)) {
+            return shardRouter.onWallet(walletId, () -> walletRepository.findStripedSnapshotById(walletId))
+                    .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
+        }
+        WalletSnapshot snapshot = storedSnapshot(walletId);
+        if (engine.isEnabled()) {
+            OptionalLong balance = engine.balance(walletId);
+            if (balance.isPresent()) {
+                return snapshot.withBalance(Money.toDecimal(balance.getAsLong()));
+            }
+        }
+        return snapshot;
+    }
+
+    private WalletSnapshot storedSnapshot(Long walletId) {
+        WalletSnapshot cached = walletCache.get(walletId);
+        if (cached != null) {
+            return cached;
+        }
+        WalletSnapshot snapshot = shardRouter.onWallet(walletId, () -> walletRepository.findSnapshotById(walletId))
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
+        walletCache.put(snapshot);
+        return snapshot;
+    }
+
+    // The wallet as stored, with the balance the engine left it at
+    private WalletResponse engineResponse(Long walletId, BalanceEngine.Receipt receipt) {
+        return storedSnapshot(walletId).withBalance(Money.toDecimal(receipt.balanceAfter())).toResponse();
+    }
+
+    public TransactionPage getTransactions(Long walletId, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return metrics.record(Operation.GET_TRANSACTIONS, () -> {
+            TransactionPage page = shardRouter.onWallet(walletId, () -> readOnlyTransactionTemplate.execute(
+                    status -> findTransactions(walletId, cursor, limit)));
+            metrics.historyRows(page.getItems().size());
+            return page;
+        });
     }
 
-    @Transactional(readOnly = true)
-    public List<TransactionResponse> getTransactions(Long walletId) {
-        Wallet wallet = findWalletOrThrow(walletId);
-        return transactionRepository.findByWalletOrderByCreatedAtDesc(wallet)
-                .stream()
-                .map(this::toTransactionResponse)
-                .collect(Collectors.toList());
+    private TransactionPage findTransactions(Long walletId, String cursor, int limit) {
+        requireWallet(walletId);
+
+        // Fetch one extra row to learn whether another page exists
+        Limit fetch = Limit.of(limit + 1);
+        TransactionCursor position = null;
+        List<TransactionResponse> own;
+        List<TransactionResponse> credits;
+        if (cursor == null || cursor.isBlank()) {
+            own = transactionRepository.findLatest(walletId, fetch);
+            credits = transactionRepository.findLatestAsCounterparty(walletId, fetch);
+        } else {
+            position = TransactionCursor.decode(cursor);
+            own = transactionRepository.findBefore(walletId, position.getCreatedAt(), position.getId(), fetch);
+            credits = transactionRepository.findBeforeAsCounterparty(walletId, position.getCreatedAt(), position.getId(), fetch);
+        }
+        List<TransactionResponse> rows = mergeNewestFirst(own, credits, limit + 1);
+        if (rows.size() <= limit && hasArchive()) {
+            // The page runs past the hot rows; the rest of it comes from the archive, which is all older
+            if (!rows.isEmpty()) {
+                TransactionResponse last = rows.get(rows.size() - 1);
+                position = new TransactionCursor(last.getCreatedAt(), last.getId());
+            }
+            List<TransactionResponse> archived = findArchivedTransactions(walletId, position, limit + 1 - rows.size());
+            if (!archived.isEmpty()) {
+                List<TransactionResponse> combined = new ArrayList<>(rows.size() + archived.size());
+                combined.addAll(rows);
+                combined.addAll(archived);
+                rows = combined;
+            }
+        }
+
+        boolean hasMore = rows.size() > limit;
+        List<TransactionResponse> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionResponse last = items.get(items.size() - 1);
+            nextCursor = new TransactionCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new TransactionPage(items, nextCursor);
+    }
+
+    private List<TransactionResponse> findArchivedTransactions(Long walletId, TransactionCursor position, int max) {
+        Limit fetch = Limit.of(max);
+        List<TransactionResponse> own;
+        List<TransactionResponse> credits;
+        if (position == null) {
+            own = archivedTransactionRepository.findLatest(walletId, fetch);
+            credits = archivedTransactionRepository.findLatestAsCounterparty(walletId, fetch);
+        } else {
+            own = archivedTransactionRepository.findBefore(walletId, position.getCreatedAt(), position.getId(), fetch);
+            credits = archivedTransactionRepository.findBeforeAsCounterparty(walletId, position.getCreatedAt(),
+                    position.getId(), fetch);
+        }
+        return mergeNewestFirst(own, credits, max);
+    }
+
+    // Archiving is off by default; until it has moved a row on this shard there is nothing to read there
+    private boolean hasArchive() {
+        return watermarkRepository.findById(LedgerArchiver.JOB_NAME).map(JobWatermark::getLastId).orElse(0L) > 0;
+    }
+
+    /**
+     * Pushes a wallet's full history, newest first, to {@code sink} from a
+     * forward-only cursor. Rows are projected straight into DTOs and never
+     * enter the persistence context, so memory stays flat however long the
+     * history is. Archived rows follow the hot ones.
+     */
+    public void streamTransactions(Long walletId, Consumer<TransactionResponse> sink) {
+        shardRouter.onWallet(walletId, () -> readOnlyTransactionTemplate.execute(status -> {
+            pushTransactions(walletId, sink);
+            return null;
+        }));
+    }
+
+    private void pushTransactions(Long walletId, Consumer<TransactionResponse> sink) {
+        requireWallet(walletId);
+        try (Stream<TransactionResponse> own = transactionRepository.streamByWalletId(walletId);
+             Stream<TransactionResponse> credits = transactionRepository.streamByCounterpartyWalletId(walletId)) {
+            pushMerged(own, credits, sink);
+        }
+        if (!hasArchive()) {
+            return;
+        }
+        try (Stream<TransactionResponse> own = archivedTransactionRepository.streamByWalletId(walletId);
+             Stream<TransactionResponse> credits = archivedTransactionRepository.streamByCounterpartyWalletId(walletId)) {
+            pushMerged(own, credits, sink);
+        }
+    }
+
+    private static void pushMerged(Stream<TransactionResponse> own, Stream<TransactionResponse> credits,
+                                   Consumer<TransactionResponse> sink) {
+        Iterator<TransactionResponse> ownRows = own.iterator();
+        Iterator<TransactionResponse> creditRows = credits.iterator();
+        TransactionResponse nextOwn = ownRows.hasNext() ? ownRows.next() : null;
+        TransactionResponse nextCredit = creditRows.hasNext() ? creditRows.next() : null;
+        while (nextOwn != null || nextCredit != null) {
+            if (nextCredit == null || (nextOwn != null && NEWEST_FIRST.compare(nextOwn, nextCredit) <= 0)) {
+                sink.accept(nextOwn);
+                nextOwn = ownRows.hasNext() ? ownRows.next() : null;
+            } else {
+                sink.accept(nextCredit);
+                nextCredit = creditRows.hasNext() ? creditRows.next() : null;
+            }
+        }
+    }
+
+    /**
+     * Merges a wallet's own rows with the compact transfer rows that credit it.
+     * Both lists are newest first; both are always read so that history written
+     * in either ledger format stays complete after switching formats.
+     */
+    private static List<TransactionResponse> mergeNewestFirst(List<TransactionResponse> own,
+                                                              List<TransactionResponse> credits,
+                                                              int max) {
+        if (credits.isEmpty()) {
+            return own;
+        }
+        List<TransactionResponse> merged = new ArrayList<>(Math.min(max, own.size() + credits.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < max && (i < own.size() || j < credits.size())) {
+            if (j == credits.size() || (i < own.size() && NEWEST_FIRST.compare(own.get(i), credits.get(j)) <= 0)) {
+                merged.add(own.get(i++));
+            } else {
+                merged.add(credits.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    public void requireWallet(Long walletId) {
+        if (!shardRouter.onWallet(walletId, () -> walletRepository.existsById(walletId))) {
+            throw new EntityNotFoundException("Wallet not found with id: " + walletId);
+        }
     }
 
    
+    private boolean isCompactLedger() {
+        return ledgerProperties.getFormat() == LedgerProperties.Format.COMPACT;
+    }
+
     private Wallet findWalletOrThrow(Long walletId) {
         return walletRepository.findById(walletId)
                 .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
     }
 
-    private WalletResponse toWalletResponse(Wallet wallet) {
+    private Wallet lockWalletOrThrow(Long walletId) {
+        if (transferProperties.getLockMode() == TransferProperties.LockMode.OPTIMISTIC) {
+            return findWalletOrThrow(walletId);
+        }
+        return walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new EntityNotFoundException("Wallet not found with id: " + walletId));
+    }
+
+    static WalletResponse toWalletResponse(Wallet wallet) {
         WalletResponse resp = new WalletResponse();
         resp.setId(wallet.getId());
         resp.setOwnerName(wallet.getOwnerName());
@@ -134,17 +708,4 @@ public class WalletService {
         resp.setReference(wallet.getReference());
         return resp;
     }
-
-    private TransactionResponse toTransactionResponse(WalletTransaction tx) {
-        TransactionResponse resp = new TransactionResponse();
-        resp.setId(tx.getId());
-        resp.setWalletId(tx.getWallet().getId());
-        resp.setAmount(tx.getAmount());
-        resp.setType(tx.getType());
-        resp.setCreatedAt(tx.getCreatedAt());
-        resp.setDescription(tx.getDescription());
-        resp.setReference(tx.getReference());
-        resp.setBalanceAfter(tx.getBalanceAfter());
-        return resp;
-    }
 }
@@ -0,0 +1,65 @@
+package com.example.ewallet.shard;
+
+import com.example.ewallet.config.ReplicaProperties;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.event.WalletChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Remembers the wallets this node changed within the read-your-writes
+ * window, so that reading them goes to the primary: a client that has just
+ * created, recharged or transferred from a wallet sees the change even
+ * while the replica has not applied it yet. Once the window exceeds max-lag
+ * a replica that is still in use has caught up anyway.
+ *
+ * <p>That memory is per node. For a client whose next request lands on
+ * another node, {@link com.example.ewallet.web.ReadYourWritesFilter} carries
+ * the time of its last write in a cookie and binds it to the thread serving
+ * its reads; while that is within the window, all of them go to the primary.
+ */
+public class ReadYourWritesTracker {
+
+    public static final String COOKIE = "ewallet-last-write";
+
+    private static final ThreadLocal<Long> CLIENT_WRITE = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> recentWrites;
+    private final long windowMillis;
+
+    public ReadYourWritesTracker(ReplicaProperties properties) {
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getReadYourWritesWindow())
+                .build();
+        this.windowMillis = properties.getReadYourWritesWindow().toMillis();
+    }
+
+    /**
+     * Binds the epoch millis of the current client's last write, as read
+     * from its cookie, to this thread until {@link #clearClientWrite()}.
+     */
+    public static void bindClientWrite(long writtenAtMillis) {
+        CLIENT_WRITE.set(writtenAtMillis);
+    }
+
+    public static void clearClientWrite() {
+        CLIENT_WRITE.remove();
+    }
+
+    public boolean isRecentlyWritten(Long walletId) {
+        Long clientWrite = CLIENT_WRITE.get();
+        if (clientWrite != null && System.currentTimeMillis() - clientWrite < windowMillis) {
+            return true;
+        }
+        return walletId != null && recentWrites.getIfPresent(walletId) != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWalletChanged(WalletChangedEvent event) {
+        for (Wallet wallet : event.getWallets()) {
+            recentWrites.put(wallet.getId(), Boolean.TRUE);
+        }
+    }
+}
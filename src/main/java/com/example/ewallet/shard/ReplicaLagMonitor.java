@@ -0,0 +1,128 @@
+package com.example.ewallet.shard;
+
+import com.example.ewallet.config.ReplicaProperties;
+import com.example.ewallet.entity.ReplicaHeartbeat;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how far each shard's replica trails its primary. Every
+ * heartbeat-interval the primary's {@link ReplicaHeartbeat} row is stamped
+ * with the current time and the replica's copy of it is read back: the copy
+ * is as old as the replica is behind. A replica that lags by more than
+ * max-lag, or cannot be read at all, is bypassed until the next check finds
+ * it caught up.
+ */
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final ShardPools pools;
+    private final long maxLagMillis;
+    private final AtomicLongArray lagMillis;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder lagFallbacks = new LongAdder();
+    private final LongAdder recentWriteFallbacks = new LongAdder();
+
+    public ReplicaLagMonitor(ShardPools pools, ReplicaProperties properties) {
+        this.pools = pools;
+        this.maxLagMillis = properties.getMaxLag().toMillis();
+        this.lagMillis = new AtomicLongArray(pools.size());
+        for (int shard = 0; shard < pools.size(); shard++) {
+            lagMillis.set(shard, UNKNOWN);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.replica.heartbeat-interval:PT1S}")
+    public void check() {
+        for (int shard = 0; shard < pools.size(); shard++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                beat(new JdbcTemplate(pools.primary(shard)), now);
+            } catch (DataAccessException e) {
+                log.warn("Could not stamp the replica heartbeat on shard {}", shard, e);
+            }
+            lagMillis.set(shard, measure(shard, now));
+        }
+    }
+
+    public boolean isUsable(int shard) {
+        return lagMillis.get(shard) <= maxLagMillis;
+    }
+
+    void recordReplicaRead() {
+        replicaReads.increment();
+    }
+
+    void recordLagFallback() {
+        lagFallbacks.increment();
+    }
+
+    void recordRecentWriteFallback() {
+        recentWriteFallbacks.increment();
+    }
+
+    private void beat(JdbcTemplate primary, LocalDateTime now) {
+        Timestamp beatAt = Timestamp.valueOf(now);
+        int updated = primary.update("update replica_heartbeat set beat_at = ? where id = ?",
+                beatAt, ReplicaHeartbeat.ID);
+        if (updated == 0) {
+            primary.update("insert into replica_heartbeat (id, beat_at) values (?, ?)",
+                    ReplicaHeartbeat.ID, beatAt);
+        }
+    }
+
+    private long measure(int shard, LocalDateTime now) {
+        try {
+            Timestamp beatAt = new JdbcTemplate(pools.replica(shard)).query(
+                    "select beat_at from replica_heartbeat where id = ?",
+                    rs -> rs.next() ? rs.getTimestamp(1) : null, ReplicaHeartbeat.ID);
+            if (beatAt == null) {
+                return UNKNOWN;
+            }
+            return Math.max(0, beatAt.toLocalDateTime().until(now, ChronoUnit.MILLIS));
+        } catch (DataAccessException e) {
+            log.warn("Could not read the replica heartbeat on shard {}; reading from the primary", shard, e);
+            return UNKNOWN;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (int shard = 0; shard < pools.size(); shard++) {
+            int index = shard;
+            Gauge.builder("ewallet.replica.lag", lagMillis, lags -> lags.get(index) == UNKNOWN ? Double.NaN : lags.get(index))
+                    .description("Age of the replica's copy of the heartbeat at the last check")
+                    .baseUnit("milliseconds")
+                    .tag("shard", String.valueOf(shard))
+                    .register(registry);
+        }
+        FunctionCounter.builder("ewallet.replica.reads", replicaReads, LongAdder::sum)
+                .description("Read-only transactions routed to a database")
+                .tag("route", "replica")
+                .register(registry);
+        FunctionCounter.builder("ewallet.replica.reads", lagFallbacks, LongAdder::sum)
+                .description("Read-only transactions routed to a database")
+                .tag("route", "primary-lag")
+                .register(registry);
+        FunctionCounter.builder("ewallet.replica.reads", recentWriteFallbacks, LongAdder::sum)
+                .description("Read-only transactions routed to a database")
+                .tag("route", "primary-recent-write")
+                .register(registry);
+    }
+}
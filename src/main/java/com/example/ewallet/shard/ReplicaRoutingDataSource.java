@@ -0,0 +1,54 @@
+package com.example.ewallet.shard;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connections for one shard's read-only transactions: from the replica while
+ * {@link ReplicaLagMonitor} finds it within max-lag and neither the wallet
+ * being read nor, by its cookie, the client has just written, from the
+ * primary otherwise.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final int shard;
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker writesTracker;
+
+    public ReplicaRoutingDataSource(int shard, DataSource primary, DataSource replica,
+                                    ReplicaLagMonitor lagMonitor, ReadYourWritesTracker writesTracker) {
+        this.shard = shard;
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.writesTracker = writesTracker;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return choose().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return choose().getConnection(username, password);
+    }
+
+    private DataSource choose() {
+        if (!lagMonitor.isUsable(shard)) {
+            lagMonitor.recordLagFallback();
+            return primary;
+        }
+        if (writesTracker.isRecentlyWritten(ShardRouter.currentWallet())) {
+            lagMonitor.recordRecentWriteFallback();
+            return primary;
+        }
+        lagMonitor.recordReplicaRead();
+        return replica;
+    }
+}
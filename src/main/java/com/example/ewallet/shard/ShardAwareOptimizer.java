@@ -0,0 +1,70 @@
+package com.example.ewallet.shard;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.InitialValueAwareOptimizer;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.hibernate.sql.ast.tree.expression.Expression;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pooled optimizer that keeps one block of ids per shard. A plain pooled
+ * optimizer would hand out ids read from whichever shard last refilled it,
+ * so ids written to one shard could fall in another shard's range.
+ */
+public class ShardAwareOptimizer implements Optimizer, InitialValueAwareOptimizer {
+
+    private final Class<?> returnClass;
+    private final int incrementSize;
+    private final ConcurrentHashMap<Integer, PooledOptimizer> shards = new ConcurrentHashMap<>();
+    private volatile long initialValue = -1;
+
+    public ShardAwareOptimizer(Class<?> returnClass, int incrementSize) {
+        this.returnClass = returnClass;
+        this.incrementSize = incrementSize;
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        return current().generate(callback);
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return current().getLastSourceValue();
+    }
+
+    @Override
+    public int getIncrementSize() {
+        return incrementSize;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    @Override
+    public Expression createLowValueExpression(Expression databaseValue, SessionFactoryImplementor sessionFactory) {
+        return current().createLowValueExpression(databaseValue, sessionFactory);
+    }
+
+    @Override
+    public void injectInitialValue(long initialValue) {
+        this.initialValue = initialValue;
+    }
+
+    private PooledOptimizer current() {
+        return shards.computeIfAbsent(ShardRouter.currentShard(), shard -> {
+            PooledOptimizer optimizer = new PooledOptimizer(returnClass, incrementSize);
+            if (initialValue != -1) {
+                optimizer.injectInitialValue(initialValue);
+            }
+            return optimizer;
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ewallet.shard;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * The primary connection pool of every shard and, with read replicas
+ * enabled, the replica pool next to it. Owns the pools and closes them.
+ */
+public class ShardPools implements AutoCloseable {
+
+    private final List<DataSource> primaries;
+    private final List<DataSource> replicas;
+
+    public ShardPools(List<DataSource> primaries, List<DataSource> replicas) {
+        this.primaries = List.copyOf(primaries);
+        this.replicas = List.copyOf(replicas);
+    }
+
+    public int size() {
+        return primaries.size();
+    }
+
+    public DataSource primary(int shard) {
+        return primaries.get(shard);
+    }
+
+    // null when the shard has no replica
+    public DataSource replica(int shard) {
+        return replicas.isEmpty() ? null : replicas.get(shard);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource pool : replicas) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        for (DataSource pool : primaries) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ewallet.shard;
+
+import com.example.ewallet.config.ShardingProperties;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Knows which shard holds a wallet and binds the current thread to a shard,
+ * so that {@link ShardRoutingDataSource} hands out that shard's connections.
+ *
+ * <p>A wallet's shard is encoded in the top bits of its id: every sequence on
+ * shard {@code n} starts at {@code n << SHARD_SHIFT}, so routing needs no
+ * lookup table and a wallet never moves. Everything a wallet owns (ledger,
+ * outbox events, idempotency keys, daily balances) is written in the wallet's
+ * transaction and therefore lives on the same shard. User accounts, and the
+ * wallets created with them at signup, stay on shard 0.
+ *
+ * <p>The shard has to be bound before a transaction starts; a transaction
+ * keeps the connection it began with. With sharding disabled there is a
+ * single shard 0 and binding only sets a thread-local. Work bound through
+ * {@link #onWallet} also records the wallet, which lets replica routing keep
+ * reads of a just-changed wallet on the primary.
+ */
+@Component
+public class ShardRouter {
+
+    public static final int SHARD_SHIFT = 40;
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    private final int shardCount;
+    private final AtomicInteger placements = new AtomicInteger();
+
+    public ShardRouter(ShardingProperties properties) {
+        this.shardCount = properties.isEnabled() ? Math.max(1, properties.getUrls().size()) : 1;
+    }
+
+    public static int currentShard() {
+        Binding binding = CURRENT.get();
+        return binding != null ? binding.shard() : 0;
+    }
+
+    // Wallet the current work was bound for, or null for shard-wide work
+    public static Long currentWallet() {
+        Binding binding = CURRENT.get();
+        return binding != null ? binding.walletId() : null;
+    }
+
+    // Lowest id the sequences of a shard may hand out
+    public static long firstId(int shard) {
+        return (long) shard << SHARD_SHIFT;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardOf(Long walletId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        long shard = walletId >>> SHARD_SHIFT;
+        if (walletId < 0 || shard >= shardCount) {
+            throw new EntityNotFoundException("Wallet not found with id: " + walletId);
+        }
+        return (int) shard;
+    }
+
+    // Shard for a new wallet; wallets are spread round-robin
+    public int nextShard() {
+        return Math.floorMod(placements.getAndIncrement(), shardCount);
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return bind(new Binding(shard, null), work);
+    }
+
+    public <T> T onWallet(Long walletId, Supplier<T> work) {
+        return bind(new Binding(shardOf(walletId), walletId), work);
+    }
+
+    private <T> T bind(Binding binding, Supplier<T> work) {
+        int shard = binding.shard();
+        if (currentShard() != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cannot switch to shard " + shard
+                    + " inside a transaction on shard " + currentShard());
+        }
+        Binding previous = CURRENT.get();
+        CURRENT.set(binding);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void onEachShard(IntConsumer work) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            int current = shard;
+            onShard(shard, () -> {
+                work.accept(current);
+                return null;
+            });
+        }
+    }
+
+    private record Binding(int shard, Long walletId) {
+    }
+}
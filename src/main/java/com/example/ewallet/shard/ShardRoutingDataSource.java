@@ -0,0 +1,15 @@
+package com.example.ewallet.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the shard bound by {@link ShardRouter}, or of
+ * shard 0 when none is bound. The shard pools are closed by {@link ShardPools}.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouter.currentShard();
+    }
+}
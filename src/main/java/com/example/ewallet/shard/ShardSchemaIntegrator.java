@@ -0,0 +1,40 @@
+package com.example.ewallet.shard;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+/**
+ * Applies the configured schema action ({@code spring.jpa.hibernate.ddl-auto})
+ * to every shard but the first. Hibernate only manages the schema of the
+ * connection it boots with, which is shard 0.
+ */
+public class ShardSchemaIntegrator implements Integrator {
+
+    private final ShardRouter shardRouter;
+
+    public ShardSchemaIntegrator(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        sessionFactory.addObserver(new SessionFactoryObserver() {
+            @Override
+            public void sessionFactoryCreated(SessionFactory factory) {
+                for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+                    shardRouter.onShard(shard, () -> {
+                        SchemaManagementToolCoordinator.process(metadata, sessionFactory.getServiceRegistry(),
+                                factory.getProperties(), action -> {
+                                });
+                        return null;
+                    });
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ewallet.web;
+
+import com.example.ewallet.shard.ReadYourWritesTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Carries read-your-writes from node to node with the client. Every request
+ * that may write gets a cookie with the current time; it is set before the
+ * request runs, since by the time the write commits the response may already
+ * be committed. A read presenting the cookie has that time bound for
+ * {@link ReadYourWritesTracker}, so within the window it is served from the
+ * primary on whichever node it lands. Reads handed off to another thread,
+ * such as streamed history, only have the serving node's own memory.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            Cookie cookie = new Cookie(ReadYourWritesTracker.COOKIE, Long.toString(System.currentTimeMillis()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Long writtenAt = lastWrite(request);
+        if (writtenAt == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadYourWritesTracker.bindClientWrite(writtenAt);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWritesTracker.clearClientWrite();
+        }
+    }
+
+    private static Long lastWrite(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (ReadYourWritesTracker.COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.valueOf(cookie.getValue());
+                } catch (NumberFormatException ex) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
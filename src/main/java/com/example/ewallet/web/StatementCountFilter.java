@@ -0,0 +1,57 @@
+package com.example.ewallet.web;
+
+import com.example.ewallet.metrics.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many JDBC statements were prepared while serving each API
+ * request, tagged with the HTTP method and the matched route pattern
+ * (e.g. {@code /api/wallets/{walletId}/transfer}) rather than the raw path.
+ *
+ * <p>Only statements on the request thread during its first dispatch are
+ * counted. Work handed to other threads is not: recharges written by the
+ * group-commit writer, ledger rows projected from the balance engine's
+ * journal, the account insert after a signup hash, and streamed history.
+ */
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    public StatementCountFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        StatementCounter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int count = StatementCounter.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            statements(request.getMethod(), pattern != null ? pattern.toString() : "UNKNOWN").record(count);
+        }
+    }
+
+    private DistributionSummary statements(String method, String uri) {
+        return DistributionSummary.builder("ewallet.http.jdbc.statements")
+                .description("JDBC statements prepared on the request thread per API request")
+                .baseUnit("statements")
+                .tags(Tags.of("method", method, "uri", uri))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(1_000.0)
+                .register(registry);
+    }
+}
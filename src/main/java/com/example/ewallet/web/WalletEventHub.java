@@ -0,0 +1,316 @@
+package com.example.ewallet.web;
+
+import com.example.ewallet.cache.WalletSnapshot;
+import com.example.ewallet.config.WalletEventsProperties;
+import com.example.ewallet.entity.Wallet;
+import com.example.ewallet.event.WalletChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fans committed wallet changes out to Server-Sent Event subscribers.
+ *
+ * <p>Streams are async servlet responses, so an idle subscriber costs a socket
+ * and a few objects but no thread. Writes happen on a small shared pool, and
+ * each subscriber has at most one write task queued or running. Once the
+ * stream has started, its output is switched to non-blocking mode and events
+ * are written to it directly: a write is only made when the container
+ * reports the socket ready, and otherwise waits for its
+ * {@link WriteListener}, so a reader that stops reading never holds a sender
+ * thread. Updates are conflated: a subscriber only ever holds the newest
+ * snapshot of its wallet, so a slow reader skips intermediate balances
+ * instead of buffering them. A reader whose socket stays full past
+ * {@code slow-consumer-timeout} is disconnected, and idle streams get a
+ * comment line every {@code heartbeat-interval} to keep proxies from closing
+ * them.
+ */
+@Component
+public class WalletEventHub implements MeterBinder {
+
+    private static final String SUBSCRIBER_ATTRIBUTE = WalletEventHub.class.getName() + ".subscriber";
+
+    private final WalletEventsProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor senders;
+    private final ConcurrentHashMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder disconnectedSlow = new LongAdder();
+
+    public WalletEventHub(WalletEventsProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        int threads = properties.getSenderThreads() > 0
+                ? properties.getSenderThreads()
+                : Math.max(2, Runtime.getRuntime().availableProcessors());
+        // Each subscriber queues at most one task, so the queue is bounded by max-subscribers
+        this.senders = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("wallet-events-"));
+    }
+
+    /**
+     * Opens a stream for the wallet that starts with its current state and
+     * then carries every committed change. The subscriber is registered before
+     * {@code current} is read, so a commit in between is not missed; the
+     * version check drops whichever of the two turns out to be stale.
+     * Nothing is written until {@link #streamStarted} has run for the request.
+     *
+     * @throws RejectedExecutionException when {@code max-subscribers} streams are already open
+     */
+    public SseEmitter subscribe(Long walletId, HttpServletRequest request, Supplier<WalletSnapshot> current) {
+        if (subscriberCount.incrementAndGet() > properties.getMaxSubscribers()) {
+            subscriberCount.decrementAndGet();
+            throw new RejectedExecutionException("Too many open event streams");
+        }
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(walletId, emitter);
+        // Added inside compute so that a concurrent remove() cannot unmap the set in between
+        subscribers.compute(walletId, (id, watching) -> {
+            Set<Subscriber> set = watching != null ? watching : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        WalletSnapshot snapshot;
+        try {
+            snapshot = current.get();
+        } catch (RuntimeException ex) {
+            remove(subscriber);
+            throw ex;
+        }
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+        request.setAttribute(SUBSCRIBER_ATTRIBUTE, subscriber);
+        offer(subscriber, snapshot);
+        return emitter;
+    }
+
+    /**
+     * Switches a stream opened by {@link #subscribe} to non-blocking writes.
+     * Runs on the request thread after async processing has started, when the
+     * emitter has written the response headers and nothing else writes to it.
+     */
+    public void streamStarted(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!(request.getAttribute(SUBSCRIBER_ATTRIBUTE) instanceof Subscriber subscriber)) {
+            return;
+        }
+        ServletOutputStream output = response.getOutputStream();
+        output.setWriteListener(new WriteListener() {
+            @Override
+            public void onWritePossible() {
+                subscriber.writePossible = true;
+                schedule(subscriber);
+            }
+
+            @Override
+            public void onError(Throwable ex) {
+                remove(subscriber);
+            }
+        });
+        // Only set once the listener is in place, since isReady() is illegal before; then send whatever was
+        // offered so far
+        subscriber.output = output;
+        subscriber.writePossible = true;
+        schedule(subscriber);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWalletChanged(WalletChangedEvent event) {
+        for (Wallet wallet : event.getWallets()) {
+            Set<Subscriber> watching = subscribers.get(wallet.getId());
+            if (watching == null || watching.isEmpty()) {
+                continue;
+            }
+            WalletSnapshot snapshot = WalletSnapshot.of(wallet);
+            for (Subscriber subscriber : watching) {
+                offer(subscriber, snapshot);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ewallet.events.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long slowNanos = properties.getSlowConsumerTimeout().toNanos();
+        for (Set<Subscriber> watching : subscribers.values()) {
+            for (Subscriber subscriber : watching) {
+                long since = subscriber.blockedSince;
+                if (since != 0 && now - since > slowNanos) {
+                    disconnectedSlow.increment();
+                    remove(subscriber);
+                    subscriber.emitter.complete();
+                    continue;
+                }
+                subscriber.heartbeatDue = true;
+                schedule(subscriber);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void offer(Subscriber subscriber, WalletSnapshot snapshot) {
+        WalletSnapshot replaced = subscriber.pending.getAndAccumulate(snapshot,
+                (current, next) -> current == null || current.getVersion() < next.getVersion() ? next : current);
+        if (replaced != null) {
+            conflated.increment();
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.output != null && subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        boolean blocked = false;
+        try {
+            while (!subscriber.closed) {
+                if (subscriber.pending.get() == null && !subscriber.heartbeatDue) {
+                    break;
+                }
+                subscriber.writePossible = false;
+                if (!subscriber.output.isReady()) {
+                    if (subscriber.blockedSince == 0) {
+                        subscriber.blockedSince = System.nanoTime();
+                    }
+                    blocked = true;
+                    break;
+                }
+                subscriber.blockedSince = 0;
+                WalletSnapshot next = subscriber.pending.getAndSet(null);
+                boolean heartbeat = subscriber.heartbeatDue;
+                subscriber.heartbeatDue = false;
+                if (next != null && next.getVersion() > subscriber.lastSentVersion) {
+                    write(subscriber, "id:" + next.getVersion() + "\nevent:balance\ndata:"
+                            + objectMapper.writeValueAsString(next.toResponse()) + "\n\n");
+                    subscriber.lastSentVersion = next.getVersion();
+                    sent.increment();
+                } else if (heartbeat) {
+                    write(subscriber, ":heartbeat\n\n");
+                }
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // The client went away or the stream already completed
+            remove(subscriber);
+        } finally {
+            subscriber.scheduled.set(false);
+            // Catch anything offered, or a write listener call that found the task still running,
+            // between the last check and clearing the flag
+            boolean more = blocked
+                    ? subscriber.writePossible
+                    : subscriber.pending.get() != null || subscriber.heartbeatDue;
+            if (!subscriber.closed && more) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    // The emitter's own send flushes after every part, which non-blocking mode only allows while the socket
+    // keeps up. An event fits in the response buffer, so written whole only its final flush reaches the socket.
+    private static void write(Subscriber subscriber, String event) throws IOException {
+        ServletOutputStream output = subscriber.output;
+        output.write(event.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.computeIfPresent(subscriber.walletId, (id, watching) -> {
+            if (watching.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return watching.isEmpty() ? null : watching;
+        });
+    }
+
+    // Open streams would otherwise hold up the web server's graceful shutdown until they time out
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        for (Set<Subscriber> watching : subscribers.values()) {
+            for (Subscriber subscriber : watching) {
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ewallet.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open wallet event streams")
+                .register(registry);
+        FunctionCounter.builder("ewallet.events.sent", sent, LongAdder::sum)
+                .description("Balance events written to subscribers")
+                .register(registry);
+        FunctionCounter.builder("ewallet.events.conflated", conflated, LongAdder::sum)
+                .description("Balance events replaced by a newer one before they were written")
+                .register(registry);
+        FunctionCounter.builder("ewallet.events.slow.disconnects", disconnectedSlow, LongAdder::sum)
+                .description("Subscribers disconnected because writes to them stalled")
+                .register(registry);
+    }
+
+    private static final class Subscriber {
+
+        private final Long walletId;
+        private final SseEmitter emitter;
+        private final AtomicReference<WalletSnapshot> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+        private volatile boolean writePossible;
+        // When the socket was first found full; 0 while it accepts writes
+        private volatile long blockedSince;
+        // Set once the stream has started; nothing is written before
+        private volatile ServletOutputStream output;
+        // Only touched by the single task draining this subscriber
+        private long lastSentVersion = -1;
+
+        private Subscriber(Long walletId, SseEmitter emitter) {
+            this.walletId = walletId;
+            this.emitter = emitter;
+        }
+    }
+}
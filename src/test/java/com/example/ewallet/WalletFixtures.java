@@ -0,0 +1,49 @@
+package com.example.ewallet;
+
+import com.example.ewallet.dto.CreateWalletRequest;
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+
+import java.math.BigDecimal;
+
+/**
+ * Wallets and requests for tests that drive {@link WalletService} directly.
+ */
+public final class WalletFixtures {
+
+    private WalletFixtures() {
+    }
+
+    public static Long createWallet(WalletService walletService, String owner) {
+        CreateWalletRequest request = new CreateWalletRequest();
+        request.setOwnerName(owner);
+        return walletService.createWallet(request).getId();
+    }
+
+    public static void recharge(WalletService walletService, Long walletId, String amount) {
+        walletService.recharge(walletId, rechargeRequest(amount));
+    }
+
+    public static RechargeRequest rechargeRequest(String amount) {
+        return rechargeRequest(new BigDecimal(amount));
+    }
+
+    public static RechargeRequest rechargeRequest(BigDecimal amount) {
+        RechargeRequest request = new RechargeRequest();
+        request.setAmount(amount);
+        return request;
+    }
+
+    public static TransferRequest transferRequest(Long from, Long to, String amount) {
+        return transferRequest(from, to, new BigDecimal(amount));
+    }
+
+    public static TransferRequest transferRequest(Long from, Long to, BigDecimal amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromWalletId(from);
+        request.setToWalletId(to);
+        request.setAmount(amount);
+        return request;
+    }
+}
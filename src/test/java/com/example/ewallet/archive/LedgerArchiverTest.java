@@ -0,0 +1,104 @@
+package com.example.ewallet.archive;
+
+import com.example.ewallet.config.LedgerProperties;
+import com.example.ewallet.dto.TransactionPage;
+import com.example.ewallet.dto.TransactionResponse;
+import com.example.ewallet.reconciliation.LedgerReconciler;
+import com.example.ewallet.repository.ReconciliationMismatchRepository;
+import com.example.ewallet.service.BalanceSnapshotService;
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "ewallet.archive.batch-size=3")
+class LedgerArchiverTest {
+
+    @Autowired
+    private LedgerArchiver archiver;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private LedgerReconciler reconciler;
+
+    @Autowired
+    private ReconciliationMismatchRepository mismatchRepository;
+
+    @Autowired
+    private LedgerProperties ledgerProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void historyReadsContinueFromTheHotLedgerIntoTheArchive() {
+        Long payer = createWallet(walletService, "archive-payer");
+        Long payee = createWallet(walletService, "archive-payee");
+        recharge(walletService, payer, "100.00");
+        walletService.transfer(transferRequest(payer, payee, "10.00"));
+        ledgerProperties.setFormat(LedgerProperties.Format.COMPACT);
+        try {
+            walletService.transfer(transferRequest(payer, payee, "20.00"));
+            walletService.transfer(transferRequest(payee, payer, "5.00"));
+        } finally {
+            ledgerProperties.setFormat(LedgerProperties.Format.PAIR);
+        }
+        jdbcTemplate.update("update wallet_transactions set created_at = created_at - interval '200' day "
+                + "where wallet_id in (?, ?)", payer, payee);
+        recharge(walletService, payer, "1.00");
+        walletService.transfer(transferRequest(payee, payer, "2.00"));
+        List<Long> before = pagedIds(payer);
+        balanceSnapshotService.rollUp(LocalDateTime.now());
+
+        long archived = archiver.archive();
+
+        assertThat(archived).isGreaterThanOrEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from wallet_transactions where wallet_id in (?, ?)",
+                Integer.class, payer, payee)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from wallet_transactions_archive where wallet_id in (?, ?)",
+                Integer.class, payer, payee)).isEqualTo(5);
+        assertThat(before).hasSize(6);
+        assertThat(pagedIds(payer)).containsExactlyElementsOf(before);
+        List<Long> streamed = new ArrayList<>();
+        walletService.streamTransactions(payer, row -> streamed.add(row.getId()));
+        assertThat(streamed).containsExactlyElementsOf(before);
+        assertThat(walletService.getTransactions(payee, null, 50).getItems())
+                .extracting(TransactionResponse::getBalanceAfter)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("23.00"), new BigDecimal("25.00"), new BigDecimal("30.00"),
+                        new BigDecimal("10.00"));
+
+        reconciler.reconcile();
+        assertThat(mismatchRepository.findAll())
+                .noneMatch(mismatch -> mismatch.getWalletId().equals(payer) || mismatch.getWalletId().equals(payee));
+    }
+
+    // Pages of three, so the history crosses from the hot rows into the archive inside a page
+    private List<Long> pagedIds(Long walletId) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = walletService.getTransactions(walletId, cursor, 3);
+            page.getItems().forEach(row -> ids.add(row.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
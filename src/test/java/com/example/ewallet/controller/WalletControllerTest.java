@@ -0,0 +1,44 @@
+package com.example.ewallet.controller;
+
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WalletControllerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Test
+    void anEmptyIdempotencyKeyIsTreatedAsNoKey() throws Exception {
+        Long walletId = createWallet(walletService, "blank-key");
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest recharge = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/wallets/" + walletId + "/recharge"))
+                .header("Content-Type", "application/json")
+                .header(WalletController.IDEMPOTENCY_KEY_HEADER, "")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"amount\": 10.00}"))
+                .build();
+
+        HttpResponse<String> first = client.send(recharge, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(recharge, HttpResponse.BodyHandlers.ofString());
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(second.statusCode()).isEqualTo(200);
+        assertThat(walletService.getWallet(walletId).getBalance()).isEqualByComparingTo("20.00");
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.ewallet.engine;
+
+import com.example.ewallet.EwalletApplication;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.rechargeRequest;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceEngineTest {
+
+    private static final int WALLETS = 8;
+    private static final int OPERATIONS = 300;
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void engineMatchesTheDatabasePathAndProjectsTheSameLedger() {
+        try (ConfigurableApplicationContext database = start("engine-parity-db", false);
+             ConfigurableApplicationContext engine = start("engine-parity-engine", true)) {
+            List<Long> databaseWallets = runScript(database.getBean(WalletService.class));
+            List<Long> engineWallets = runScript(engine.getBean(WalletService.class));
+            engine.getBean(JournalProjector.class).project();
+
+            assertThat(balances(engine, engineWallets)).isEqualTo(balances(database, databaseWallets));
+            assertThat(storedBalances(engine)).isEqualTo(storedBalances(database));
+            for (int i = 0; i < WALLETS; i++) {
+                assertThat(history(engine, engineWallets.get(i))).isEqualTo(history(database, databaseWallets.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void restartRecoversFromSnapshotAndJournalBeforeAnythingIsProjected() throws Exception {
+        List<Long> wallets;
+        List<BigDecimal> before;
+        try (ConfigurableApplicationContext engine = start("engine-recovery", true, "--ewallet.engine.projection-interval=1h")) {
+            wallets = runScript(engine.getBean(WalletService.class));
+            before = balances(engine, wallets);
+        }
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString())).anyMatch(name -> name.startsWith("snapshot-"));
+        }
+
+        try (ConfigurableApplicationContext restarted = start("engine-recovery", true)) {
+            assertThat(balances(restarted, wallets)).isEqualTo(before);
+            assertThat(storedBalances(restarted)).isNotEqualTo(before);
+
+            restarted.getBean(JournalProjector.class).project();
+            assertThat(storedBalances(restarted)).isEqualTo(before);
+        }
+    }
+
+    private ConfigurableApplicationContext start(String database, boolean engine, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--ewallet.engine.enabled=" + engine,
+                "--ewallet.engine.directory=" + journalDirectory,
+                "--ewallet.engine.segment-size=16KB",
+                "--ewallet.engine.snapshot-every=50",
+                "--ewallet.engine.projection-batch-size=64"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(EwalletApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    // Same seed, same calls: recharges, transfers and rejected transfers
+    private static List<Long> runScript(WalletService walletService) {
+        List<Long> wallets = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            wallets.add(createWallet(walletService, "wallet-" + i));
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < OPERATIONS; i++) {
+            Long from = wallets.get(random.nextInt(WALLETS));
+            BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(5_000), 2);
+            if (random.nextInt(4) == 0) {
+                walletService.recharge(from, rechargeRequest(amount));
+                continue;
+            }
+            Long to = wallets.get(random.nextInt(WALLETS));
+            TransferRequest transfer = transferRequest(from, to, amount);
+            transfer.setDescription("op-" + i);
+            try {
+                walletService.transfer(transfer);
+            } catch (IllegalArgumentException ex) {
+                // Insufficient balance or same wallet, on both paths alike
+            }
+        }
+        return wallets;
+    }
+
+    private static List<BigDecimal> balances(ConfigurableApplicationContext context, List<Long> wallets) {
+        WalletService walletService = context.getBean(WalletService.class);
+        return wallets.stream().map(id -> walletService.getWallet(id).getBalance().setScale(2)).toList();
+    }
+
+    private static List<BigDecimal> storedBalances(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class).queryForList("select balance from wallets order by id", BigDecimal.class)
+                .stream().map(balance -> balance.setScale(2)).toList();
+    }
+
+    private static List<String> history(ConfigurableApplicationContext context, Long walletId) {
+        return context.getBean(WalletService.class).getTransactions(walletId, null, 500).getItems().stream()
+                .map(tx -> tx.getType() + " " + tx.getAmount().setScale(2) + " " + tx.getBalanceAfter().setScale(2)
+                        + " " + tx.getDescription())
+                .toList();
+    }
+}
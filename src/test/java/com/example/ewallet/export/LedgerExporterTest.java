@@ -0,0 +1,156 @@
+package com.example.ewallet.export;
+
+import com.example.ewallet.config.LedgerExportProperties;
+import com.example.ewallet.dto.TransferRequest;
+import com.example.ewallet.service.Money;
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "ewallet.export.settle-delay=0s",
+        "ewallet.export.workers=3",
+        "ewallet.export.range-size=7",
+        "ewallet.export.rows-per-block=5"
+})
+class LedgerExporterTest {
+
+    @TempDir
+    static Path exportDirectory;
+
+    @DynamicPropertySource
+    static void exportProperties(DynamicPropertyRegistry registry) {
+        registry.add("ewallet.export.directory", exportDirectory::toString);
+    }
+
+    @Autowired
+    private LedgerExporter exporter;
+
+    @Autowired
+    private LedgerExportProperties properties;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void fullExportReadsBackAsTheLedgerInBothFormats() throws IOException {
+        Long payer = createWallet(walletService, "export-payer");
+        Long payee = createWallet(walletService, "export-payee");
+        for (int i = 0; i < 20; i++) {
+            recharge(walletService, payer, "12.34");
+            transfer(payer, payee, "1.05", i % 3 == 0 ? "rent, \"march\"" : null);
+        }
+
+        LedgerExport export = exporter.exportAll().get(0);
+
+        assertThat(export.files()).hasSizeGreaterThan(1);
+        List<String> exported = new ArrayList<>();
+        for (Path file : export.files()) {
+            LedgerExportFile.read(file, row -> exported.add(format(row.id(), row.walletId(), row.amount(),
+                    row.type().name(), row.description(), row.reference(), row.balanceAfter(),
+                    row.counterpartyWalletId(), row.counterpartyBalanceAfter())));
+        }
+        assertThat(exported).hasSize((int) export.rows()).isEqualTo(ledger(export.throughId()));
+
+        properties.setFormat(LedgerExportProperties.Format.CSV);
+        try {
+            LedgerExport csv = exporter.exportAll().get(0);
+            long lines = 0;
+            for (Path file : csv.files()) {
+                String content = Files.readString(file);
+                assertThat(content).startsWith("id,wallet_id,amount,type,created_at,");
+                lines += content.lines().count() - 1;
+            }
+            assertThat(lines).isEqualTo(csv.rows());
+        } finally {
+            properties.setFormat(LedgerExportProperties.Format.COLUMNAR);
+        }
+    }
+
+    @Test
+    void incrementalExportCarriesOnFromTheWatermark() {
+        Long wallet = createWallet(walletService, "export-incremental");
+        recharge(walletService, wallet, "5.00");
+        exporter.exportIncremental();
+
+        assertThat(exporter.exportIncremental()).isEmpty();
+
+        recharge(walletService, wallet, "6.00");
+        List<LedgerExport> exports = exporter.exportIncremental();
+
+        assertThat(exports).hasSize(1);
+        assertThat(exports.get(0).rows()).isEqualTo(1);
+        List<Long> amounts = new ArrayList<>();
+        LedgerExportFile.read(exports.get(0).files().get(0), row -> amounts.add(row.amount()));
+        assertThat(amounts).containsExactly(600L);
+    }
+
+    @Test
+    void rowsCommittedBelowTheWatermarkAreExportedByTheNextRun() {
+        Long wallet = createWallet(walletService, "export-late");
+        recharge(walletService, wallet, "7.00");
+        recharge(walletService, wallet, "8.00");
+        Map<String, Object> late = jdbcTemplate.queryForMap(
+                "select * from wallet_transactions where wallet_id = ? order by id fetch first 1 rows only", wallet);
+        jdbcTemplate.update("delete from wallet_transactions where id = ?", late.get("ID"));
+        exporter.exportIncremental();
+
+        new SimpleJdbcInsert(jdbcTemplate).withTableName("wallet_transactions").execute(late);
+        List<Long> ids = new ArrayList<>();
+        for (LedgerExport export : exporter.exportIncremental()) {
+            for (Path file : export.files()) {
+                LedgerExportFile.read(file, row -> ids.add(row.id()));
+            }
+        }
+
+        assertThat(ids).containsExactly(((Number) late.get("ID")).longValue());
+        assertThat(exporter.exportIncremental()).isEmpty();
+    }
+
+    private List<String> ledger(long throughId) {
+        return jdbcTemplate.query("select * from wallet_transactions where id <= ? order by id",
+                (rs, rowNum) -> format(rs.getLong("id"), rs.getLong("wallet_id"),
+                        Money.toMinor(rs.getBigDecimal("amount")), rs.getString("type"), rs.getString("description"),
+                        rs.getString("reference"), minor(rs.getBigDecimal("balance_after")),
+                        rs.getObject("counterparty_wallet_id", Long.class),
+                        minor(rs.getBigDecimal("counterparty_balance_after"))),
+                throughId);
+    }
+
+    private static Long minor(BigDecimal amount) {
+        return amount == null ? null : Money.toMinor(amount);
+    }
+
+    private static String format(Object... fields) {
+        return Arrays.asList(fields).toString();
+    }
+
+    private void transfer(Long from, Long to, String amount, String description) {
+        TransferRequest request = transferRequest(from, to, amount);
+        request.setDescription(description);
+        walletService.transfer(request);
+    }
+}
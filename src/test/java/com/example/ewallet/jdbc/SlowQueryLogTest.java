@@ -0,0 +1,60 @@
+package com.example.ewallet.jdbc;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slow-query;DB_CLOSE_DELAY=-1",
+        "ewallet.slow-query.enabled=true",
+        "ewallet.slow-query.threshold=0ms"
+})
+class SlowQueryLogTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Test
+    void slowStatementsAreLoggedInTheBackgroundWithTheirCaller() throws InterruptedException {
+        Logger logger = (Logger) LoggerFactory.getLogger("ewallet.slow-query");
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            createWallet(walletService, "alice");
+
+            Map<String, Object> insert = null;
+            for (int i = 0; i < 100 && insert == null; i++) {
+                insert = List.copyOf(appender.list).stream()
+                        .map(SlowQueryLogTest::fields)
+                        .filter(fields -> String.valueOf(fields.get("sql")).startsWith("insert into wallets"))
+                        .findFirst()
+                        .orElse(null);
+                Thread.sleep(50);
+            }
+            assertThat(insert).isNotNull();
+            assertThat(insert.get("caller")).isEqualTo("service.WalletService.createWallet");
+            assertThat(insert).containsKey("durationMs");
+            assertThat(appender.list).allMatch(event -> event.getThreadName().equals("slow-query-log"));
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+
+    private static Map<String, Object> fields(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value, (a, b) -> b));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ewallet.metrics;
+
+import com.example.ewallet.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OperationMetricsTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void operationsAreTimedByOutcomeAndRejectionsCounted() {
+        Long payer = createWallet(walletService, "payer");
+        Long payee = createWallet(walletService, "payee");
+        recharge(walletService, payer, "10.00");
+        double transfers = count("wallet.transfer", "success");
+        double rejected = registry.get("ewallet.transfers.rejected").counter().count();
+
+        walletService.transfer(transferRequest(payer, payee, "4.00"));
+        assertThatThrownBy(() -> walletService.transfer(transferRequest(payer, payee, "40.00")))
+                .isInstanceOf(IllegalArgumentException.class);
+        walletService.getTransactions(payer, null, 10);
+
+        assertThat(count("wallet.transfer", "success")).isEqualTo(transfers + 1);
+        assertThat(count("wallet.transfer", "rejected")).isGreaterThanOrEqualTo(1);
+        assertThat(registry.get("ewallet.transfers.rejected").counter().count()).isEqualTo(rejected + 1);
+        assertThat(registry.get("ewallet.wallet.history.rows").summary().totalAmount()).isGreaterThanOrEqualTo(2);
+    }
+
+    private double count(String operation, String outcome) {
+        return registry.get("ewallet.operations").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ewallet.outbox;
+
+import com.example.ewallet.repository.OutboxEventRepository;
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "ewallet.outbox.enabled=true",
+        "ewallet.outbox.sinks.memory.enabled=true"
+})
+class OutboxDispatcherTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private InMemoryOutboxSink sink;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void walletChangesReachSinksAndLeaveTheOutbox() {
+        Long payer = createWallet(walletService, "outbox-payer");
+        Long payee = createWallet(walletService, "outbox-payee");
+        recharge(walletService, payer, "50.00");
+        walletService.transfer(transferRequest(payer, payee, "20.00"));
+
+        dispatcher.drain();
+
+        List<OutboxMessage> payerEvents = eventsFor(payer);
+        assertThat(payerEvents).extracting(OutboxMessage::eventType).containsExactlyInAnyOrder("RECHARGE", "TRANSFER_DEBIT");
+        JsonNode debit = objectMapper.readTree(payerEvents.get(1).payload());
+        assertThat(debit.get("balanceAfter").decimalValue()).isEqualByComparingTo("30.00");
+
+        assertThat(eventsFor(payee)).extracting(OutboxMessage::eventType).containsExactly("TRANSFER_CREDIT");
+        assertThat(outboxEventRepository.findAll()).noneMatch(event ->
+                event.getWalletId().equals(payer) || event.getWalletId().equals(payee));
+    }
+
+    private List<OutboxMessage> eventsFor(Long walletId) {
+        return sink.messages().stream().filter(message -> message.walletId().equals(walletId)).toList();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ewallet.reconciliation;
+
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.entity.ReconciliationMismatch;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import com.example.ewallet.repository.ReconciliationMismatchRepository;
+import com.example.ewallet.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"ewallet.reconciliation.workers=3", "ewallet.reconciliation.range-size=4"})
+class LedgerReconcilerTest {
+
+    @Autowired
+    private LedgerReconciler reconciler;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ReconciliationMismatchRepository mismatchRepository;
+
+    @Autowired
+    private JobWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportsBalanceDriftAndTheFirstDivergentRow() {
+        List<Long> wallets = createWallets("reconcile", 6);
+        Long drifted = wallets.get(1);
+        Long rewritten = wallets.get(4);
+        jdbcTemplate.update("update wallets set balance = balance + 1 where id = ?", drifted);
+        Long secondRow = jdbcTemplate.queryForObject(
+                "select id from wallet_transactions where wallet_id = ? order by created_at, id offset 1 rows "
+                        + "fetch next 1 rows only", Long.class, rewritten);
+        jdbcTemplate.update("update wallet_transactions set amount = amount + 2 where id = ?", secondRow);
+
+        ReconciliationReport report = reconciler.reconcile();
+
+        assertThat(report.wallets()).isGreaterThanOrEqualTo(wallets.size());
+        Map<Long, ReconciliationMismatch> found = mismatchesFor(wallets);
+        assertThat(found).containsOnlyKeys(drifted, rewritten);
+        assertThat(found.get(drifted).getStoredBalance().subtract(found.get(drifted).getLedgerBalance()))
+                .isEqualByComparingTo("1.00");
+        assertThat(found.get(drifted).getDivergentTransactionId()).isNull();
+        assertThat(found.get(rewritten).getDivergentTransactionId()).isEqualTo(secondRow);
+        assertThat(found.get(rewritten).getRecordedBalanceAfter()
+                .subtract(found.get(rewritten).getExpectedBalanceAfter())).isEqualByComparingTo("-2.00");
+        assertThat(watermarkRepository.findById(LedgerReconciler.JOB_NAME).orElseThrow().getLastId()).isZero();
+    }
+
+    @Test
+    void interruptedRunResumesFromItsCheckpoint() {
+        List<Long> wallets = createWallets("resume", 3);
+        Long last = wallets.get(2);
+        LocalDateTime runStartedAt = LocalDateTime.now().minusHours(1).withNano(0);
+        jdbcTemplate.update("update wallets set balance = balance + 1 where id = ?", wallets.get(0));
+        jdbcTemplate.update("update wallets set balance = balance + 1 where id = ?", last);
+        JobWatermark checkpoint = watermarkRepository.findById(LedgerReconciler.JOB_NAME)
+                .orElseGet(() -> new JobWatermark(LedgerReconciler.JOB_NAME));
+        checkpoint.advanceTo(runStartedAt, last - 1);
+        watermarkRepository.save(checkpoint);
+
+        ReconciliationReport report = reconciler.reconcile();
+
+        assertThat(report.wallets()).isEqualTo(1);
+        assertThat(mismatchRepository.findByRunStartedAtOrderByWalletId(runStartedAt))
+                .extracting(ReconciliationMismatch::getWalletId)
+                .containsExactly(last);
+    }
+
+    // Recharges, transfers in a ring and a transfer back, so every wallet has credits and debits
+    private List<Long> createWallets(String prefix, int count) {
+        List<Long> wallets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Long id = createWallet(walletService, prefix + "-" + i);
+            recharge(walletService, id, "50.00");
+            wallets.add(id);
+        }
+        for (int i = 0; i < count; i++) {
+            walletService.transfer(transferRequest(wallets.get(i), wallets.get((i + 1) % count), "7.25"));
+            walletService.transfer(transferRequest(wallets.get((i + 1) % count), wallets.get(i), "1.10"));
+        }
+        return wallets;
+    }
+
+    private Map<Long, ReconciliationMismatch> mismatchesFor(List<Long> wallets) {
+        return mismatchRepository.findAll().stream()
+                .filter(mismatch -> wallets.contains(mismatch.getWalletId()))
+                .collect(Collectors.toMap(ReconciliationMismatch::getWalletId, Function.identity(),
+                        (first, second) -> second));
+    }
+}
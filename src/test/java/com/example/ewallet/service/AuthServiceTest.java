@@ -0,0 +1,49 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.dto.LoginRequest;
+import com.example.ewallet.dto.SignupRequest;
+import com.example.ewallet.dto.UserProfileResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void signupThenLoginVerifiesPasswordOffTheCallerThread() {
+        UserProfileResponse created = authService.signup(signup("carol", "carol@example.com", "s3cret!")).join();
+        assertThat(created.getWalletId()).isNotNull();
+
+        UserProfileResponse loggedIn = authService.login(login("carol", "s3cret!")).join();
+        assertThat(loggedIn.getUserId()).isEqualTo(created.getUserId());
+        assertThat(loggedIn.getWalletId()).isEqualTo(created.getWalletId());
+
+        assertThatThrownBy(() -> authService.login(login("carol", "wrong")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private SignupRequest signup(String username, String email, String password) {
+        SignupRequest request = new SignupRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword(password);
+        return request;
+    }
+
+    private LoginRequest login(String username, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setUsername(username);
+        request.setPassword(password);
+        return request;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.dto.StatementResponse;
+import com.example.ewallet.entity.JobWatermark;
+import com.example.ewallet.repository.JobWatermarkRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BalanceSnapshotServiceTest {
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JobWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pointInTimeReadsCombineDayRowsWithTheUnrolledTail() throws InterruptedException {
+        Long wallet = createWallet(walletService, "statement-holder");
+        Long payee = createWallet(walletService, "statement-payee");
+        recharge(walletService, wallet, "10.00");
+        recharge(walletService, wallet, "20.00");
+        Thread.sleep(5);
+        LocalDateTime afterTwoRecharges = LocalDateTime.now();
+        Thread.sleep(5);
+
+        balanceSnapshotService.rollUp(LocalDateTime.now());
+
+        recharge(walletService, wallet, "30.00");
+        walletService.transfer(transferRequest(wallet, payee, "5.00"));
+
+        assertBalances(wallet, afterTwoRecharges);
+
+        balanceSnapshotService.rollUp(LocalDateTime.now());
+
+        assertBalances(wallet, afterTwoRecharges);
+    }
+
+    @Test
+    void rowsCommittedBehindTheWatermarkAreRolledUpLate() {
+        Long wallet = createWallet(walletService, "late-writer");
+        recharge(walletService, wallet, "1.00");
+        balanceSnapshotService.rollUp(LocalDateTime.now());
+
+        recharge(walletService, wallet, "7.00");
+        // As if the recharge had been inserted just before the roll-up and committed after it
+        JobWatermark watermark = watermarkRepository.findById(BalanceSnapshotService.JOB_NAME).orElseThrow();
+        LocalDateTime late = watermark.getLastCreatedAt().minusNanos(1_000);
+        jdbcTemplate.update("update wallet_transactions set created_at = ? where id = "
+                + "(select max(id) from wallet_transactions where wallet_id = ?)", late, wallet);
+        balanceSnapshotService.rollUp(LocalDateTime.now());
+
+        assertThat(balanceSnapshotService.reapplyLateRows()).isPositive();
+        StatementResponse statement = balanceSnapshotService.statement(wallet, late.toLocalDate(), LocalDate.now());
+        assertThat(statement.getClosingBalance()).isEqualByComparingTo("8.00");
+        assertThat(statement.getTransactionCount()).isEqualTo(2);
+        assertThat(balanceSnapshotService.balanceAt(wallet, LocalDateTime.now()).getBalance())
+                .isEqualByComparingTo("8.00");
+        assertThat(balanceSnapshotService.reapplyLateRows()).isZero();
+    }
+
+    private void assertBalances(Long wallet, LocalDateTime afterTwoRecharges) {
+        assertThat(balanceSnapshotService.balanceAt(wallet, afterTwoRecharges).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(balanceSnapshotService.balanceAt(wallet, LocalDateTime.now()).getBalance()).isEqualByComparingTo("55.00");
+
+        LocalDate today = LocalDate.now();
+        StatementResponse statement = balanceSnapshotService.statement(wallet, today.minusDays(1), today);
+        assertThat(statement.getOpeningBalance()).isEqualByComparingTo("0.00");
+        assertThat(statement.getClosingBalance()).isEqualByComparingTo("55.00");
+        assertThat(statement.getTotalCredits()).isEqualByComparingTo("60.00");
+        assertThat(statement.getTotalDebits()).isEqualByComparingTo("5.00");
+        assertThat(statement.getTransactionCount()).isEqualTo(4);
+        assertThat(statement.getDays()).hasSize(1);
+        assertThat(statement.getDays().get(0).getDate()).isEqualTo(today);
+    }
+}
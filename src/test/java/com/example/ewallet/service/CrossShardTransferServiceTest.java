@@ -0,0 +1,95 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.dto.TransactionResponse;
+import com.example.ewallet.entity.ShardTransfer;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.repository.ShardTransferRepository;
+import com.example.ewallet.shard.ShardRouter;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "ewallet.sharding.enabled=true",
+        "ewallet.sharding.urls[0]=jdbc:h2:mem:cross-shard-0;DB_CLOSE_DELAY=-1",
+        "ewallet.sharding.urls[1]=jdbc:h2:mem:cross-shard-1;DB_CLOSE_DELAY=-1",
+        "ewallet.sharding.recovery-delay=0s"
+})
+class CrossShardTransferServiceTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private CrossShardTransferService crossShardTransfers;
+
+    @Autowired
+    private ShardTransferRepository shardTransferRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Test
+    void walletsAreSpreadOverShardsAndTransfersBetweenThemSettle() {
+        Long alice = createWallet(walletService, "alice");
+        Long bob = createWallet(walletService, "bob");
+        assertThat(shardRouter.shardOf(alice)).isNotEqualTo(shardRouter.shardOf(bob));
+        recharge(walletService, alice, "100.00");
+
+        walletService.transfer(transferRequest(alice, bob, "40.00"));
+
+        assertThat(walletService.getWallet(alice).getBalance()).isEqualByComparingTo("60.00");
+        assertThat(walletService.getWallet(bob).getBalance()).isEqualByComparingTo("40.00");
+        TransactionResponse debit = walletService.getTransactions(alice, null, 10).getItems().get(0);
+        TransactionResponse credit = walletService.getTransactions(bob, null, 10).getItems().get(0);
+        assertThat(debit.getType()).isEqualTo(TransactionType.TRANSFER_DEBIT);
+        assertThat(credit.getType()).isEqualTo(TransactionType.TRANSFER_CREDIT);
+        assertThat(credit.getReference()).isEqualTo(debit.getReference());
+        assertThat(statusOf(alice, debit.getReference())).isEqualTo(ShardTransfer.Status.COMPLETED);
+    }
+
+    @Test
+    void recoveryFinishesInterruptedTransfersOnceAndReversesUnpayableOnes() {
+        Long carol = createWallet(walletService, "carol");
+        Long dave = createWallet(walletService, "dave");
+        recharge(walletService, carol, "50.00");
+        Long missing = ShardRouter.firstId(shardRouter.shardOf(dave)) + 999_999;
+
+        // Reserve only, as if the node died before reaching the target shard
+        String paid = crossShardTransfers.reserve(transferRequest(carol, dave, "20.00"), null).reference();
+        String unpayable = crossShardTransfers.reserve(transferRequest(carol, missing, "5.00"), null).reference();
+        assertThat(walletService.getWallet(carol).getBalance()).isEqualByComparingTo("25.00");
+        assertThat(walletService.getWallet(dave).getBalance()).isEqualByComparingTo("0.00");
+
+        assertThat(crossShardTransfers.recover()).isEqualTo(2);
+        assertThat(crossShardTransfers.recover()).isZero();
+
+        assertThat(walletService.getWallet(carol).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(walletService.getWallet(dave).getBalance()).isEqualByComparingTo("20.00");
+        assertThat(statusOf(carol, paid)).isEqualTo(ShardTransfer.Status.COMPLETED);
+        assertThat(statusOf(carol, unpayable)).isEqualTo(ShardTransfer.Status.REVERSED);
+        List<TransactionResponse> history = walletService.getTransactions(carol, null, 10).getItems();
+        assertThat(history).extracting(TransactionResponse::getType).contains(TransactionType.TRANSFER_REVERSAL);
+        assertThat(walletService.getTransactions(dave, null, 10).getItems()).hasSize(1);
+
+        assertThatThrownBy(() -> walletService.transfer(transferRequest(carol, missing, "1.00")))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    private ShardTransfer.Status statusOf(Long fromWalletId, String reference) {
+        return shardRouter.onWallet(fromWalletId, () -> shardTransferRepository.findAll().stream()
+                .filter(transfer -> transfer.getReference().equals(reference))
+                .findFirst()
+                .orElseThrow()
+                .getStatus());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.dto.RechargeRequest;
+import com.example.ewallet.dto.WalletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.rechargeRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Test
+    void concurrentRetriesWithOneKeyMoveMoneyOnce() throws Exception {
+        Long walletId = createWallet(walletService, "retrying-client");
+        RechargeRequest request = rechargeRequest("25.00");
+        String key = UUID.randomUUID().toString();
+        String scope = IdempotencyService.rechargeScope(walletId, request);
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<WalletResponse>> replies = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            replies.add(pool.submit(() -> {
+                start.await();
+                return idempotencyService.execute(key, walletId, scope, () -> walletService.recharge(walletId, request, key));
+            }));
+        }
+        start.countDown();
+        for (Future<WalletResponse> reply : replies) {
+            assertThat(reply.get().getBalance()).isEqualByComparingTo("25.00");
+        }
+        pool.shutdown();
+
+        assertThat(walletService.getWallet(walletId).getBalance()).isEqualByComparingTo("25.00");
+        assertThat(walletService.getTransactions(walletId, null, 10).getItems()).hasSize(1);
+
+        RechargeRequest different = rechargeRequest("30.00");
+        assertThatThrownBy(() -> idempotencyService.execute(key, walletId, IdempotencyService.rechargeScope(walletId, different),
+                () -> walletService.recharge(walletId, different, key)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
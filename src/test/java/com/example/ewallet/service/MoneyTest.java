@@ -0,0 +1,41 @@
+package com.example.ewallet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void convertsBetweenDecimalsAndMinorUnits() {
+        assertThat(Money.toMinor(new BigDecimal("12.34"))).isEqualTo(1234L);
+        assertThat(Money.toMinor(new BigDecimal("7.5"))).isEqualTo(750L);
+        assertThat(Money.toMinor(new BigDecimal("1.000"))).isEqualTo(100L);
+        assertThat(Money.toMinor(new BigDecimal("1E+3"))).isEqualTo(100000L);
+        assertThat(Money.toDecimal(1234L)).isEqualTo(new BigDecimal("12.34"));
+
+        assertThatThrownBy(() -> Money.toMinor(new BigDecimal("0.005")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("decimal places");
+        assertThatThrownBy(() -> Money.toMinor(new BigDecimal("1E+20")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Amount is too large");
+        assertThatThrownBy(() -> Money.toPositiveMinor(BigDecimal.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void referencesSortByCreationTime() {
+        Random random = new Random(42);
+        String earlier = ReferenceGenerator.next(1_700_000_000_000L, random);
+        String later = ReferenceGenerator.next(1_700_000_000_001L, random);
+
+        assertThat(earlier).hasSize(ReferenceGenerator.LENGTH).matches("[0-9A-HJKMNP-TV-Z]+");
+        assertThat(earlier).isLessThan(later);
+        assertThat(ReferenceGenerator.next()).isNotEqualTo(ReferenceGenerator.next());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.dto.TransactionResponse;
+import com.example.ewallet.dto.WalletResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.rechargeRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:group-commit;DB_CLOSE_DELAY=-1",
+        "ewallet.group-commit.enabled=true",
+        "ewallet.group-commit.linger=50ms"
+})
+class RechargeGroupCommitterTest {
+
+    private static final int CALLERS = 12;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentRechargesShareCommitsButGetTheirOwnResults() throws Exception {
+        Long first = createWallet(walletService, "first");
+        Long second = createWallet(walletService, "second");
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        List<Future<WalletResponse>> recharges = new ArrayList<>();
+        try {
+            for (int i = 0; i < CALLERS; i++) {
+                Long walletId = i % 2 == 0 ? first : second;
+                recharges.add(pool.submit(() -> walletService.recharge(walletId, rechargeRequest("5.00"))));
+            }
+            Future<WalletResponse> missing = pool.submit(() -> walletService.recharge(Long.MAX_VALUE >>> 8,
+                    rechargeRequest("5.00")));
+
+            for (Future<WalletResponse> recharge : recharges) {
+                assertThat(recharge.get().getBalance()).isPositive();
+            }
+            assertThatThrownBy(missing::get).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(EntityNotFoundException.class);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(walletService.getWallet(first).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(walletService.getWallet(second).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(walletService.getTransactions(first, null, 10).getItems())
+                .extracting(TransactionResponse::getBalanceAfter)
+                .extracting(BigDecimal::intValue)
+                .containsExactly(30, 25, 20, 15, 10, 5);
+        assertThat(meterRegistry.get("ewallet.recharge.group.size").summary().max()).isGreaterThan(1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.StripingProperties;
+import com.example.ewallet.dto.TransactionResponse;
+import com.example.ewallet.entity.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:striping;DB_CLOSE_DELAY=-1",
+        "ewallet.striping.stripes=4",
+        "ewallet.striping.consolidation-interval=1h"
+})
+class StripedBalanceServiceTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private StripedBalanceService stripedBalances;
+
+    @Autowired
+    private StripingProperties stripingProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void creditsLandOnStripesAndAreFoldedBackBeforeDebitsAndOnConsolidation() throws Exception {
+        Long merchant = createWallet(walletService, "merchant");
+        List<Long> payers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Long payer = createWallet(walletService, "payer-" + i);
+            recharge(walletService, payer, "100.00");
+            payers.add(payer);
+        }
+        stripingProperties.getWalletIds().add(merchant);
+        assertThat(stripedBalances.consolidate()).isZero();
+
+        ExecutorService pool = Executors.newFixedThreadPool(payers.size());
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (Long payer : payers) {
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        walletService.transfer(transferRequest(payer, merchant, "1.50"));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(rowBalance(merchant)).isEqualByComparingTo("0.00");
+        assertThat(walletService.getWallet(merchant).getBalance()).isEqualByComparingTo("60.00");
+        TransactionResponse credit = walletService.getTransactions(merchant, null, 1).getItems().get(0);
+        assertThat(credit.getType()).isEqualTo(TransactionType.TRANSFER_CREDIT);
+        assertThat(credit.getBalanceAfter()).isNull();
+
+        walletService.transfer(transferRequest(merchant, payers.get(0), "55.00"));
+        assertThat(rowBalance(merchant)).isEqualByComparingTo("5.00");
+        assertThat(walletService.getTransactions(merchant, null, 1).getItems().get(0).getBalanceAfter())
+                .isEqualByComparingTo("5.00");
+
+        walletService.transfer(transferRequest(payers.get(1), merchant, "2.00"));
+        assertThat(stripedBalances.consolidate()).isEqualTo(1);
+        assertThat(rowBalance(merchant)).isEqualByComparingTo("7.00");
+        assertThat(walletService.getWallet(merchant).getBalance()).isEqualByComparingTo("7.00");
+
+        walletService.transfer(transferRequest(payers.get(2), merchant, "3.00"));
+        recharge(walletService, merchant, "1.00");
+        assertThat(rowBalance(merchant)).isEqualByComparingTo("11.00");
+        assertThat(walletService.getTransactions(merchant, null, 1).getItems().get(0).getBalanceAfter())
+                .isEqualByComparingTo("11.00");
+    }
+
+    @Test
+    void opposingTransfersBetweenStripedWalletsDoNotDeadlock() throws Exception {
+        Long left = createWallet(walletService, "striped-left");
+        Long right = createWallet(walletService, "striped-right");
+        recharge(walletService, left, "100.00");
+        recharge(walletService, right, "100.00");
+        stripingProperties.getWalletIds().addAll(List.of(left, right));
+        stripedBalances.consolidate();
+        double conflicts = registry.find("ewallet.transaction.conflicts").counters().stream()
+                .mapToDouble(Counter::count).sum();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Long from = t % 2 == 0 ? left : right;
+                Long to = t % 2 == 0 ? right : left;
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        walletService.transfer(transferRequest(from, to, "1.00"));
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        stripedBalances.consolidate();
+        stripingProperties.getWalletIds().removeAll(List.of(left, right));
+
+        assertThat(registry.find("ewallet.transaction.conflicts").counters().stream()
+                .mapToDouble(Counter::count).sum()).isEqualTo(conflicts);
+        assertThat(walletService.getWallet(left).getBalance()).isEqualByComparingTo("100.00");
+        assertThat(walletService.getWallet(right).getBalance()).isEqualByComparingTo("100.00");
+    }
+
+    private BigDecimal rowBalance(Long walletId) {
+        return jdbcTemplate.queryForObject("select balance from wallets where id = ?", BigDecimal.class, walletId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.dto.WalletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class WalletServiceConcurrencyTest {
+
+    private static final int SOURCE_WALLETS = 10;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Test
+    void hotWalletTransfersNeitherDeadlockNorLoseMoney() throws Exception {
+        Long hot = createWallet(walletService, "merchant");
+        List<Long> sources = new ArrayList<>();
+        for (int i = 0; i < SOURCE_WALLETS; i++) {
+            Long id = createWallet(walletService, "payer-" + i);
+            recharge(walletService, id, "1000.00");
+            sources.add(id);
+        }
+        BigDecimal totalBefore = totalBalance(hot, sources);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    Long from = sources.get(random.nextInt(SOURCE_WALLETS));
+                    // 90% of the traffic targets the hot wallet, the rest crosses between payers in both directions
+                    Long to = random.nextInt(10) < 9 ? hot : sources.get(random.nextInt(SOURCE_WALLETS));
+                    if (from.equals(to)) {
+                        continue;
+                    }
+                    walletService.transfer(transferRequest(from, to, "1.00"));
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).as("transfers finished without deadlock").isTrue();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        assertThat(totalBalance(hot, sources)).isEqualByComparingTo(totalBefore);
+        AtomicInteger hotLedgerRows = new AtomicInteger();
+        walletService.streamTransactions(hot, tx -> hotLedgerRows.incrementAndGet());
+        assertThat(hotLedgerRows.get()).isEqualTo(walletService.getWallet(hot).getBalance().intValue());
+    }
+
+    private BigDecimal totalBalance(Long hot, List<Long> sources) {
+        BigDecimal total = walletService.getWallet(hot).getBalance();
+        for (Long id : sources) {
+            WalletResponse wallet = walletService.getWallet(id);
+            total = total.add(wallet.getBalance());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.ewallet.service;
+
+import com.example.ewallet.config.LedgerProperties;
+import com.example.ewallet.dto.BatchTransferItemResult;
+import com.example.ewallet.dto.BatchTransferResponse;
+import com.example.ewallet.dto.TransactionPage;
+import com.example.ewallet.dto.TransactionResponse;
+import com.example.ewallet.entity.TransactionType;
+import com.example.ewallet.repository.IdSequenceMigration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static com.example.ewallet.WalletFixtures.transferRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class WalletServiceTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private LedgerProperties ledgerProperties;
+
+    @Autowired
+    private IdSequenceMigration idSequenceMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchTransferNetsBalancesAndReportsFailuresPerItem() {
+        Long employer = createWallet(walletService, "employer");
+        Long alice = createWallet(walletService, "alice");
+        Long bob = createWallet(walletService, "bob");
+        recharge(walletService, employer, "100.00");
+
+        BatchTransferResponse response = walletService.transferBatch(List.of(
+                transferRequest(employer, alice, "40.00"),
+                transferRequest(employer, bob, "50.00"),
+                transferRequest(employer, alice, "20.00"),
+                transferRequest(alice, alice, "1.00"),
+                transferRequest(bob, alice, "5.00")));
+
+        assertThat(response.getSucceeded()).isEqualTo(3);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(BatchTransferItemResult::getStatus).containsExactly(
+                BatchTransferItemResult.Status.SUCCEEDED,
+                BatchTransferItemResult.Status.SUCCEEDED,
+                BatchTransferItemResult.Status.FAILED,
+                BatchTransferItemResult.Status.FAILED,
+                BatchTransferItemResult.Status.SUCCEEDED);
+
+        assertThat(walletService.getWallet(employer).getBalance()).isEqualByComparingTo("10.00");
+        assertThat(walletService.getWallet(alice).getBalance()).isEqualByComparingTo("45.00");
+        assertThat(walletService.getWallet(bob).getBalance()).isEqualByComparingTo("45.00");
+        assertThat(walletService.getTransactions(alice, null, 50).getItems()).hasSize(2);
+    }
+
+    @Test
+    void historyPagesWithKeysetCursorUntilExhausted() {
+        Long wallet = createWallet(walletService, "pager");
+        for (int i = 1; i <= 5; i++) {
+            recharge(walletService, wallet, i + ".00");
+        }
+
+        List<BigDecimal> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPage page = walletService.getTransactions(wallet, cursor, 2);
+            page.getItems().forEach(tx -> seen.add(tx.getAmount()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).extracting(BigDecimal::intValue).containsExactly(5, 4, 3, 2, 1);
+
+        List<BigDecimal> streamed = new ArrayList<>();
+        walletService.streamTransactions(wallet, tx -> streamed.add(tx.getAmount()));
+        assertThat(streamed).isEqualTo(seen);
+    }
+
+    @Test
+    void compactTransfersShowUpInBothWalletsHistory() {
+        Long payer = createWallet(walletService, "compact-payer");
+        Long payee = createWallet(walletService, "compact-payee");
+        recharge(walletService, payer, "100.00");
+        ledgerProperties.setFormat(LedgerProperties.Format.COMPACT);
+        try {
+            walletService.transfer(transferRequest(payer, payee, "30.00"));
+            walletService.transferBatch(List.of(transferRequest(payer, payee, "10.00"), transferRequest(payee, payer, "5.00")));
+        } finally {
+            ledgerProperties.setFormat(LedgerProperties.Format.PAIR);
+        }
+        recharge(walletService, payee, "1.00");
+
+        Integer rows = jdbcTemplate.queryForObject(
+                "select count(*) from wallet_transactions where wallet_id in (?, ?)", Integer.class, payer, payee);
+        assertThat(rows).isEqualTo(5);
+
+        List<TransactionResponse> payeeHistory = walletService.getTransactions(payee, null, 50).getItems();
+        assertThat(payeeHistory).extracting(TransactionResponse::getType).containsExactly(
+                TransactionType.RECHARGE,
+                TransactionType.TRANSFER_DEBIT,
+                TransactionType.TRANSFER_CREDIT,
+                TransactionType.TRANSFER_CREDIT);
+        assertThat(payeeHistory).extracting(TransactionResponse::getBalanceAfter)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("36.00"), new BigDecimal("35.00"),
+                        new BigDecimal("40.00"), new BigDecimal("30.00"));
+
+        List<TransactionResponse> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPage page = walletService.getTransactions(payer, cursor, 1);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        List<TransactionResponse> streamed = new ArrayList<>();
+        walletService.streamTransactions(payer, streamed::add);
+        assertThat(streamed).extracting(TransactionResponse::getId)
+                .containsExactlyElementsOf(paged.stream().map(TransactionResponse::getId).toList());
+        assertThat(streamed).extracting(TransactionResponse::getType).containsExactly(
+                TransactionType.TRANSFER_CREDIT,
+                TransactionType.TRANSFER_DEBIT,
+                TransactionType.TRANSFER_DEBIT,
+                TransactionType.RECHARGE);
+
+        assertThat(balanceSnapshotService.balanceAt(payee, LocalDateTime.now()).getBalance()).isEqualByComparingTo("36.00");
+    }
+
+    @Test
+    void sequencesAreMovedPastIdsWrittenBeforeTheMigration() {
+        // A row as the IDENTITY column would have left it, well ahead of the sequence
+        jdbcTemplate.update("insert into wallets (id, owner_name, balance, created_at, updated_at, version) "
+                + "values (100000, 'legacy', 0, current_timestamp, current_timestamp, 0)");
+
+        idSequenceMigration.alignSequences();
+
+        Long next = jdbcTemplate.queryForObject("select next value for wallets_seq", Long.class);
+        assertThat(next - 49).isGreaterThan(100000L);
+    }
+
+    @Test
+    void rejectsAmountsFinerThanOneCent() {
+        Long payer = createWallet(walletService, "payer");
+        Long payee = createWallet(walletService, "payee");
+        recharge(walletService, payer, "10.00");
+
+        assertThatThrownBy(() -> walletService.transfer(transferRequest(payer, payee, "0.005")))
+                .isInstanceOf(IllegalArgumentException.class);
+        BatchTransferResponse batch = walletService.transferBatch(List.of(transferRequest(payer, payee, "1.001")));
+
+        assertThat(batch.getFailed()).isEqualTo(1);
+        assertThat(walletService.getWallet(payer).getBalance()).isEqualByComparingTo("10.00");
+        assertThat(walletService.getWallet(payee).getBalance()).isEqualByComparingTo("0.00");
+    }
+}
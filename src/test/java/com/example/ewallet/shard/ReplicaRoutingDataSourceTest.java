@@ -0,0 +1,104 @@
+package com.example.ewallet.shard;
+
+import com.example.ewallet.config.ReplicaProperties;
+import com.example.ewallet.entity.ReplicaHeartbeat;
+import com.example.ewallet.service.WalletService;
+import com.example.ewallet.web.ReadYourWritesFilter;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-primary;DB_CLOSE_DELAY=-1",
+        "ewallet.replica.enabled=true",
+        "ewallet.replica.urls[0]=jdbc:h2:mem:replica-copy;DB_CLOSE_DELAY=-1",
+        "ewallet.replica.max-lag=1m",
+        "ewallet.replica.read-your-writes-window=1s"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ShardPools shardPools;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private ReplicaProperties replicaProperties;
+
+    @Test
+    void readsGoToTheReplicaUnlessItLagsOrTheWalletWasJustWritten() throws InterruptedException {
+        Long walletId = createWallet(walletService, "alice");
+        recharge(walletService, walletId, "10.00");
+        lagMonitor.check();
+        replicate();
+        lagMonitor.check();
+
+        // Not replicated yet: alice's own read stays on the primary
+        recharge(walletService, walletId, "5.00");
+        assertThat(transactionCount(walletId)).isEqualTo(2);
+
+        Thread.sleep(1_200);
+        assertThat(transactionCount(walletId)).isEqualTo(1);
+
+        new JdbcTemplate(shardPools.replica(0)).update("update replica_heartbeat set beat_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(10)), ReplicaHeartbeat.ID);
+        lagMonitor.check();
+        assertThat(lagMonitor.isUsable(0)).isFalse();
+        assertThat(transactionCount(walletId)).isEqualTo(2);
+    }
+
+    @Test
+    void aClientThatJustWroteReadsFromThePrimaryOnAnyNode() throws Exception {
+        Long walletId = createWallet(walletService, "bob");
+        recharge(walletService, walletId, "10.00");
+        lagMonitor.check();
+        replicate();
+        lagMonitor.check();
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(replicaProperties.getReadYourWritesWindow());
+
+        MockHttpServletResponse written = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/wallets/" + walletId + "/recharge"), written,
+                (req, res) -> recharge(walletService, walletId, "5.00"));
+        Cookie lastWrite = written.getCookie(ReadYourWritesTracker.COOKIE);
+        assertThat(lastWrite).isNotNull();
+
+        // This node has forgotten the write by now; the cookie stands in for a node that never knew of it
+        Thread.sleep(1_200);
+        assertThat(transactionCount(walletId)).isEqualTo(1);
+        lastWrite.setValue(Long.toString(System.currentTimeMillis()));
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/api/wallets/" + walletId + "/transactions");
+        read.setCookies(lastWrite);
+        int[] count = new int[1];
+        filter.doFilter(read, new MockHttpServletResponse(), (req, res) -> count[0] = transactionCount(walletId));
+        assertThat(count[0]).isEqualTo(2);
+    }
+
+    // Stands in for replication: copies the primary into the replica as it is now
+    private void replicate() {
+        List<String> script = new JdbcTemplate(shardPools.primary(0))
+                .queryForList("script nopasswords nosettings", String.class);
+        JdbcTemplate replica = new JdbcTemplate(shardPools.replica(0));
+        replica.execute("drop all objects");
+        script.forEach(replica::execute);
+    }
+
+    private int transactionCount(Long walletId) {
+        return walletService.getTransactions(walletId, null, 10).getItems().size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.ewallet.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void asyncRequestsHoldTheirPermitUntilTheyComplete() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(2, Duration.ofMillis(10));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets/1/events");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(filter.availablePermits()).isEqualTo(1);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertThat(filter.availablePermits()).isEqualTo(2);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/wallets/1"), new MockHttpServletResponse(),
+                (req, res) -> { });
+        assertThat(filter.availablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void openEventStreamsDoNotHoldPermits() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(2, Duration.ofMillis(10));
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets/1/events");
+            request.setAsyncSupported(true);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, (req, res) -> {
+                res.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+                req.startAsync();
+            });
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/wallets/1"), response, (req, res) -> { });
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(filter.availablePermits()).isEqualTo(2);
+    }
+}
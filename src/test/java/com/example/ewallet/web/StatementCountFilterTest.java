@@ -0,0 +1,42 @@
+package com.example.ewallet.web;
+
+import com.example.ewallet.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.math.BigDecimal;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class StatementCountFilterTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsStatementsThatHibernateDidNotPrepare() throws Exception {
+        Long walletId = createWallet(walletService, "statement-counter");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallets/" + walletId);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/wallets/{walletId}");
+
+        new StatementCountFilter(registry).doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            jdbcTemplate.queryForObject("select count(*) from wallets", Long.class);
+            jdbcTemplate.queryForObject("select balance from wallets where id = ?", BigDecimal.class, walletId);
+        });
+
+        assertThat(registry.get("ewallet.http.jdbc.statements").tag("uri", "/api/wallets/{walletId}")
+                .summary().totalAmount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.ewallet.web;
+
+import com.example.ewallet.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.ewallet.WalletFixtures.createWallet;
+import static com.example.ewallet.WalletFixtures.recharge;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ewallet.events.sender-threads=1",
+        "ewallet.events.heartbeat-interval=200ms",
+        "ewallet.events.slow-consumer-timeout=1s"
+})
+class WalletEventHubTest {
+
+    @TestConfiguration
+    static class SmallSendBuffer {
+
+        // Lets a client that stops reading fill the socket after a few dozen events
+        @Bean
+        TomcatConnectorCustomizer smallSendBuffer() {
+            return connector -> connector.setProperty("socket.txBufSize", "1024");
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletEventHub hub;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void subscribersReceiveTheCurrentBalanceAndThenCommittedChanges() throws Exception {
+        Long walletId = createWallet(walletService, "sse-watcher");
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = eventsRequest(walletId);
+        BlockingQueue<String> first = subscribe(client, request);
+        BlockingQueue<String> second = subscribe(client, request);
+
+        assertThat(nextData(first)).contains("\"balance\":0");
+        assertThat(nextData(second)).contains("\"balance\":0");
+        assertThat(hub.subscriberCount()).isGreaterThanOrEqualTo(2);
+
+        recharge(walletService, walletId, "12.50");
+
+        assertThat(nextData(first)).contains("\"balance\":12.50");
+        assertThat(nextData(second)).contains("\"balance\":12.50");
+    }
+
+    @Test
+    void aClientThatStopsReadingDoesNotHoldUpOtherSubscribers() throws Exception {
+        Long stalled = createWallet(walletService, "sse-stalled");
+        Long watched = createWallet(walletService, "sse-watched");
+        double disconnects = slowDisconnects();
+
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(1024);
+            socket.connect(new InetSocketAddress("localhost", port));
+            socket.getOutputStream().write(("GET /api/wallets/" + stalled + "/events HTTP/1.1\r\n"
+                    + "Host: localhost\r\nAccept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (int i = 0; i < 300; i++) {
+                recharge(walletService, stalled, "0.01");
+            }
+
+            BlockingQueue<String> lines = subscribe(HttpClient.newHttpClient(), eventsRequest(watched));
+            assertThat(nextData(lines)).contains("\"balance\":0");
+            recharge(walletService, watched, "3.00");
+            assertThat(nextData(lines)).contains("\"balance\":3.00");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (slowDisconnects() == disconnects && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(slowDisconnects()).isGreaterThan(disconnects);
+        }
+    }
+
+    private double slowDisconnects() {
+        return registry.get("ewallet.events.slow.disconnects").functionCounter().count();
+    }
+
+    private HttpRequest eventsRequest(Long walletId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/wallets/" + walletId + "/events"))
+                .header("Accept", "text/event-stream")
+                .build();
+    }
+
+    private static BlockingQueue<String> subscribe(HttpClient client, HttpRequest request) {
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(response -> response.body().forEach(lines::add));
+        return lines;
+    }
+
+    private static String nextData(BlockingQueue<String> lines) throws InterruptedException {
+        while (true) {
+            String line = lines.poll(10, TimeUnit.SECONDS);
+            assertThat(line).as("event within 10s").isNotNull();
+            if (line.startsWith("data:")) {
+                return line;
+            }
+        }
+    }
+}